@@ -68,4 +68,25 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// Bakes the assets into a pack of pre-decoded textures and pre-parsed tables, run the game with
+// -Dro.assetPack=build/assets.ropk to load from it.
+val bakeAssets by tasks.registering(JavaExec::class) {
+    group = "build"
+    description = "Bakes src/main/resources/assets into build/assets.ropk"
+
+    val assets = layout.projectDirectory.dir("src/main/resources/assets")
+    val baked = layout.buildDirectory.dir("baked/assets")
+    val pack = layout.buildDirectory.file("assets.ropk")
+
+    inputs.dir(assets)
+    outputs.dir(baked)
+    outputs.file(pack)
+
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("zodalix.ro.engine.asset.bake.AssetBaker")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(assets.asFile.absolutePath, baked.get().asFile.absolutePath, pack.get().asFile.absolutePath)
+    })
+}
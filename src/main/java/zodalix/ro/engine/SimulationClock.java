@@ -0,0 +1,87 @@
+package zodalix.ro.engine;
+
+/**
+ * A fixed-rate simulation clock: real elapsed time is accumulated and spent in whole ticks of a constant length, so
+ * the simulation behaves (and costs) the same no matter how fast frames are drawn.
+ * <p>
+ * Whatever time is left in the accumulator after the ticks is exposed as {@link SimulationClock#alpha()}, how far the
+ * next tick is along. Renderers interpolate between the previous and the current tick state with it so motion stays
+ * smooth at frame rates above the tick rate.
+ * <p>
+ * If a frame takes so long that more than {@link SimulationClock#MAX_TICKS_PER_FRAME} ticks are due, the surplus is
+ * dropped instead of being caught up on, which would only make the next frame slower still.
+ *
+ * @see Tickable
+ */
+public final class SimulationClock {
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final int MAX_TICKS_PER_FRAME = 5;
+
+    private final int tickRate;
+    private final long tickNanos;
+    private final float tickSeconds;
+
+    private long accumulator;
+    private long droppedTicks;
+
+    /**
+     * @param tickRate how many ticks per second to simulate. {@code tickRate > 0}
+     */
+    public SimulationClock(int tickRate) {
+        if (tickRate <= 0) throw new IllegalArgumentException("Tick rate must be positive, got " + tickRate);
+
+        this.tickRate = tickRate;
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.tickSeconds = 1f / tickRate;
+    }
+
+    /**
+     * Adds elapsed real time to the accumulator.
+     *
+     * @param elapsedNanos the time since the last call.
+     * @return how many ticks to run now, at most {@link SimulationClock#MAX_TICKS_PER_FRAME}
+     */
+    public int advance(long elapsedNanos) {
+        this.accumulator += Math.max(0, elapsedNanos);
+
+        long due = accumulator / tickNanos;
+        int ticks = (int) Math.min(due, MAX_TICKS_PER_FRAME);
+
+        if (due > ticks) this.droppedTicks += due - ticks;
+        this.accumulator -= due * tickNanos; // The dropped ticks are forgotten, only the fraction of a tick remains.
+
+        return ticks;
+    }
+
+    /**
+     * @return the {@code deltaTime} every tick is simulated with, in seconds.
+     */
+    public float tickSeconds() {
+        return tickSeconds;
+    }
+
+    /**
+     * @return the length of a tick, in nanoseconds.
+     */
+    public long tickNanos() {
+        return tickNanos;
+    }
+
+    public int tickRate() {
+        return tickRate;
+    }
+
+    /**
+     * @return how far the next tick is along, in {@code [0, 1)}
+     */
+    public float alpha() {
+        return accumulator / (float) tickNanos;
+    }
+
+    /**
+     * @return how many ticks were skipped since the clock started because the game couldn't keep up.
+     */
+    public long droppedTicks() {
+        return droppedTicks;
+    }
+}
@@ -7,10 +7,10 @@ import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
 import zodalix.ro.engine.asset.provider.AssetProvider;
 import zodalix.ro.engine.utils.BoundingBox;
-import zodalix.ro.game.RoguesOdyssey;
 import zodalix.ro.engine.utils.position.Point2D;
 import zodalix.ro.engine.utils.NamespacedKey;
 import zodalix.ro.engine.renderer.DrawProperty;
+import zodalix.ro.engine.renderer.RenderQueue;
 
 import java.awt.Color;
 import java.io.IOException;
@@ -19,13 +19,23 @@ import java.io.InputStreamReader;
 public class AnimatedGameTexture extends GameTexture {
     private static final Gson GSON = new Gson();
 
-    private final int totalFrames, widthPerFrame;
+    private final int totalFrames, widthPerFrame; // 0 for the texture's width, which isn't known yet when constructed.
     private final float frameDuration;
 
-    AnimatedGameTexture(NamespacedKey key) {
-        super(key);
+    AnimatedGameTexture(NamespacedKey key, AssetManager assetManager) {
+        super(key, assetManager);
 
-        var resource = RoguesOdyssey.instance().assetManager.provideAsset("/assets/" + key.toString().replaceAll(":", "/") + ".json");
+        var path = key.assetPath() + ".json";
+
+        var baked = assetManager.bakedTable(path);
+        if (baked != null) {
+            this.totalFrames = (int) baked.get("frames", 1);
+            this.widthPerFrame = (int) baked.get("wpf", 0);
+            this.frameDuration = baked.get("duration", 0) / 1000f;
+            return;
+        }
+
+        var resource = assetManager.provideAsset(path);
         if (resource == null) throw AssetProvider.RESOURCE_NOT_FOUND;
 
         try (resource; final var reader = new InputStreamReader(resource)) {
@@ -52,6 +62,8 @@ public class AnimatedGameTexture extends GameTexture {
         public void draw(AssetManager am, Point2D position, Matrix4f projectionMatrix, @Nullable BoundingBox bb, DrawProperty... drawProperties) {
             float xScale = 1f, yScale = 1f, rotation = 0;
             Color colorTransform = null;
+            RenderQueue.Layer layer = null;
+            int depth = 0;
 
             for (final var property: drawProperties)
                 switch (property) {
@@ -63,10 +75,12 @@ public class AnimatedGameTexture extends GameTexture {
                     case DrawProperty.ColorTransform val -> colorTransform = val.color();
                     case DrawProperty.Dimensions _ -> {}
                     case DrawProperty.StretchProperty _ -> {}
+                    case DrawProperty.RenderLayer val -> layer = val.layer();
+                    case DrawProperty.Depth val -> depth = val.value();
                 }
 
             float frameHeight = getHeight() / (float) totalFrames;
-            AnimatedGameTexture.super.drawDefault0(am, position, 0, frameHeight * currentFrame, getWidth(), frameHeight * ((float) currentFrame + 1f), widthPerFrame, getHeight(), xScale, yScale, projectionMatrix, colorTransform, rotation, bb);
+            AnimatedGameTexture.super.drawDefault0(am, position, 0, frameHeight * currentFrame, getWidth(), frameHeight * ((float) currentFrame + 1f), widthPerFrame == 0 ? getWidth() : widthPerFrame, getHeight(), xScale, yScale, projectionMatrix, colorTransform, rotation, layer, depth, bb);
         }
 
         public void tick(float deltaTime) {
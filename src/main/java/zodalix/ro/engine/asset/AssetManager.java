@@ -1,66 +1,317 @@
 package zodalix.ro.engine.asset;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Nullable;
+import zodalix.ro.engine.asset.bake.BakedTable;
+import zodalix.ro.engine.asset.provider.AssetBuffer;
+import zodalix.ro.engine.asset.provider.DirectoryAssetProvider;
+import zodalix.ro.engine.asset.provider.LayeredAssetProvider;
+import zodalix.ro.engine.asset.provider.PackAssetProvider;
 import zodalix.ro.game.RoguesOdyssey;
 
 import zodalix.ro.engine.asset.provider.AssetProvider;
 import zodalix.ro.engine.asset.provider.ClassResourceAssetProvider;
 import zodalix.ro.engine.utils.NamespacedKey;
+import zodalix.ro.engine.utils.NamespacedRegistry;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
-public class AssetManager {
-    private final Map<NamespacedKey, GameTexture> loadedTextures;
-    private final Map<NamespacedKey, GameShader> loadedShaders;
+public final class AssetManager {
+    private static final Logger logger = LogManager.getLogger(AssetManager.class);
+
+    private final TextureCache textureCache;
+    private final NamespacedRegistry<GameShader> loadedShaders;
+    private final NamespacedRegistry<GameFont> loadedFonts;
+    private final List<TextureAtlas> atlases;
     private final AssetProvider assetProvider;
+    private final TextureLoader textureLoader;
+    private final ShaderCache shaderCache;
+    private final PreloadManifest preloadManifest;
 
     public AssetManager(RoguesOdyssey instance) {
         {
-            this.loadedTextures = new HashMap<>();
-            this.loadedShaders = new HashMap<>();
+            // -Dro.textureBudgetMiB=N changes how much GPU memory textures may hold before unused ones are evicted.
+            var budgetMiB = Long.getLong("ro.textureBudgetMiB", TextureCache.DEFAULT_BUDGET_BYTES / (1024 * 1024));
+
+            this.textureCache = new TextureCache(budgetMiB * 1024 * 1024);
+            this.loadedShaders = new NamespacedRegistry<>();
+            this.loadedFonts = new NamespacedRegistry<>();
+            this.atlases = new CopyOnWriteArrayList<>();
+        }
+        this.assetProvider = createProvider();
+        this.textureLoader = new TextureLoader(this);
+
+        var shaderCacheDir = System.getProperty("ro.shaderCacheDir", "cache/shaders");
+        this.shaderCache = new ShaderCache(shaderCacheDir.isBlank() ? null : Path.of(shaderCacheDir));
+
+        var preloadManifest = System.getProperty("ro.preloadManifest", "cache/preload.manifest");
+        this.preloadManifest = new PreloadManifest(preloadManifest.isBlank() ? null : Path.of(preloadManifest));
+        this.preload();
+    }
+
+    /**
+     * Starts loading every texture the manifest recorded on the loader's workers. Nothing here needs a GL context,
+     * so it overlaps with the window and context creation.
+     */
+    private void preload() {
+        for (final var entry : preloadManifest.entries()) {
+            textureLoader.submit(() -> {
+                try {
+                    if (entry.animated()) this.getAnimatedTexture(entry.key());
+                    else this.getTexture(entry.key());
+                } catch (RuntimeException e) {
+                    // The asset may be gone since the manifest was recorded, it's only a hint.
+                    logger.debug("Couldn't preload texture {}", entry.key(), e);
+                }
+            });
         }
-        this.assetProvider = new ClassResourceAssetProvider(this);
     }
 
-    public GameTexture getTexture(NamespacedKey key) {
-        if (!loadedTextures.containsKey(key)) {
-            GameTexture asset;
-            this.loadedTextures.put(key, asset = new GameTexture(key));
-            return asset;
+    /**
+     * Waits for the textures preloaded from the manifest to be decoded and uploads all of them at once, so the first
+     * frame of a screen doesn't draw placeholders. Must be called on the render thread, before the first screen is shown.
+     *
+     * @param timeoutMillis how long to wait at most, whatever isn't decoded by then uploads over the next frames.
+     * @return how many textures became resident.
+     */
+    public int finishPreload(long timeoutMillis) {
+        try {
+            if (!textureLoader.awaitIdle(timeoutMillis * 1_000_000))
+                logger.info("Preloading took longer than {}ms, the remaining textures will load in the background.", timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
 
-        return this.loadedTextures.get(key);
+        return textureLoader.processUploads(Long.MAX_VALUE);
     }
 
-    public AnimatedGameTexture getAnimatedTexture(NamespacedKey key) {
-        if (!loadedTextures.containsKey(key)) {
-            AnimatedGameTexture asset;
-            this.loadedTextures.put(key, asset = new AnimatedGameTexture(key));
-            return asset;
+    /**
+     * Assets come from a stack of layers, the first that has an asset wins:
+     * <ol>
+     *     <li>the resource packs given with {@code -Dro.resourcePacks=<pack or directory>[<path separator>...]},
+     *     topmost first. A directory holds an {@code assets} directory and works as a development override.</li>
+     *     <li>the pack given with {@code -Dro.assetPack=<file>}, or the classpath without one.</li>
+     * </ol>
+     * Every layer is indexed up front, so a missing asset (such as the baked form of a texture that isn't baked) is
+     * answered without touching the disk.
+     */
+    private static AssetProvider createProvider() {
+        var layers = new ArrayList<AssetProvider>();
+
+        var resourcePacks = System.getProperty("ro.resourcePacks", "");
+        for (final var resourcePack : resourcePacks.split(File.pathSeparator)) {
+            if (resourcePack.isBlank()) continue;
+
+            var path = Path.of(resourcePack);
+            layers.add(Files.isDirectory(path) ? new DirectoryAssetProvider(path) : mapPack(path));
         }
 
-        return (AnimatedGameTexture) this.loadedTextures.get(key);
+        var packFile = System.getProperty("ro.assetPack");
+        layers.add(packFile == null ? new ClassResourceAssetProvider(AssetManager.class) : mapPack(Path.of(packFile)));
+
+        return new LayeredAssetProvider(layers);
     }
 
-    public GameShader getShader(NamespacedKey key) {
-        if (!loadedShaders.containsKey(key)) {
-            GameShader asset;
-            this.loadedShaders.put(key, asset = new GameShader(key, this));
-            return asset;
+    private static PackAssetProvider mapPack(Path packFile) {
+        try {
+            var provider = new PackAssetProvider(packFile);
+            logger.info("Mapped asset pack {} ({} assets)", packFile, provider.size());
+            return provider;
+        } catch (IOException e) {
+            logger.fatal("Couldn't map the asset pack {}", packFile);
+            throw new RuntimeException(e);
         }
+    }
+
+    /**
+     * Returns the texture with the given key, starting to load it if it wasn't requested before. Safe from any thread.
+     * <p>
+     * The texture is usable right away but draws as a transparent placeholder until it has been decoded in the
+     * background and uploaded by {@link AssetManager#processUploads()}.
+     * <p>
+     * No reference is taken: the texture may be evicted while it isn't drawn, see {@link AssetManager#acquireTexture(NamespacedKey)}.
+     *
+     * @see GameTexture#isResident()
+     */
+    public GameTexture getTexture(NamespacedKey key) {
+        return textureCache.get(key, k -> new GameTexture(k, this));
+    }
+
+    public AnimatedGameTexture getAnimatedTexture(NamespacedKey key) {
+        return (AnimatedGameTexture) textureCache.get(key, k -> new AnimatedGameTexture(k, this));
+    }
+
+    /**
+     * Returns the texture with the given key like {@link AssetManager#getTexture(NamespacedKey)}, and keeps it in GPU
+     * memory until it is {@linkplain AssetManager#releaseTexture(GameTexture) released}, however long it goes undrawn.
+     */
+    public GameTexture acquireTexture(NamespacedKey key) {
+        var texture = this.getTexture(key);
+        texture.retain();
+        return texture;
+    }
+
+    /**
+     * Gives back a reference taken by {@link AssetManager#acquireTexture(NamespacedKey)}, once none are left the texture
+     * may be evicted.
+     *
+     * @throws IllegalStateException if the texture was released more often than it was acquired.
+     */
+    public void releaseTexture(GameTexture texture) {
+        texture.release();
+    }
 
-        return this.loadedShaders.get(key);
+    /**
+     * Packs every texture living under one of the given directories into shared pages instead of a GL texture of its own.
+     * <p>
+     * Groups only apply to textures loaded after they are registered, so this should be called before any screen is created.
+     *
+     * @param atlasKey    a key identifying the atlas.
+     * @param directories the directories (e.g. {@code ro:textures/clouds}) whose textures should be packed.
+     * @return the registered atlas.
+     * @throws IllegalStateException if an atlas with the same key is already registered.
+     */
+    public TextureAtlas registerAtlasGroup(NamespacedKey atlasKey, NamespacedKey... directories) {
+        for (final var atlas : atlases)
+            if (atlas.getKey().equals(atlasKey)) throw new IllegalStateException("Atlas " + atlasKey + " is already registered.");
+
+        var atlas = new TextureAtlas(atlasKey, directories);
+        this.atlases.add(atlas);
+        return atlas;
+    }
+
+    /**
+     * Uploads textures that finished decoding, within a per-frame budget. Must be called once per frame on the render thread.
+     *
+     * @return how many textures became resident.
+     */
+    public int processUploads() {
+        return textureLoader.processUploads();
+    }
+
+    /**
+     * Evicts unused textures if the GPU memory budget is exceeded. Must be called once per frame on the render thread,
+     * after drawing.
+     */
+    public void endFrame() {
+        preloadManifest.update(textureCache);
+        textureCache.endFrame();
+    }
+
+    /**
+     * Starts recording the textures the new screen draws during its first seconds, the next launch preloads them.
+     * Called by the renderer on the render thread whenever the current screen changes.
+     *
+     * @param screen a name identifying the screen across launches.
+     */
+    public void screenChanged(String screen) {
+        preloadManifest.screenChanged(screen, textureCache.frame());
+    }
+
+    /**
+     * @param budgetBytes the estimated GPU memory textures may hold before unused ones are evicted.
+     */
+    public void setTextureBudget(long budgetBytes) {
+        textureCache.setBudget(budgetBytes);
+    }
+
+    public TextureCache.Stats getTextureCacheStats() {
+        return textureCache.stats();
+    }
+
+    /**
+     * @return how many shader programs came from the binary cache or were compiled, and how long each took.
+     */
+    public ShaderCache.Stats getShaderCacheStats() {
+        return shaderCache.stats();
+    }
+
+    ShaderCache shaderCache() {
+        return shaderCache;
+    }
+
+    TextureLoader textureLoader() {
+        return textureLoader;
+    }
+
+    TextureCache textureCache() {
+        return textureCache;
+    }
+
+    @Nullable
+    TextureAtlas atlasFor(NamespacedKey textureKey) {
+        for (final var atlas : atlases)
+            if (atlas.contains(textureKey)) return atlas;
+
+        return null;
+    }
+
+    /**
+     * Shaders are looked up for every draw and cost next to no GPU memory, so they are kept for the whole session
+     * rather than reference counted. The first lookup of a key compiles it and must happen on the render thread.
+     */
+    public GameShader getShader(NamespacedKey key) {
+        return this.loadedShaders.computeIfAbsent(key, k -> new GameShader(k, this));
+    }
+
+    /**
+     * Fonts are kept for the whole session like shaders, their pages are bounded by {@link GameFont} itself.
+     * Must be called on the render thread.
+     *
+     * @param key the font's key without its extension, such as {@code ro:text/default} for {@code text/default.ttf}
+     */
+    public GameFont getFont(NamespacedKey key) {
+        return this.loadedFonts.computeIfAbsent(key, k -> new GameFont(k, this));
     }
 
     @Nullable
     public InputStream getInputStream(NamespacedKey path) {
-        return this.provideAsset("/assets/" + path.toString().replaceAll(":", "/"));
+        return this.provideAsset(path.assetPath());
+    }
+
+    /**
+     * Looks for the baked form of a JSON asset, which the {@code bakeAssets} build task produces for JSON made only of
+     * numbers. Callers fall back to parsing the JSON when there is none.
+     *
+     * @param key the JSON asset's key, such as {@code ro:text/default_spacing.json}
+     * @return the baked table, or {@code null} if the asset isn't baked.
+     */
+    @Nullable
+    public BakedTable getBakedTable(NamespacedKey key) {
+        return this.bakedTable(key.assetPath());
+    }
+
+    @Nullable
+    BakedTable bakedTable(String jsonPath) {
+        if (!jsonPath.endsWith(".json")) throw new IllegalArgumentException(jsonPath + " is not a JSON asset.");
+
+        var path = jsonPath.substring(0, jsonPath.length() - ".json".length()) + BakedTable.EXTENSION;
+        try (var buffer = this.provideAssetBuffer(path)) {
+            return buffer == null ? null : BakedTable.read(buffer.buffer());
+        } catch (IOException e) {
+            logger.fatal("Encountered an I/O exception whilst reading {}", path);
+            throw new RuntimeException(e);
+        }
     }
 
     InputStream provideAsset(String path) {
         return assetProvider.provide(path);
     }
+
+    /**
+     * @see AssetProvider#provideBuffer(String)
+     */
+    @Nullable
+    AssetBuffer provideAssetBuffer(String path) throws IOException {
+        return assetProvider.provideBuffer(path);
+    }
 }
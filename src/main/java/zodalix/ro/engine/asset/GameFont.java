@@ -0,0 +1,424 @@
+package zodalix.ro.engine.asset;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.stb.STBTTFontinfo;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+import zodalix.ro.engine.asset.provider.AssetBuffer;
+import zodalix.ro.engine.asset.provider.AssetProvider;
+import zodalix.ro.engine.utils.NamespacedKey;
+import zodalix.ro.game.RoguesOdyssey;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL33.*;
+import static org.lwjgl.stb.STBTruetype.*;
+
+/**
+ * A TrueType font loaded from {@code assets/<namespace>/<path>.ttf}, whose glyphs are rasterized with stb_truetype
+ * the first time they are drawn.
+ * <p>
+ * Glyphs are identified by a dense index handed out by {@link GameFont#glyph(int)}, their metrics and atlas
+ * rectangles live in flat arrays under it. Looking a code point up goes through a two-level table, no hashing or
+ * boxing is involved, and kerning between printable ASCII characters is read once when the font loads.
+ * <p>
+ * Rasterized glyphs are packed into single-channel pages of {@link GameFont#PAGE_SIZE} pixels. Once
+ * {@link GameFont#MAX_PAGES} are full, the least recently drawn page is cleared for the new glyphs: the glyphs it
+ * held are rasterized again the next time they are drawn, and {@link GameFont#generation()} changes so laid out text
+ * knows its atlas coordinates went stale.
+ * <p>
+ * Metrics are in pixels at {@link GameFont#PIXEL_HEIGHT}, text scales them from there. Render thread only.
+ *
+ * @see AssetManager#getFont(NamespacedKey)
+ */
+public final class GameFont {
+    private static final Logger logger = LogManager.getLogger(GameFont.class);
+
+    /** The height glyphs are rasterized at, in pixels. */
+    public static final int PIXEL_HEIGHT = 48;
+
+    static final int PAGE_SIZE = 1024;
+    static final int MAX_PAGES = 4;
+    private static final int PADDING = 2; // Cleared around every glyph, so linear filtering doesn't pick up a neighbour.
+
+    private static final int BLOCK_BITS = 8, BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final char FIRST_ASCII = ' ', LAST_ASCII = '~';
+    private static final int ASCII_COUNT = LAST_ASCII - FIRST_ASCII + 1;
+
+    private final NamespacedKey key;
+    private final AssetManager assetManager;
+    private final AssetBuffer data; // stb_truetype reads the font file for as long as the font lives.
+    private final STBTTFontinfo info;
+    private final float scale;
+    private final float ascent, descent, lineGap;
+
+    // Code point -> glyph + 1, in blocks of BLOCK_SIZE code points allocated on first use.
+    private final int[][] glyphTable;
+
+    // Per glyph.
+    private int glyphCount;
+    private int[] glyphIndices; // stb_truetype's glyph index.
+    private float[] advances;
+    private short[] offsetsX, offsetsY, widths, heights; // The bitmap's box relative to the pen on the baseline, y down.
+    private int[] glyphPages, glyphPageGenerations; // -1 when not rasterized.
+    private float[] regions; // u0, v0 (top), u1, v1 (bottom)
+
+    private final float[] asciiKerning;
+    private final List<Page> pages;
+    private int generation;
+
+    private static final class Page {
+        private final int glTextureId;
+        private int cursorX, cursorY, shelfHeight;
+        private long lastUsedFrame;
+        private int generation;
+
+        private Page(int glTextureId) {
+            this.glTextureId = glTextureId;
+        }
+
+        private void clear() {
+            this.cursorX = 0;
+            this.cursorY = 0;
+            this.shelfHeight = 0;
+            this.generation++;
+        }
+
+        /**
+         * Takes a rectangle from the page with a shelf packer, the space stays used until the page is cleared.
+         *
+         * @return the rectangle's corner, packed as {@code y << 16 | x}, or {@code -1} if the page is full.
+         */
+        private int reserve(int width, int height) {
+            int x = cursorX, y = cursorY, shelf = shelfHeight;
+            if (x + width > PAGE_SIZE) {
+                y += shelf;
+                x = 0;
+                shelf = 0;
+            }
+
+            if (y + height > PAGE_SIZE) return -1;
+
+            this.cursorX = x + width;
+            this.cursorY = y;
+            this.shelfHeight = Math.max(shelf, height);
+            return y << 16 | x;
+        }
+    }
+
+    GameFont(NamespacedKey key, AssetManager assetManager) {
+        this.key = key;
+        this.assetManager = assetManager;
+
+        var path = key.assetPath() + ".ttf";
+        try {
+            this.data = assetManager.provideAssetBuffer(path);
+        } catch (IOException e) {
+            logger.fatal("Encountered an I/O exception whilst reading {}", path);
+            throw new RuntimeException(e);
+        }
+        if (data == null) throw AssetProvider.RESOURCE_NOT_FOUND;
+
+        this.info = STBTTFontinfo.malloc();
+        if (!stbtt_InitFont(info, data.buffer())) {
+            info.free();
+            data.close();
+            throw new IllegalStateException(path + " is not a TrueType font.");
+        }
+
+        this.scale = stbtt_ScaleForPixelHeight(info, PIXEL_HEIGHT);
+        try (var stack = MemoryStack.stackPush()) {
+            var ascent = stack.mallocInt(1);
+            var descent = stack.mallocInt(1);
+            var lineGap = stack.mallocInt(1);
+            stbtt_GetFontVMetrics(info, ascent, descent, lineGap);
+
+            this.ascent = ascent.get(0) * scale;
+            this.descent = descent.get(0) * scale;
+            this.lineGap = lineGap.get(0) * scale;
+        }
+
+        this.glyphTable = new int[(Character.MAX_CODE_POINT + 1) >> BLOCK_BITS][];
+        this.pages = new ArrayList<>();
+        this.grow(128);
+
+        this.asciiKerning = new float[ASCII_COUNT * ASCII_COUNT];
+        for (char previous = FIRST_ASCII; previous <= LAST_ASCII; previous++) {
+            int previousIndex = stbtt_FindGlyphIndex(info, previous);
+            for (char next = FIRST_ASCII; next <= LAST_ASCII; next++)
+                asciiKerning[(previous - FIRST_ASCII) * ASCII_COUNT + next - FIRST_ASCII] =
+                        stbtt_GetGlyphKernAdvance(info, previousIndex, stbtt_FindGlyphIndex(info, next)) * scale;
+        }
+    }
+
+    private void grow(int capacity) {
+        this.glyphIndices = Arrays.copyOf(glyphIndices == null ? new int[0] : glyphIndices, capacity);
+        this.advances = Arrays.copyOf(advances == null ? new float[0] : advances, capacity);
+        this.offsetsX = Arrays.copyOf(offsetsX == null ? new short[0] : offsetsX, capacity);
+        this.offsetsY = Arrays.copyOf(offsetsY == null ? new short[0] : offsetsY, capacity);
+        this.widths = Arrays.copyOf(widths == null ? new short[0] : widths, capacity);
+        this.heights = Arrays.copyOf(heights == null ? new short[0] : heights, capacity);
+        this.regions = Arrays.copyOf(regions == null ? new float[0] : regions, capacity * 4);
+
+        int previous = glyphPages == null ? 0 : glyphPages.length;
+        this.glyphPages = Arrays.copyOf(glyphPages == null ? new int[0] : glyphPages, capacity);
+        this.glyphPageGenerations = Arrays.copyOf(glyphPageGenerations == null ? new int[0] : glyphPageGenerations, capacity);
+        Arrays.fill(glyphPages, previous, capacity, -1);
+    }
+
+    /**
+     * @return the glyph drawing the code point, its metrics are read on first use but it isn't rasterized yet.
+     */
+    public int glyph(int codePoint) {
+        if (codePoint < 0 || codePoint > Character.MAX_CODE_POINT) codePoint = 0xFFFD;
+
+        var block = glyphTable[codePoint >> BLOCK_BITS];
+        if (block == null) block = glyphTable[codePoint >> BLOCK_BITS] = new int[BLOCK_SIZE];
+
+        int glyph = block[codePoint & (BLOCK_SIZE - 1)] - 1;
+        if (glyph >= 0) return glyph;
+
+        glyph = this.load(codePoint);
+        block[codePoint & (BLOCK_SIZE - 1)] = glyph + 1;
+        return glyph;
+    }
+
+    private int load(int codePoint) {
+        if (glyphCount == glyphIndices.length) this.grow(glyphCount * 2);
+        int glyph = glyphCount++;
+
+        int index = stbtt_FindGlyphIndex(info, codePoint); // 0 is the font's missing glyph box.
+        glyphIndices[glyph] = index;
+
+        try (var stack = MemoryStack.stackPush()) {
+            var advance = stack.mallocInt(1);
+            var leftSideBearing = stack.mallocInt(1);
+            stbtt_GetGlyphHMetrics(info, index, advance, leftSideBearing);
+            advances[glyph] = advance.get(0) * scale;
+
+            var x0 = stack.mallocInt(1);
+            var y0 = stack.mallocInt(1);
+            var x1 = stack.mallocInt(1);
+            var y1 = stack.mallocInt(1);
+            stbtt_GetGlyphBitmapBox(info, index, scale, scale, x0, y0, x1, y1);
+
+            offsetsX[glyph] = (short) x0.get(0);
+            offsetsY[glyph] = (short) y0.get(0);
+            widths[glyph] = (short) Math.min(x1.get(0) - x0.get(0), PAGE_SIZE - 2 * PADDING);
+            heights[glyph] = (short) Math.min(y1.get(0) - y0.get(0), PAGE_SIZE - 2 * PADDING);
+        }
+
+        return glyph;
+    }
+
+    /**
+     * Rasterizes the glyph if it isn't in a page, and marks its page as drawn this frame.
+     *
+     * @return {@code false} if the glyph has nothing to draw, such as a space.
+     */
+    public boolean prepare(int glyph) {
+        if (widths[glyph] == 0 || heights[glyph] == 0) return false;
+
+        int pageIndex = glyphPages[glyph];
+        if (pageIndex == -1 || pages.get(pageIndex).generation != glyphPageGenerations[glyph]) pageIndex = this.rasterize(glyph);
+
+        pages.get(pageIndex).lastUsedFrame = assetManager.textureCache().frame();
+        return true;
+    }
+
+    private int rasterize(int glyph) {
+        int width = widths[glyph] + 2 * PADDING, height = heights[glyph] + 2 * PADDING;
+
+        long slot = this.reserve(width, height);
+        int pageIndex = (int) (slot >>> 32), x = (int) slot & 0xFFFF, y = (int) slot >>> 16 & 0xFFFF;
+        var page = pages.get(pageIndex);
+
+        var bitmap = MemoryUtil.memCalloc(width * height);
+        try {
+            stbtt_MakeGlyphBitmap(info, bitmap.position(PADDING * width + PADDING), widths[glyph], heights[glyph], width, scale, scale, glyphIndices[glyph]);
+
+            RoguesOdyssey.instance().renderer.glState().bindTexture(0, page.glTextureId);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+            glTexSubImage2D(GL_TEXTURE_2D, 0, x, y, width, height, GL_RED, GL_UNSIGNED_BYTE, bitmap.position(0));
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+        } finally {
+            MemoryUtil.memFree(bitmap);
+        }
+
+        regions[glyph * 4] = (x + PADDING) / (float) PAGE_SIZE;
+        regions[glyph * 4 + 1] = (y + PADDING) / (float) PAGE_SIZE;
+        regions[glyph * 4 + 2] = (x + PADDING + widths[glyph]) / (float) PAGE_SIZE;
+        regions[glyph * 4 + 3] = (y + PADDING + heights[glyph]) / (float) PAGE_SIZE;
+
+        glyphPages[glyph] = pageIndex;
+        glyphPageGenerations[glyph] = page.generation;
+        return pageIndex;
+    }
+
+    /**
+     * Reserves a rectangle in a page, clearing the least recently drawn page if every page is full.
+     *
+     * @return the page's index in the high half, the rectangle's corner as {@link Page#reserve(int, int)} packs it in
+     * the low half.
+     */
+    private long reserve(int width, int height) {
+        for (int i = 0; i < pages.size(); i++) {
+            int corner = pages.get(i).reserve(width, height);
+            if (corner != -1) return (long) i << 32 | corner;
+        }
+
+        long frame = assetManager.textureCache().frame();
+
+        Page leastRecent = null;
+        for (final var page : pages)
+            if (page.lastUsedFrame < frame && (leastRecent == null || page.lastUsedFrame < leastRecent.lastUsedFrame)) leastRecent = page;
+
+        // Every page is on screen this frame, going over the budget beats drawing stale glyphs.
+        if (pages.size() < MAX_PAGES || leastRecent == null) {
+            pages.add(new Page(createPageTexture()));
+            if (pages.size() > MAX_PAGES) logger.debug("Font {} exceeds its page budget with {} pages", key, pages.size());
+        } else {
+            leastRecent.clear();
+            this.generation++;
+            logger.debug("Cleared a page of font {}, last drawn {} frames ago", key, frame - leastRecent.lastUsedFrame);
+        }
+
+        for (int i = 0; i < pages.size(); i++) {
+            int corner = pages.get(i).reserve(width, height);
+            if (corner != -1) return (long) i << 32 | corner;
+        }
+
+        throw new IllegalStateException("A glyph of " + width + "x" + height + " doesn't fit an empty page.");
+    }
+
+    private static int createPageTexture() {
+        int texture = glGenTextures();
+        RoguesOdyssey.instance().renderer.glState().bindTexture(0, texture);
+
+        var pixels = MemoryUtil.memCalloc(PAGE_SIZE * PAGE_SIZE);
+        try {
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_R8, PAGE_SIZE, PAGE_SIZE, 0, GL_RED, GL_UNSIGNED_BYTE, pixels);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+        } finally {
+            MemoryUtil.memFree(pixels);
+        }
+
+        // Coverage goes to alpha, so the textured shader tints glyphs like any white sprite.
+        glTexParameteriv(GL_TEXTURE_2D, GL_TEXTURE_SWIZZLE_RGBA, new int[]{GL_ONE, GL_ONE, GL_ONE, GL_RED});
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, 0);
+
+        return texture;
+    }
+
+    /**
+     * @return the horizontal distance to the next glyph, in pixels.
+     */
+    public float advance(int glyph) {
+        return advances[glyph];
+    }
+
+    /**
+     * @return the adjustment between two code points drawn one after the other, in pixels.
+     */
+    public float kerning(int previousCodePoint, int codePoint) {
+        if (previousCodePoint >= FIRST_ASCII && previousCodePoint <= LAST_ASCII && codePoint >= FIRST_ASCII && codePoint <= LAST_ASCII)
+            return asciiKerning[(previousCodePoint - FIRST_ASCII) * ASCII_COUNT + codePoint - FIRST_ASCII];
+
+        return stbtt_GetGlyphKernAdvance(info, glyphIndices[this.glyph(previousCodePoint)], glyphIndices[this.glyph(codePoint)]) * scale;
+    }
+
+    /**
+     * @return the width of a line of text, in pixels.
+     */
+    public float measure(CharSequence text) {
+        float width = 0;
+        int previous = -1;
+
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+
+            if (previous != -1) width += this.kerning(previous, codePoint);
+            width += advances[this.glyph(codePoint)];
+            previous = codePoint;
+        }
+
+        return width;
+    }
+
+    /** @return the left edge of the glyph's bitmap relative to the pen, in pixels. */
+    public int offsetX(int glyph) {
+        return offsetsX[glyph];
+    }
+
+    /** @return the top edge of the glyph's bitmap relative to the baseline, in pixels, negative above it. */
+    public int offsetY(int glyph) {
+        return offsetsY[glyph];
+    }
+
+    public int width(int glyph) {
+        return widths[glyph];
+    }
+
+    public int height(int glyph) {
+        return heights[glyph];
+    }
+
+    /**
+     * @return the GL texture of the page the glyph was last {@linkplain GameFont#prepare(int) prepared} in.
+     */
+    public int pageTexture(int glyph) {
+        return pages.get(glyphPages[glyph]).glTextureId;
+    }
+
+    public float u0(int glyph) {
+        return regions[glyph * 4];
+    }
+
+    /** @return the top edge of the glyph in its page. */
+    public float v0(int glyph) {
+        return regions[glyph * 4 + 1];
+    }
+
+    public float u1(int glyph) {
+        return regions[glyph * 4 + 2];
+    }
+
+    /** @return the bottom edge of the glyph in its page. */
+    public float v1(int glyph) {
+        return regions[glyph * 4 + 3];
+    }
+
+    /**
+     * @return a number that changes whenever a page is cleared, atlas coordinates read before then may be stale.
+     */
+    public int generation() {
+        return generation;
+    }
+
+    /** @return the distance from the baseline to the top of the tallest glyphs, in pixels. */
+    public float ascent() {
+        return ascent;
+    }
+
+    /** @return the distance from one baseline to the next, in pixels. */
+    public float lineHeight() {
+        return ascent - descent + lineGap;
+    }
+
+    /**
+     * @return how many pages the font's glyphs currently span.
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    public NamespacedKey getKey() {
+        return key;
+    }
+}
@@ -7,58 +7,217 @@ import zodalix.ro.engine.utils.NamespacedKey;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiFunction;
 
 import static org.lwjgl.opengl.GL33.*;
-
+import static org.lwjgl.system.MemoryStack.stackPush;
+
+/**
+ * A linked GL program made of the {@code vertex.glsl} and {@code fragment.glsl} stages found under its key.
+ * <p>
+ * Linked programs are kept in the {@link ShaderCache}, later launches load them from there instead of compiling.
+ * <p>
+ * The program's active uniforms and attributes are introspected once after linking, uniforms are then set through
+ * cached, typed {@link ShaderUniform} handles instead of {@code glGetUniformLocation} lookups on every draw.
+ *
+ * @see AssetManager#getShader(NamespacedKey)
+ */
 public class GameShader {
 
     private static final Logger logger = LogManager.getLogger(GameShader.class);
 
     private final NamespacedKey key;
 
+    /** The compiled stages, {@code 0} when the program was loaded from the {@link ShaderCache}. */
     public transient final int fragmentShaderId, vertexShaderId;
     public transient final int glShaderProgram;
 
+    private record ActiveVariable(int location, int glType) {}
+
+    private final Map<String, ActiveVariable> activeUniforms, activeAttributes;
+    private final Map<String, ShaderUniform> uniforms;
+
     GameShader(NamespacedKey key, final AssetManager am) {
         this.key = key;
 
-        var fragmentResource = am.provideAsset("/assets/" + key.toString().replaceAll(":", "/") + "/fragment.glsl");
+        var fragmentResource = am.provideAsset(key.assetPath() + "/fragment.glsl");
         Objects.requireNonNull(fragmentResource);
 
-        var vertexResource = am.provideAsset("/assets/" + key.toString().replaceAll(":", "/") + "/vertex.glsl");
+        var vertexResource = am.provideAsset(key.assetPath() + "/vertex.glsl");
         Objects.requireNonNull(vertexResource);
 
+        String decompiledFragmentCode, decompiledVertexCode;
         try (fragmentResource; vertexResource) {
-            var decompiledFragmentCode = new String(fragmentResource.readAllBytes(), StandardCharsets.UTF_8);
-            var decompiledVertexCode = new String(vertexResource.readAllBytes(), StandardCharsets.UTF_8);
-
-            this.vertexShaderId = createGLShader(GL_VERTEX_SHADER, decompiledVertexCode);
-            this.fragmentShaderId = createGLShader(GL_FRAGMENT_SHADER, decompiledFragmentCode);
+            decompiledFragmentCode = new String(fragmentResource.readAllBytes(), StandardCharsets.UTF_8);
+            decompiledVertexCode = new String(vertexResource.readAllBytes(), StandardCharsets.UTF_8);
         } catch (IOException e) {
             logger.fatal("An unexpected I/O exception was thrown whilst loading shaders: {}", key);
             throw new RuntimeException(e);
         }
 
-        this.glShaderProgram = newProgram();
+        final var cache = am.shaderCache();
+        var hash = cache.hash(decompiledVertexCode, decompiledFragmentCode);
+
+        int cachedProgram = cache.load(key, hash);
+        if (cachedProgram != 0) {
+            this.vertexShaderId = 0;
+            this.fragmentShaderId = 0;
+            this.glShaderProgram = cachedProgram;
+        } else {
+            long start = System.nanoTime();
+
+            this.vertexShaderId = createGLShader(GL_VERTEX_SHADER, decompiledVertexCode);
+            this.fragmentShaderId = createGLShader(GL_FRAGMENT_SHADER, decompiledFragmentCode);
+            this.glShaderProgram = newProgram(cache, hash);
+
+            cache.store(key, hash, glShaderProgram, System.nanoTime() - start);
+        }
+
+        this.activeUniforms = new HashMap<>();
+        this.activeAttributes = new HashMap<>();
+        this.uniforms = new HashMap<>();
+        this.introspect();
     }
 
     private int createGLShader(int type, String decompiledCode) {
         int shader = glCreateShader(type);
         glShaderSource(shader, decompiledCode);
         glCompileShader(shader);
+
+        if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) {
+            var infoLog = glGetShaderInfoLog(shader);
+            glDeleteShader(shader);
+
+            logger.fatal("Couldn't compile the {} stage of shader {}:\n{}", type == GL_VERTEX_SHADER ? "vertex" : "fragment", key, infoLog);
+            throw new IllegalStateException("Couldn't compile shader " + key);
+        }
+
         return shader;
     }
 
-    private int newProgram() {
+    private int newProgram(ShaderCache cache, String hash) {
         int shaderProgram = glCreateProgram();
         glAttachShader(shaderProgram, vertexShaderId);
         glAttachShader(shaderProgram, fragmentShaderId);
+        cache.prepare(shaderProgram, hash);
 
         glLinkProgram(shaderProgram);
+
+        if (glGetProgrami(shaderProgram, GL_LINK_STATUS) == GL_FALSE) {
+            var infoLog = glGetProgramInfoLog(shaderProgram);
+            glDeleteProgram(shaderProgram);
+
+            logger.fatal("Couldn't link shader {}:\n{}", key, infoLog);
+            throw new IllegalStateException("Couldn't link shader " + key);
+        }
+
         return shaderProgram;
     }
 
+    private void introspect() {
+        try (var stack = stackPush()) {
+            var size = stack.mallocInt(1);
+            var type = stack.mallocInt(1);
+
+            int uniformCount = glGetProgrami(glShaderProgram, GL_ACTIVE_UNIFORMS);
+            for (int i = 0; i < uniformCount; i++) {
+                var name = glGetActiveUniform(glShaderProgram, i, size, type);
+                this.activeUniforms.put(name, new ActiveVariable(glGetUniformLocation(glShaderProgram, name), type.get(0)));
+            }
+
+            int attributeCount = glGetProgrami(glShaderProgram, GL_ACTIVE_ATTRIBUTES);
+            for (int i = 0; i < attributeCount; i++) {
+                var name = glGetActiveAttrib(glShaderProgram, i, size, type);
+                this.activeAttributes.put(name, new ActiveVariable(glGetAttribLocation(glShaderProgram, name), type.get(0)));
+            }
+        }
+
+        logger.debug("Shader {} has uniforms {} and attributes {}", key, activeUniforms.keySet(), activeAttributes.keySet());
+    }
+
+    /**
+     * @param name the uniform's name in the GLSL source.
+     * @return a cached handle for an {@code int}, {@code bool} or {@code sampler2D} uniform.
+     * @throws IllegalArgumentException if the uniform is active but isn't of a matching type.
+     */
+    public ShaderUniform.OfInt uniformInt(String name) {
+        return uniform(name, ShaderUniform.OfInt.class, ShaderUniform.OfInt::new, GL_INT, GL_BOOL, GL_SAMPLER_2D);
+    }
+
+    /**
+     * @param name the uniform's name in the GLSL source.
+     * @return a cached handle for a {@code float} uniform.
+     * @throws IllegalArgumentException if the uniform is active but isn't of a matching type.
+     */
+    public ShaderUniform.OfFloat uniformFloat(String name) {
+        return uniform(name, ShaderUniform.OfFloat.class, ShaderUniform.OfFloat::new, GL_FLOAT);
+    }
+
+    /**
+     * @param name the uniform's name in the GLSL source.
+     * @return a cached handle for a {@code vec2} uniform.
+     * @throws IllegalArgumentException if the uniform is active but isn't of a matching type.
+     */
+    public ShaderUniform.OfVec2 uniformVec2(String name) {
+        return uniform(name, ShaderUniform.OfVec2.class, ShaderUniform.OfVec2::new, GL_FLOAT_VEC2);
+    }
+
+    /**
+     * @param name the uniform's name in the GLSL source.
+     * @return a cached handle for a {@code vec4} uniform.
+     * @throws IllegalArgumentException if the uniform is active but isn't of a matching type.
+     */
+    public ShaderUniform.OfVec4 uniformVec4(String name) {
+        return uniform(name, ShaderUniform.OfVec4.class, ShaderUniform.OfVec4::new, GL_FLOAT_VEC4);
+    }
+
+    /**
+     * @param name the uniform's name in the GLSL source.
+     * @return a cached handle for a {@code mat4} uniform.
+     * @throws IllegalArgumentException if the uniform is active but isn't of a matching type.
+     */
+    public ShaderUniform.OfMatrix4f uniformMatrix4f(String name) {
+        return uniform(name, ShaderUniform.OfMatrix4f.class, ShaderUniform.OfMatrix4f::new, GL_FLOAT_MAT4);
+    }
+
+    private <U extends ShaderUniform> U uniform(String name, Class<U> handleType, BiFunction<String, Integer, U> factory, int... glTypes) {
+        var existing = this.uniforms.get(name);
+        if (existing != null) {
+            if (!handleType.isInstance(existing))
+                throw new IllegalArgumentException("Uniform " + name + " of " + key + " was already requested as " + existing.getClass().getSimpleName());
+
+            return handleType.cast(existing);
+        }
+
+        int location = -1;
+
+        var active = this.activeUniforms.get(name);
+        if (active == null) logger.warn("Uniform {} isn't active in shader {}, setting it will do nothing.", name, key);
+        else {
+            if (Arrays.stream(glTypes).noneMatch(glType -> glType == active.glType()))
+                throw new IllegalArgumentException("Uniform " + name + " of " + key + " can't be set through " + handleType.getSimpleName());
+
+            location = active.location();
+        }
+
+        var handle = factory.apply(name, location);
+        this.uniforms.put(name, handle);
+        return handle;
+    }
+
+    /**
+     * @param name the attribute's name in the GLSL source.
+     * @return the attribute's location, or {@code -1} if it isn't active.
+     */
+    public int attributeLocation(String name) {
+        var active = this.activeAttributes.get(name);
+        return active == null ? -1 : active.location();
+    }
+
     public NamespacedKey getKey() {
         return key;
     }
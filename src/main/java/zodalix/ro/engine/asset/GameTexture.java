@@ -1,84 +1,253 @@
 package zodalix.ro.engine.asset;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
-
-import org.lwjgl.BufferUtils;
-import zodalix.ro.engine.asset.provider.AssetProvider;
 import zodalix.ro.engine.utils.BoundingBox;
 import zodalix.ro.game.RoguesOdyssey;
 import zodalix.ro.engine.utils.position.Point2D;
 import zodalix.ro.engine.utils.NamespacedKey;
 import zodalix.ro.engine.renderer.DrawProperty;
+import zodalix.ro.engine.renderer.RenderQueue;
 import zodalix.ro.engine.utils.RenderingUtils;
 
 import java.awt.Color;
-import java.io.IOException;
-import java.lang.foreign.Arena;
-import java.lang.foreign.ValueLayout;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.lwjgl.opengl.GL33.*;
-import static org.lwjgl.stb.STBImage.*;
 import static zodalix.ro.engine.utils.RenderingUtils.normalizeRGBA;
 
+/**
+ * A texture loaded from {@code assets/<namespace>/<path>.png}.
+ * <p>
+ * Textures load asynchronously: the handle returned by {@link AssetManager#getTexture(NamespacedKey)} can be drawn
+ * immediately, but samples a transparent placeholder until the decoded image has been uploaded, see
+ * {@link GameTexture#isResident()}. Its size is read from the file's header on a loader thread too, and is {@code 0}
+ * until then.
+ * <p>
+ * The {@link TextureCache} may evict a texture that is neither acquired nor drawn, it then becomes a placeholder
+ * again and reloads itself the next time it is drawn.
+ *
+ * @see TextureLoader
+ */
 public class GameTexture {
-    private static final Logger logger = LogManager.getLogger(GameTexture.class);
+    private static final NamespacedKey TEXTURED_SHADER = NamespacedKey.getDefault("shader/textured");
 
     private final NamespacedKey key;
-    private transient final int glTextureId;
-    private final int width, height;
+    private volatile TextureLoader.@Nullable Source source; // Null until a loader thread has read the header.
+    private volatile int width, height;
+    private final AssetManager assetManager;
+
+    private final AtomicInteger references;
+    private volatile long lastUsedFrame;
+
+    // Only ever touched on the render thread, they change when the texture becomes resident or is evicted.
+    private transient int glTextureId;
+    private @Nullable TextureAtlas atlas;
+    private float u0, v0, u1, v1; // This texture's rectangle inside its GL texture.
+    private boolean resident, loading;
+    private long gpuBytes;
 
-    GameTexture(NamespacedKey key) {
+    GameTexture(NamespacedKey key, AssetManager assetManager) {
         this.key = key;
+        this.assetManager = assetManager;
+        this.references = new AtomicInteger();
+        this.lastUsedFrame = -1; // Never drawn.
 
-        var resource = RoguesOdyssey.instance().assetManager.provideAsset("/assets/" + key.toString().replaceAll(":", "/") + ".png");
-        if (resource == null) throw AssetProvider.RESOURCE_NOT_FOUND;
+        this.u0 = 0f;
+        this.v0 = 0f;
+        this.u1 = 1f;
+        this.v1 = 1f;
 
-        byte[] imageBytes;
-        try (resource) {
-            imageBytes = resource.readAllBytes();
-        } catch (IOException e) {
-            logger.fatal("Encountered an I/O exception whilst loading asset {}", getKey());
-            throw new RuntimeException(e);
-        }
+        this.loading = true;
+        assetManager.textureLoader().load(this);
+    }
+
+    /**
+     * Records the file this texture's pixels come from and its size, called by the {@link TextureLoader} on a loader thread.
+     */
+    void located(TextureLoader.Source source) {
+        this.width = source.width();
+        this.height = source.height();
+        this.source = source;
+    }
+
+    /**
+     * @return where this texture's pixels come from, or {@code null} if its header hasn't been read yet.
+     */
+    TextureLoader.@Nullable Source source() {
+        return source;
+    }
 
-        var buffer = ByteBuffer.allocateDirect(imageBytes.length);
-        {
-            buffer.put(imageBytes);
-            buffer.position(0);
+    /**
+     * Makes this texture resident, called by the {@link TextureLoader} on the render thread.
+     *
+     * @param image  the RGBA pixels of every level, or {@code null} to read them from the bound pixel unpack buffer.
+     * @param levels how many levels the pixels hold, the base image and its mips. Atlases only use the base image.
+     */
+    void upload(@Nullable ByteBuffer image, int levels) {
+        var atlas = assetManager.atlasFor(key);
+        TextureAtlas.Region region = atlas == null ? null : atlas.pack(image, this.width, this.height);
+
+        if (region != null) {
+            this.atlas = atlas;
+            this.glTextureId = region.glTextureId();
+
+            this.u0 = region.u0();
+            this.v0 = region.v0();
+            this.u1 = region.u1();
+            this.v1 = region.v1();
+            this.gpuBytes = 0; // The page is shared.
+        } else {
+            this.glTextureId = glGenTextures();
+            RoguesOdyssey.instance().renderer.glState().bindTexture(0, glTextureId); // Filtering comes from the sampler bound at draw time.
+
+            long offset = 0;
+            for (int level = 0; level < levels; level++) {
+                int levelWidth = Math.max(1, width >> level), levelHeight = Math.max(1, height >> level);
+                int levelSize = levelWidth * levelHeight * 4;
+
+                if (image != null)
+                    glTexImage2D(GL_TEXTURE_2D, level, GL_RGBA, levelWidth, levelHeight, 0, GL_RGBA, GL_UNSIGNED_BYTE, image.slice((int) offset, levelSize));
+                else glTexImage2D(GL_TEXTURE_2D, level, GL_RGBA, levelWidth, levelHeight, 0, GL_RGBA, GL_UNSIGNED_BYTE, offset);
+
+                offset += levelSize;
+            }
+
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, levels - 1);
+            this.gpuBytes = offset;
+            assetManager.textureCache().residentBytesChanged(offset);
         }
 
-        this.glTextureId = glGenTextures();
-        glBindTexture(GL_TEXTURE_2D, glTextureId);
+        this.resident = true;
+        this.loading = false;
+    }
+
+    /**
+     * Frees this texture's GPU memory, it shows the placeholder until it is drawn again. Render thread only.
+     */
+    void evict() {
+        if (!resident || atlas != null) return;
+
+        RoguesOdyssey.instance().renderer.glState().deleteTexture(glTextureId);
+        assetManager.textureCache().residentBytesChanged(-gpuBytes);
+        this.glTextureId = 0;
+        this.gpuBytes = 0;
+        this.resident = false;
+
+        this.u0 = 0f;
+        this.v0 = 0f;
+        this.u1 = 1f;
+        this.v1 = 1f;
+    }
+
+    /**
+     * Stamps this texture as drawn in the current frame, and loads it again if it was evicted.
+     * Called by the {@link RenderQueue} for every submission.
+     */
+    public void markUsed() {
+        final var cache = assetManager.textureCache();
+        this.lastUsedFrame = cache.frame();
 
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+        if (resident || loading) return;
+
+        this.loading = true;
+        cache.reloaded();
+        assetManager.textureLoader().load(this);
+    }
 
-        var width = BufferUtils.createIntBuffer(1);
-        var height = BufferUtils.createIntBuffer(1);
-        var channels = BufferUtils.createIntBuffer(1);
+    long lastUsedFrame() {
+        return lastUsedFrame;
+    }
 
-        var image = stbi_load_from_memory(buffer, width, height, channels, 4);
-        if (image == null) throw new IllegalStateException("Couldn't load asset image.");
+    void retain() {
+        references.incrementAndGet();
+    }
 
-        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width.get(0), height.get(0), 0, GL_RGBA, GL_UNSIGNED_BYTE, image);
+    void release() {
+        if (references.decrementAndGet() < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Texture " + key + " was released more often than it was acquired.");
+        }
+    }
 
+    int references() {
+        return references.get();
+    }
 
-        this.width = width.get(0);
-        this.height = height.get(0);
+    /**
+     * @return the GPU memory this texture alone holds, in bytes. Atlas-packed and non-resident textures hold none.
+     */
+    long estimatedGpuBytes() {
+        return gpuBytes;
+    }
 
-        stbi_image_free(image); // Free allocated memory
+    /**
+     * @return {@code false} while the texture is still loading and draws as a transparent placeholder.
+     */
+    public boolean isResident() {
+        return resident;
     }
 
     public NamespacedKey getKey() {
         return key;
     }
 
+    /**
+     * @return the GL texture to sample, the shared placeholder while this texture isn't resident.
+     */
     public int getGlTextureId() {
-        return glTextureId;
+        return resident ? glTextureId : assetManager.textureLoader().placeholderTexture();
+    }
+
+    /**
+     * @return the atlas this texture was packed into, or {@code null} if it owns its GL texture.
+     */
+    @Nullable
+    public TextureAtlas getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * @return the U coordinate of this texture's left edge inside {@link GameTexture#getGlTextureId()}
+     */
+    public float getU0() {
+        return u0;
+    }
+
+    /**
+     * @return the V coordinate of this texture's top edge inside {@link GameTexture#getGlTextureId()}
+     */
+    public float getV0() {
+        return v0;
+    }
+
+    /**
+     * @return the U coordinate of this texture's right edge inside {@link GameTexture#getGlTextureId()}
+     */
+    public float getU1() {
+        return u1;
+    }
+
+    /**
+     * @return the V coordinate of this texture's bottom edge inside {@link GameTexture#getGlTextureId()}
+     */
+    public float getV1() {
+        return v1;
+    }
+
+    /**
+     * Maps a U coordinate relative to this texture ({@code 0} left, {@code 1} right) to the backing GL texture.
+     */
+    public float mapU(float localU) {
+        return u0 + localU * (u1 - u0);
+    }
+
+    /**
+     * Maps a V coordinate relative to this texture ({@code 0} top, {@code 1} bottom) to the backing GL texture.
+     */
+    public float mapV(float localV) {
+        return v0 + localV * (v1 - v0);
     }
 
     public int getWidth() {
@@ -93,6 +262,8 @@ public class GameTexture {
         float width = getWidth(), height = getHeight();
         float xScale = 1f, yScale = 1f, rotation = 0;
         Color colorTransform = null;
+        RenderQueue.Layer layer = null;
+        int depth = 0;
 
         for (final var property: drawProperties)
             switch (property) {
@@ -108,120 +279,37 @@ public class GameTexture {
                 }
                 case DrawProperty.StretchProperty _ -> {
                 }
+                case DrawProperty.RenderLayer val -> layer = val.layer();
+                case DrawProperty.Depth val -> depth = val.value();
             }
 
-        drawDefault0(am, position, 0, 0, getWidth(), getHeight(), width, height, xScale, yScale, projectionMatrix, colorTransform, rotation,bb);
+        drawDefault0(am, position, 0, 0, getWidth(), getHeight(), width, height, xScale, yScale, projectionMatrix, colorTransform, rotation, layer, depth, bb);
     }
 
-    protected void drawDefault0(AssetManager am, Point2D position, float beginWidth, float beginHeight, float endWidth, float endHeight, float width, float height, float xScale,float yScale, Matrix4f projectionMatrix, Color colorTransform, float rotationDegrees, @Nullable BoundingBox bb) {
-        position = RenderingUtils.transformCoordinates(position, RoguesOdyssey.instance().renderer);
+    protected void drawDefault0(AssetManager am, Point2D position, float beginWidth, float beginHeight, float endWidth, float endHeight, float width, float height, float xScale,float yScale, Matrix4f projectionMatrix, Color colorTransform, float rotationDegrees, @Nullable RenderQueue.Layer layer, int depth, @Nullable BoundingBox bb) {
+        final var renderer = RoguesOdyssey.instance().renderer;
+
+        position = RenderingUtils.transformCoordinates(position, renderer);
         if(bb != null && !bb.isScreenVisible(position.x, position.y, projectionMatrix))
             return;
+        if (this.getWidth() == 0) return; // The header isn't read yet, there would be nothing but the placeholder to see.
 
         if (colorTransform == null) colorTransform = Color.white;
 
-        var shaderProgram = am.getShader(NamespacedKey.getDefault("shader/textured")).glShaderProgram;
-
-        glUseProgram(shaderProgram);
-
-        int textureHandle = glGetUniformLocation(shaderProgram, "uTexture");
-        glActiveTexture(GL_TEXTURE0);
-        glBindTexture(GL_TEXTURE_2D, this.getGlTextureId());
-
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-
-
-        glUniform1i(textureHandle, 0);
-
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-        glEnable(GL_BLEND);
-
-        int positionHandle = glGetAttribLocation(shaderProgram, "aPosition"),
-                texCoordHandle = glGetAttribLocation(shaderProgram, "aTexCoord"),
-                colorHandle = glGetAttribLocation(shaderProgram, "aColor");
-
-        {
-            Matrix4f scratch = new Matrix4f(), modelMatrix = new Matrix4f(), mvpMatrix = new Matrix4f(), viewMatrix = new Matrix4f();
-
-            modelMatrix.identity();
-            viewMatrix.identity();
-
-            projectionMatrix.mul(viewMatrix, mvpMatrix);
-
-            modelMatrix.translate(position.x, position.y, 0f);
-            mvpMatrix.mul(modelMatrix, scratch);
-
-            int mvpMatrixId = glGetUniformLocation(shaderProgram, "uMVPMatrix");
-            int rotationHandle = glGetUniformLocation(shaderProgram, "uRotation");
-
-            glUniformMatrix4fv(mvpMatrixId, false, scratch.get(new float[16]));
-            glUniform1f(rotationHandle, (float) Math.toRadians(rotationDegrees));
-
-            glEnableVertexAttribArray(positionHandle);
-            glEnableVertexAttribArray(texCoordHandle);
-            glEnableVertexAttribArray(colorHandle);
-            try (var arena = Arena.ofConfined()) {
-
-                {
-                    var verticesSegment = arena.allocate(ValueLayout.JAVA_FLOAT, 8);
-                    for (int j = 0; j < 8; j++) {
-                        var baseValue = (j % 2 == 0 ? width * xScale : height * yScale);
-                        if (j < 2 || (j == 3 || j == 4)) baseValue = -baseValue;
-
-                        verticesSegment.set(ValueLayout.OfFloat.JAVA_FLOAT, j * 4, baseValue);
-                    }
-                    glVertexAttribPointer(positionHandle, 2, GL_FLOAT, false, 0, verticesSegment.address());
-                }
-
-                {
-                    float textureLeft = beginHeight / this.getHeight(),
-                            textureRight = endHeight / this.getHeight(),
-                            textureBottom = beginWidth / this.getWidth(),
-                            textureTop = endWidth / this.getWidth();
-
-                    var textureCoordinatesSegment = arena.allocate(ValueLayout.OfFloat.JAVA_FLOAT, 8);
-                    for (int j = 0; j < 8; j++) {
-                        float value = 0;
-                        if (j == 0 || j == 4) value = textureLeft;
-                        else if (j == 2 || j == 6) value = textureRight;
-                        if (j % 2 != 0) {
-                            if (j < 4) value = textureTop;
-                            else value = textureBottom;
-                        }
-
-                        textureCoordinatesSegment.set(ValueLayout.OfFloat.JAVA_FLOAT, j * 4, value);
-                    }
-
-                    glVertexAttribPointer(texCoordHandle, 2, GL_FLOAT, false, 0, textureCoordinatesSegment.address());
-                }
-
-                {
-                    var segmentLength = 4 * 4;
-                    var colorSegment = arena.allocate(ValueLayout.OfFloat.JAVA_FLOAT, segmentLength);
-
-                    for (int j = 0; j < segmentLength; j += 4) {
-
-                        colorSegment.set(ValueLayout.JAVA_FLOAT, j * 4L, normalizeRGBA(colorTransform.getRed()));
-                        colorSegment.set(ValueLayout.JAVA_FLOAT, (j + 1) * 4L, normalizeRGBA(colorTransform.getGreen()));
-                        colorSegment.set(ValueLayout.JAVA_FLOAT, (j + 2) * 4L, normalizeRGBA(colorTransform.getBlue()));
-                        colorSegment.set(ValueLayout.JAVA_FLOAT, (j + 3) * 4L, normalizeRGBA(255)); // TODO: Figure out alpha channel
-                    }
-
-                    glVertexAttribPointer(colorHandle, 4, GL_FLOAT, false, 0, colorSegment.address());
-                }
-
-                // Draw the text
-                glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
-
-            }
-            glDisableVertexAttribArray(positionHandle);
-            glDisableVertexAttribArray(texCoordHandle);
-            glDisableVertexAttribArray(colorHandle);
-        }
-
-        glUseProgram(0);
-        glBindTexture(GL_TEXTURE_2D, 0);
-        glDisable(GL_BLEND);
+        var shader = am.getShader(TEXTURED_SHADER);
+
+        float textureLeft = mapU(beginHeight / this.getHeight()),
+                textureRight = mapU(endHeight / this.getHeight()),
+                textureBottom = mapV(beginWidth / this.getWidth()),
+                textureTop = mapV(endWidth / this.getWidth());
+
+        renderer.renderQueue().submit(
+                layer, depth, shader, this, projectionMatrix,
+                position.x, position.y, width * xScale, height * yScale,
+                textureLeft, textureTop, textureRight, textureBottom,
+                (float) Math.toRadians(rotationDegrees),
+                normalizeRGBA(colorTransform.getRed()), normalizeRGBA(colorTransform.getGreen()), normalizeRGBA(colorTransform.getBlue()),
+                normalizeRGBA(255) // TODO: Figure out alpha channel
+        );
     }
 }
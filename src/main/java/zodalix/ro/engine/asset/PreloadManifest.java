@@ -0,0 +1,151 @@
+package zodalix.ro.engine.asset;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import zodalix.ro.engine.utils.NamespacedKey;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers which textures each screen draws during its first seconds, so the next launch can start loading them
+ * before the window even exists.
+ * <p>
+ * Recording starts when a screen is shown and ends {@link PreloadManifest#RECORD_NANOS} later, the textures drawn in
+ * between replace whatever that screen recorded before. Screens that weren't visited keep their previous entries.
+ * <p>
+ * The manifest is a plain text file, one texture per line:
+ * <pre>
+ * &lt;screen&gt; texture|animated &lt;namespace:path&gt;
+ * </pre>
+ * It lives in {@code cache/preload.manifest}, {@code -Dro.preloadManifest=<file>} moves it and an empty value disables it.
+ *
+ * @see AssetManager#finishPreload(long)
+ */
+final class PreloadManifest {
+    private static final Logger logger = LogManager.getLogger(PreloadManifest.class);
+
+    /** How long after a screen is shown the textures it draws are recorded. */
+    static final long RECORD_NANOS = 5_000_000_000L;
+
+    /**
+     * @param animated whether the texture has to be loaded as an {@link AnimatedGameTexture}.
+     */
+    record Entry(NamespacedKey key, boolean animated) {}
+
+    private final @Nullable Path file;
+    private final Map<String, Set<Entry>> screens;
+
+    // Only touched on the render thread.
+    private @Nullable String recordingScreen;
+    private long recordingFrame, recordingDeadline;
+
+    PreloadManifest(@Nullable Path file) {
+        this.file = file;
+        this.screens = new LinkedHashMap<>();
+
+        if (file != null && Files.isRegularFile(file)) {
+            try {
+                this.read(Files.readAllLines(file, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                logger.warn("Couldn't read the preload manifest {}, nothing will be preloaded.", file, e);
+                screens.clear();
+            }
+        }
+    }
+
+    private void read(List<String> lines) {
+        for (var line : lines) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+
+            var parts = line.trim().split("\\s+");
+            int separator = parts.length == 3 ? parts[2].indexOf(':') : -1;
+            if (separator <= 0 || !(parts[1].equals("texture") || parts[1].equals("animated"))) {
+                logger.warn("Skipping malformed preload manifest line: {}", line);
+                continue;
+            }
+
+            var key = NamespacedKey.get(parts[2].substring(0, separator), parts[2].substring(separator + 1));
+            screens.computeIfAbsent(parts[0], _ -> new LinkedHashSet<>()).add(new Entry(key, parts[1].equals("animated")));
+        }
+    }
+
+    /**
+     * @return every texture recorded by any screen, each once.
+     */
+    @NotNull
+    Collection<Entry> entries() {
+        var entries = new LinkedHashMap<NamespacedKey, Entry>();
+        for (final var screen : screens.values())
+            for (final var entry : screen) entries.putIfAbsent(entry.key(), entry);
+
+        return entries.values();
+    }
+
+    /**
+     * Starts recording the textures drawn from now on for the given screen.
+     *
+     * @param frame the {@link TextureCache#frame()} the screen is first drawn in.
+     */
+    void screenChanged(@NotNull String screen, long frame) {
+        if (file == null) return;
+
+        this.recordingScreen = screen;
+        this.recordingFrame = frame;
+        this.recordingDeadline = System.nanoTime() + RECORD_NANOS;
+    }
+
+    /**
+     * Ends the recording once its time is up, and saves the manifest if the screen drew anything new.
+     * Called once per frame on the render thread.
+     */
+    void update(@NotNull TextureCache cache) {
+        if (recordingScreen == null || System.nanoTime() < recordingDeadline) return;
+
+        var drawn = new LinkedHashSet<Entry>();
+        for (final var texture : cache.drawnSince(recordingFrame))
+            drawn.add(new Entry(texture.getKey(), texture instanceof AnimatedGameTexture));
+
+        var screen = recordingScreen;
+        this.recordingScreen = null;
+
+        if (drawn.equals(screens.get(screen))) return;
+
+        screens.put(screen, drawn);
+        this.save();
+    }
+
+    private void save() {
+        assert file != null;
+
+        var lines = new ArrayList<String>();
+        lines.add("# The textures each screen drew during its first seconds, preloaded on launch. Regenerated automatically.");
+        for (final var screen : screens.entrySet())
+            for (final var entry : screen.getValue())
+                lines.add(screen.getKey() + " " + (entry.animated() ? "animated" : "texture") + " " + entry.key());
+
+        try {
+            var parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            // Written aside and moved in place, a crash mid-write mustn't leave half a manifest behind.
+            var temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            Files.write(temporary, lines, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Couldn't save the preload manifest {}", file, e);
+        }
+    }
+}
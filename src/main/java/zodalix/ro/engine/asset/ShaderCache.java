@@ -0,0 +1,247 @@
+package zodalix.ro.engine.asset;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+import zodalix.ro.engine.utils.NamespacedKey;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.lwjgl.opengl.ARBGetProgramBinary.*;
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Persists linked shader programs with {@code ARB_get_program_binary}, so they don't have to be compiled from source
+ * on every launch.
+ * <p>
+ * A program is stored under its shader's key and a hash of both stages' source and of the driver (vendor, renderer
+ * and version strings): editing a shader or updating the driver simply misses the cache. A binary the driver rejects
+ * anyway is deleted and the shader is compiled from source, drivers are allowed to do that at any time.
+ * <p>
+ * The cache lives in {@code cache/shaders}, {@code -Dro.shaderCacheDir=<dir>} moves it and an empty value disables it.
+ *
+ * @see GameShader
+ * @see AssetManager#getShaderCacheStats()
+ */
+public final class ShaderCache {
+    private static final Logger logger = LogManager.getLogger(ShaderCache.class);
+
+    private static final int MAGIC = 'R' | 'S' << 8 | 'H' << 16 | 'B' << 24;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12; // Magic, version, binary format.
+
+    private final @Nullable Path directory;
+
+    // Resolved on first use, a GL context is needed.
+    private @Nullable Boolean supported;
+    private String driver;
+
+    private int cachedPrograms, compiledPrograms;
+    private long cachedNanos, compiledNanos;
+
+    /**
+     * @param cachedPrograms  how many programs were loaded from a binary.
+     * @param compiledPrograms how many programs were compiled from source.
+     * @param cachedNanos     the time spent loading binaries.
+     * @param compiledNanos   the time spent compiling and linking from source, storing the binaries included.
+     */
+    public record Stats(int cachedPrograms, int compiledPrograms, long cachedNanos, long compiledNanos) {}
+
+    ShaderCache(@Nullable Path directory) {
+        this.directory = directory;
+    }
+
+    private boolean isEnabled() {
+        if (supported == null) {
+            supported = directory != null
+                    && GL.getCapabilities().GL_ARB_get_program_binary
+                    && glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+
+            if (supported) this.driver = glGetString(GL_VENDOR) + "\0" + glGetString(GL_RENDERER) + "\0" + glGetString(GL_VERSION);
+            else if (directory != null) logger.info("The driver can't return program binaries, shaders will be compiled on every launch.");
+        }
+
+        return supported;
+    }
+
+    /**
+     * @return the hash a program built from these sources is stored under, or {@code null} if the cache is disabled.
+     */
+    @Nullable
+    String hash(String vertexSource, String fragmentSource) {
+        if (!this.isEnabled()) return null;
+
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(driver.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(vertexSource.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(fragmentSource.getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every JVM has to provide SHA-256.
+        }
+    }
+
+    /**
+     * @return a linked program loaded from the cache, or {@code 0} if it has to be compiled.
+     */
+    int load(@NotNull NamespacedKey key, @Nullable String hash) {
+        if (hash == null) return 0;
+
+        var file = this.fileOf(key, hash);
+        if (!Files.isRegularFile(file)) return 0;
+
+        long start = System.nanoTime();
+
+        ByteBuffer binary = null;
+        int program = 0;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            binary = MemoryUtil.memAlloc(Math.toIntExact(channel.size()));
+            while (binary.hasRemaining())
+                if (channel.read(binary) == -1) break;
+            binary.flip().order(ByteOrder.LITTLE_ENDIAN);
+
+            if (binary.remaining() < HEADER_SIZE || binary.getInt(0) != MAGIC || binary.getInt(4) != VERSION) {
+                logger.warn("Discarding the malformed program binary of shader {}", key);
+                Files.deleteIfExists(file);
+                return 0;
+            }
+
+            int format = binary.getInt(8);
+
+            program = glCreateProgram();
+            glProgramBinary(program, format, binary.position(HEADER_SIZE));
+
+            if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+                logger.info("The driver rejected the program binary of shader {}, compiling it from source.", key);
+                glDeleteProgram(program);
+                Files.deleteIfExists(file);
+                return 0;
+            }
+        } catch (IOException e) {
+            logger.warn("Couldn't read the program binary of shader {}, compiling it from source.", key, e);
+            if (program != 0) glDeleteProgram(program);
+            return 0;
+        } finally {
+            if (binary != null) MemoryUtil.memFree(binary);
+        }
+
+        this.cachedPrograms++;
+        this.cachedNanos += System.nanoTime() - start;
+        return program;
+    }
+
+    /**
+     * Must be called before a program is linked, for its binary to be retrievable afterward.
+     */
+    void prepare(int program, @Nullable String hash) {
+        if (hash != null) glProgramParameteri(program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+    }
+
+    /**
+     * Stores a freshly linked program, failing to do so only costs a compile on the next launch.
+     *
+     * @param compileNanos the time it took to compile and link the program.
+     */
+    void store(@NotNull NamespacedKey key, @Nullable String hash, int program, long compileNanos) {
+        long start = System.nanoTime();
+        this.compiledPrograms++;
+
+        if (hash != null) {
+            try {
+                this.write(key, hash, program);
+            } catch (IOException e) {
+                logger.warn("Couldn't store the program binary of shader {}", key, e);
+            }
+        }
+
+        this.compiledNanos += compileNanos + System.nanoTime() - start;
+    }
+
+    private void write(NamespacedKey key, String hash, int program) throws IOException {
+        int length = glGetProgrami(program, GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) return;
+
+        var file = this.fileOf(key, hash);
+        Files.createDirectories(file.getParent());
+
+        var binary = MemoryUtil.memAlloc(HEADER_SIZE + length).order(ByteOrder.LITTLE_ENDIAN);
+        try (var stack = MemoryStack.stackPush()) {
+            var format = stack.mallocInt(1);
+            glGetProgramBinary(program, null, format, binary.position(HEADER_SIZE));
+
+            binary.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, format.get(0)).position(0).limit(HEADER_SIZE + length);
+
+            // Written aside and moved in place, so another instance never reads half a binary.
+            var temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (var channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (binary.hasRemaining()) channel.write(binary);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            MemoryUtil.memFree(binary);
+        }
+
+        this.prune(key, file);
+    }
+
+    /**
+     * Deletes the binaries of older versions of a shader.
+     */
+    private void prune(NamespacedKey key, Path current) throws IOException {
+        var prefix = fileStem(key) + ".";
+
+        try (var files = Files.newDirectoryStream(current.getParent(), prefix + "*.bin")) {
+            for (var file : files)
+                if (!file.equals(current)) Files.deleteIfExists(file);
+        }
+    }
+
+    private Path fileOf(NamespacedKey key, String hash) {
+        assert directory != null;
+        return directory.resolve(fileStem(key) + "." + hash + ".bin");
+    }
+
+    /**
+     * @return the key with every character a file name can't hold (or that {@link ShaderCache#prune} splits on)
+     * escaped behind an {@code _}, {@code _} itself included, so different keys never share a file.
+     */
+    private static String fileStem(NamespacedKey key) {
+        var string = key.toString();
+        var stem = new StringBuilder(string.length() + 8);
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '_' -> stem.append("__");
+                case ':' -> stem.append("_c");
+                case '/' -> stem.append("_s");
+                case '.' -> stem.append("_d");
+                default -> stem.append(c);
+            }
+        }
+
+        return stem.toString();
+    }
+
+    Stats stats() {
+        return new Stats(cachedPrograms, compiledPrograms, cachedNanos, compiledNanos);
+    }
+}
@@ -0,0 +1,150 @@
+package zodalix.ro.engine.asset;
+
+import org.jetbrains.annotations.NotNull;
+import org.joml.Matrix4f;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * A typed handle to a uniform of a linked {@link GameShader}.
+ * <p>
+ * Handles are resolved once when the program is linked and remember the last value they uploaded, setting a uniform
+ * to the value it already holds doesn't reach the driver.
+ * <p>
+ * Like {@code glUniform*}, every setter applies to the <b>currently bound</b> program, so the owning shader must be
+ * in use when a value is set.
+ *
+ * @see GameShader#uniformInt(String)
+ * @see GameShader#uniformMatrix4f(String)
+ */
+public sealed abstract class ShaderUniform permits ShaderUniform.OfInt, ShaderUniform.OfFloat, ShaderUniform.OfVec2, ShaderUniform.OfVec4, ShaderUniform.OfMatrix4f {
+    private static long skippedUploads;
+
+    protected final String name;
+    protected final int location;
+    protected boolean hasValue;
+
+    ShaderUniform(String name, int location) {
+        this.name = name;
+        this.location = location;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLocation() {
+        return location;
+    }
+
+    /**
+     * @return {@code false} if the uniform doesn't exist in the program (or was optimized out), setting it is then a no-op.
+     */
+    public boolean isActive() {
+        return location != -1;
+    }
+
+    /**
+     * @return how many uniform uploads were skipped because the value didn't change, across every shader.
+     */
+    public static long getSkippedUploads() {
+        return skippedUploads;
+    }
+
+    /**
+     * @param equal whether the new value equals the last uploaded one.
+     * @return {@code true} if the upload should be skipped.
+     */
+    protected final boolean unchanged(boolean equal) {
+        if (location == -1) return true;
+        if (!hasValue || !equal) return false;
+
+        skippedUploads++;
+        return true;
+    }
+
+    public static final class OfInt extends ShaderUniform {
+        private int value;
+
+        OfInt(String name, int location) {
+            super(name, location);
+        }
+
+        public void set(int value) {
+            if (unchanged(this.value == value)) return;
+
+            this.value = value;
+            this.hasValue = true;
+            glUniform1i(location, value);
+        }
+    }
+
+    public static final class OfFloat extends ShaderUniform {
+        private float value;
+
+        OfFloat(String name, int location) {
+            super(name, location);
+        }
+
+        public void set(float value) {
+            if (unchanged(this.value == value)) return;
+
+            this.value = value;
+            this.hasValue = true;
+            glUniform1f(location, value);
+        }
+    }
+
+    public static final class OfVec2 extends ShaderUniform {
+        private float x, y;
+
+        OfVec2(String name, int location) {
+            super(name, location);
+        }
+
+        public void set(float x, float y) {
+            if (unchanged(this.x == x && this.y == y)) return;
+
+            this.x = x;
+            this.y = y;
+            this.hasValue = true;
+            glUniform2f(location, x, y);
+        }
+    }
+
+    public static final class OfVec4 extends ShaderUniform {
+        private float x, y, z, w;
+
+        OfVec4(String name, int location) {
+            super(name, location);
+        }
+
+        public void set(float x, float y, float z, float w) {
+            if (unchanged(this.x == x && this.y == y && this.z == z && this.w == w)) return;
+
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.w = w;
+            this.hasValue = true;
+            glUniform4f(location, x, y, z, w);
+        }
+    }
+
+    public static final class OfMatrix4f extends ShaderUniform {
+        private final Matrix4f value = new Matrix4f();
+        private final float[] scratch = new float[16];
+
+        OfMatrix4f(String name, int location) {
+            super(name, location);
+        }
+
+        public void set(@NotNull Matrix4f value) {
+            if (unchanged(this.value.equals(value))) return;
+
+            this.value.set(value);
+            this.hasValue = true;
+            glUniformMatrix4fv(location, false, value.get(scratch));
+        }
+    }
+}
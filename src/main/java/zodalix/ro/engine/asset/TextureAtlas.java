@@ -0,0 +1,235 @@
+package zodalix.ro.engine.asset;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
+import zodalix.ro.engine.utils.NamespacedKey;
+import zodalix.ro.game.RoguesOdyssey;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * A group of textures that share large GL textures (pages) instead of each owning one.
+ * <p>
+ * Any texture whose key lives under one of the group's directories is packed into a page with a skyline packer when it is
+ * loaded, the resulting {@link GameTexture} then points at the page and exposes its sub-rectangle through its UVs.
+ * Sprites from the same page can be drawn one after the other without rebinding a texture, which is what lets the
+ * {@link zodalix.ro.engine.renderer.SpriteBatch} merge them into a single draw call.
+ *
+ * @see AssetManager#registerAtlasGroup(NamespacedKey, NamespacedKey...)
+ * @see GameTexture#getU0()
+ */
+public final class TextureAtlas {
+    private static final Logger logger = LogManager.getLogger(TextureAtlas.class);
+
+    private static final int PREFERRED_PAGE_SIZE = 2048;
+    private static final int PADDING = 1; // Keeps neighbours from bleeding into each other.
+
+    private final NamespacedKey key;
+    private final NamespacedKey[] directories;
+    private final List<Page> pages;
+
+    private int pageSize = -1;
+
+    TextureAtlas(NamespacedKey key, NamespacedKey... directories) {
+        this.key = key;
+        this.directories = directories;
+        this.pages = new ArrayList<>();
+    }
+
+    /**
+     * A packed sub-rectangle of an atlas page, in normalized texture coordinates.
+     *
+     * @param glTextureId the page's GL texture.
+     * @param u0          the left edge.
+     * @param v0          the top edge (stb loads images top row first)
+     * @param u1          the right edge.
+     * @param v1          the bottom edge.
+     */
+    record Region(int glTextureId, float u0, float v0, float u1, float v1) {}
+
+    public NamespacedKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return how many pages this atlas currently spans.
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * @param textureKey the key of the texture to check.
+     * @return {@code true} if the texture lives under one of this group's directories.
+     */
+    public boolean contains(@NotNull NamespacedKey textureKey) {
+        for (final var directory : directories) {
+            if (!directory.getNamespace().equals(textureKey.getNamespace())) continue;
+            if (textureKey.getPath().startsWith(directory.getPath() + "/")) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Copies an RGBA image into the first page with room for it, opening a new page if none has.
+     *
+     * @param image  tightly packed RGBA pixels, or {@code null} to read them from the bound pixel unpack buffer.
+     * @param width  the image's width in pixels.
+     * @param height the image's height in pixels.
+     * @return the region the image was packed into, or {@code null} if the image is larger than a page.
+     */
+    @Nullable
+    Region pack(@Nullable ByteBuffer image, int width, int height) {
+        if (this.pageSize == -1)
+            this.pageSize = Math.min(PREFERRED_PAGE_SIZE, glGetInteger(GL_MAX_TEXTURE_SIZE));
+
+        int paddedWidth = width + PADDING * 2, paddedHeight = height + PADDING * 2;
+        if (paddedWidth > pageSize || paddedHeight > pageSize) return null;
+
+        for (final var page : pages) {
+            var region = page.insert(image, width, height);
+            if (region != null) return region;
+        }
+
+        var page = new Page(pageSize);
+        this.pages.add(page);
+        logger.debug("Opened page #{} for atlas {}", pages.size(), key);
+
+        return page.insert(image, width, height);
+    }
+
+    /**
+     * Deletes every page, textures packed into this atlas must not be drawn afterward.
+     */
+    void dispose() {
+        var glState = RoguesOdyssey.instance().renderer.glState();
+        for (final var page : pages) glState.deleteTexture(page.glTextureId);
+        pages.clear();
+    }
+
+    private static final class Page {
+        private final int glTextureId, size;
+
+        // The skyline: each node is a horizontal segment (x, y, width) with nothing packed above y.
+        private final List<int[]> skyline;
+
+        Page(int size) {
+            this.size = size;
+            this.skyline = new ArrayList<>();
+            this.skyline.add(new int[]{0, 0, size});
+
+            this.glTextureId = glGenTextures();
+            RoguesOdyssey.instance().renderer.glState().bindTexture(0, glTextureId);
+
+            // The transparent fill comes from client memory, even if a texture upload is reading from a pixel buffer.
+            int boundPixelBuffer = glGetInteger(GL_PIXEL_UNPACK_BUFFER_BINDING);
+            if (boundPixelBuffer != 0) glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+
+            var transparent = MemoryUtil.memCalloc(size * size * 4);
+            try {
+                glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, size, size, 0, GL_RGBA, GL_UNSIGNED_BYTE, transparent);
+            } finally {
+                MemoryUtil.memFree(transparent);
+                if (boundPixelBuffer != 0) glBindBuffer(GL_PIXEL_UNPACK_BUFFER, boundPixelBuffer);
+            }
+
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, 0); // Regions are packed without mips.
+        }
+
+        @Nullable
+        Region insert(@Nullable ByteBuffer image, int width, int height) {
+            int paddedWidth = width + PADDING * 2, paddedHeight = height + PADDING * 2;
+
+            int bestIndex = -1, bestY = Integer.MAX_VALUE, bestWaste = Integer.MAX_VALUE;
+            for (int i = 0; i < skyline.size(); i++) {
+                int y = fitAt(i, paddedWidth, paddedHeight);
+                if (y == -1) continue;
+
+                int waste = skyline.get(i)[2] - paddedWidth;
+                if (y < bestY || (y == bestY && waste < bestWaste)) {
+                    bestIndex = i;
+                    bestY = y;
+                    bestWaste = waste;
+                }
+            }
+
+            if (bestIndex == -1) return null;
+
+            int x = skyline.get(bestIndex)[0];
+            this.raise(bestIndex, x, bestY + paddedHeight, paddedWidth);
+
+            RoguesOdyssey.instance().renderer.glState().bindTexture(0, glTextureId);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+            if (image != null)
+                glTexSubImage2D(GL_TEXTURE_2D, 0, x + PADDING, bestY + PADDING, width, height, GL_RGBA, GL_UNSIGNED_BYTE, image);
+            else glTexSubImage2D(GL_TEXTURE_2D, 0, x + PADDING, bestY + PADDING, width, height, GL_RGBA, GL_UNSIGNED_BYTE, 0L);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+
+            float size = this.size;
+            return new Region(
+                    glTextureId,
+                    (x + PADDING) / size, (bestY + PADDING) / size,
+                    (x + PADDING + width) / size, (bestY + PADDING + height) / size
+            );
+        }
+
+        /**
+         * @return the lowest Y a rectangle starting at the given node can be placed at, or {@code -1} if it doesn't fit.
+         */
+        private int fitAt(int index, int width, int height) {
+            int x = skyline.get(index)[0];
+            if (x + width > size) return -1;
+
+            int y = 0, remaining = width;
+            for (int i = index; remaining > 0; i++) {
+                var node = skyline.get(i);
+
+                y = Math.max(y, node[1]);
+                if (y + height > size) return -1;
+
+                remaining -= node[2];
+            }
+
+            return y;
+        }
+
+        private void raise(int index, int x, int y, int width) {
+            skyline.add(index, new int[]{x, y, width});
+
+            // Shrink or drop the nodes now covered by the new one.
+            for (int i = index + 1; i < skyline.size(); i++) {
+                var node = skyline.get(i);
+                var previous = skyline.get(i - 1);
+
+                int previousEnd = previous[0] + previous[2];
+                if (node[0] >= previousEnd) break;
+
+                int shrink = previousEnd - node[0];
+                node[0] += shrink;
+                node[2] -= shrink;
+
+                if (node[2] > 0) break;
+                skyline.remove(i--);
+            }
+
+            // Merge neighbours of the same height.
+            for (int i = 0; i < skyline.size() - 1; i++) {
+                var node = skyline.get(i);
+                var next = skyline.get(i + 1);
+
+                if (node[1] != next[1]) continue;
+                node[2] += next[2];
+                skyline.remove(i + 1);
+                i--;
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package zodalix.ro.engine.asset;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import zodalix.ro.engine.utils.NamespacedKey;
+import zodalix.ro.engine.utils.NamespacedRegistry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The textures an {@link AssetManager} has handed out, kept within a GPU memory budget.
+ * <p>
+ * Lookups are safe from any thread and index a flat array by the key's id. Textures can be
+ * {@linkplain AssetManager#acquireTexture(NamespacedKey) acquired}, which pins them in GPU memory until they are
+ * released. Once the estimated GPU memory of every resident texture exceeds the budget, {@link TextureCache#endFrame()} evicts unpinned textures that weren't drawn this frame, least
+ * recently drawn first.
+ * <p>
+ * Evicting a texture only frees its GPU memory: the {@link GameTexture} handle stays valid and loads itself again
+ * the next time it is drawn, showing the placeholder meanwhile. Textures packed into a {@link TextureAtlas} share
+ * their page and are never evicted.
+ *
+ * @see AssetManager#getTextureCacheStats()
+ */
+public final class TextureCache {
+    private static final Logger logger = LogManager.getLogger(TextureCache.class);
+
+    /** The budget used unless {@code -Dro.textureBudgetMiB=N} is given. */
+    public static final long DEFAULT_BUDGET_BYTES = 256L * 1024 * 1024;
+
+    private final NamespacedRegistry<GameTexture> textures;
+    private final LongAdder hits, misses, evictions;
+
+    private volatile long budgetBytes;
+    private volatile long residentBytes; // Only written on the render thread, as textures upload and evict.
+
+    // Only advanced and read on the render thread.
+    private long frame;
+
+    /**
+     * A snapshot of the cache's counters.
+     *
+     * @param hits          lookups answered by a texture already in the cache.
+     * @param misses        lookups that had to load a texture, including evicted textures loading again.
+     * @param evictions     how many times a texture was evicted.
+     * @param textures      the number of texture handles in the cache, resident or not.
+     * @param pinned        how many of them are currently acquired.
+     * @param residentBytes the estimated GPU memory of the resident textures, excluding atlas pages.
+     * @param budgetBytes   the budget above which textures are evicted.
+     */
+    public record Stats(long hits, long misses, long evictions, int textures, int pinned, long residentBytes, long budgetBytes) {}
+
+    TextureCache(long budgetBytes) {
+        this.textures = new NamespacedRegistry<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @param loader creates the texture if it isn't cached, called at most once per key.
+     */
+    GameTexture get(NamespacedKey key, Function<NamespacedKey, ? extends GameTexture> loader) {
+        var texture = textures.get(key);
+        if (texture != null) {
+            hits.increment();
+            return texture;
+        }
+
+        return textures.computeIfAbsent(key, k -> {
+            misses.increment();
+            return loader.apply(k);
+        });
+    }
+
+    /**
+     * Counts an evicted texture loading again as a miss.
+     */
+    void reloaded() {
+        misses.increment();
+    }
+
+    /**
+     * @return the frame number textures drawn now are stamped with.
+     */
+    long frame() {
+        return frame;
+    }
+
+    /**
+     * @return the textures drawn in the given frame or any later one.
+     */
+    List<GameTexture> drawnSince(long frame) {
+        var drawn = new ArrayList<GameTexture>();
+        for (final var texture : textures)
+            if (texture.lastUsedFrame() >= frame && texture.isResident()) drawn.add(texture);
+
+        return drawn;
+    }
+
+    /**
+     * Accounts for a texture becoming resident or being evicted. Render thread only.
+     */
+    void residentBytesChanged(long delta) {
+        this.residentBytes += delta;
+    }
+
+    void setBudget(long budgetBytes) {
+        if (budgetBytes < 0) throw new IllegalArgumentException("The texture budget can't be negative, got " + budgetBytes);
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Evicts textures until the resident ones fit the budget again, then moves on to the next frame.
+     * Must be called on the render thread, after the frame was drawn.
+     */
+    void endFrame() {
+        long resident = this.residentBytes, budget = this.budgetBytes;
+        if (resident > budget) this.evict(resident - budget); // Evicted textures take their bytes off the count.
+
+        this.frame++;
+    }
+
+    private long evict(long excess) {
+        var candidates = new ArrayList<GameTexture>();
+        for (final var texture : textures)
+            if (texture.references() == 0 && texture.lastUsedFrame() < frame && texture.estimatedGpuBytes() > 0)
+                candidates.add(texture);
+
+        candidates.sort(Comparator.comparingLong(GameTexture::lastUsedFrame));
+
+        long freed = 0;
+        for (final var texture : candidates) {
+            if (freed >= excess) break;
+
+            freed += texture.estimatedGpuBytes();
+            texture.evict();
+            evictions.increment();
+
+            logger.debug("Evicted texture {}, last drawn {} frames ago", texture.getKey(), frame - texture.lastUsedFrame());
+        }
+
+        // Everything else is either pinned or on screen, there is nothing more to give back.
+        if (freed < excess) logger.debug("Texture budget exceeded by {} bytes with nothing left to evict", excess - freed);
+
+        return freed;
+    }
+
+    @NotNull
+    Stats stats() {
+        int pinned = 0;
+        for (final var texture : textures) if (texture.references() > 0) pinned++;
+
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), textures.size(), pinned, residentBytes, budgetBytes);
+    }
+}
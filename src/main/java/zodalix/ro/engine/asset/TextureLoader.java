@@ -0,0 +1,313 @@
+package zodalix.ro.engine.asset;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+import zodalix.ro.engine.asset.bake.BakedTexture;
+import zodalix.ro.engine.asset.provider.AssetProvider;
+import zodalix.ro.game.RoguesOdyssey;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.lwjgl.opengl.GL33.*;
+import static org.lwjgl.stb.STBImage.*;
+
+/**
+ * Loads textures off the render thread.
+ * <p>
+ * Finding a texture's file, reading its header, and reading and decoding a PNG happen on a small worker pool, a
+ * {@link BakedTexture} is only read there since its
+ * pixels are stored ready to upload. The decoded pixels are then handed back to the render
+ * thread, which copies them into a pixel unpack buffer and points the texture upload at it, so the driver can transfer
+ * the pixels asynchronously instead of blocking on a client-memory copy. Uploads are limited to a byte budget per
+ * frame, whatever doesn't fit waits for the next frame.
+ * <p>
+ * Until its upload happens a {@link GameTexture} samples a 1x1 transparent placeholder, its size is known as soon as
+ * a worker has read the file's header.
+ *
+ * @see AssetManager#processUploads()
+ */
+final class TextureLoader {
+    private static final Logger logger = LogManager.getLogger(TextureLoader.class);
+
+    /** How many decoded bytes may be uploaded per frame, at least one texture is always uploaded. */
+    static final long UPLOAD_BUDGET_BYTES = 4L * 1024 * 1024;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final AssetManager assetManager;
+    private final ExecutorService workers;
+    private final Queue<Decoded> decoded;
+    private final AtomicInteger pending; // Tasks submitted to the workers and not finished yet.
+
+    private int placeholderTexture;
+    private int pixelBuffer;
+    private long pixelBufferSize;
+
+    /**
+     * Where a texture's pixels come from.
+     *
+     * @param path  the file to load.
+     * @param baked {@code true} for a {@link BakedTexture}, {@code false} for a PNG.
+     */
+    record Source(String path, boolean baked, int width, int height) {}
+
+    /**
+     * @param pixels  every level of the texture, tightly packed.
+     * @param levels  how many levels {@code pixels} holds.
+     * @param release frees {@code pixels} once they are uploaded.
+     */
+    private record Decoded(GameTexture texture, ByteBuffer pixels, int levels, Runnable release) {}
+
+    TextureLoader(AssetManager assetManager) {
+        this.assetManager = assetManager;
+        this.decoded = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicInteger();
+
+        var threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.clamp(Runtime.getRuntime().availableProcessors() - 1, 1, 4), runnable -> {
+            var thread = new Thread(runnable, "Asset Loader #" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Finds a texture's file, preferring a baked one, and reads its dimensions from the header without decoding it.
+     * Runs on a worker, since it opens the file.
+     *
+     * @param basePath the texture's path, without an extension.
+     * @throws IllegalStateException if there is no such texture or its file is invalid.
+     */
+    Source locate(String basePath) {
+        var baked = basePath + BakedTexture.EXTENSION;
+        var resource = assetManager.provideAsset(baked);
+        if (resource != null) {
+            try (resource) {
+                var header = BakedTexture.readHeader(ByteBuffer.wrap(resource.readNBytes(BakedTexture.HEADER_SIZE)));
+                return new Source(baked, true, header.width(), header.height());
+            } catch (IOException e) {
+                logger.fatal("Encountered an I/O exception whilst reading the header of {}", baked);
+                throw new RuntimeException(e);
+            }
+        }
+
+        var png = basePath + ".png";
+        var pngResource = assetManager.provideAsset(png);
+        if (pngResource == null) throw AssetProvider.RESOURCE_NOT_FOUND;
+
+        byte[] header;
+        try (pngResource) {
+            header = pngResource.readNBytes(24); // Signature (8), IHDR length and type (8), width (4), height (4)
+        } catch (IOException e) {
+            logger.fatal("Encountered an I/O exception whilst reading the header of {}", png);
+            throw new RuntimeException(e);
+        }
+
+        for (int i = 0; i < PNG_SIGNATURE.length; i++)
+            if (header.length < 24 || header[i] != PNG_SIGNATURE[i]) throw new IllegalStateException(png + " is not a PNG image.");
+
+        return new Source(png, false, readInt(header, 16), readInt(header, 20));
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+    }
+
+    /**
+     * @return the GL texture every texture samples until it is resident, created on first use on the render thread.
+     */
+    int placeholderTexture() {
+        if (placeholderTexture != 0) return placeholderTexture;
+
+        this.placeholderTexture = glGenTextures();
+        RoguesOdyssey.instance().renderer.glState().bindTexture(0, placeholderTexture);
+
+        try (var stack = MemoryStack.stackPush()) {
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, 1, 1, 0, GL_RGBA, GL_UNSIGNED_BYTE, stack.calloc(4));
+        }
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, 0);
+
+        return placeholderTexture;
+    }
+
+    /**
+     * Queues a texture for reading and decoding on the worker pool, its file is located first if it never was.
+     */
+    void load(GameTexture texture) {
+        this.submit(() -> {
+            try {
+                var source = texture.source();
+                if (source == null) texture.located(source = this.locate(texture.getKey().assetPath()));
+
+                if (source.baked()) {
+                    decoded.add(this.read(texture, source));
+                    return;
+                }
+
+                var pixels = decode(source.path(), source.width(), source.height());
+                decoded.add(new Decoded(texture, pixels, 1, () -> stbi_image_free(pixels)));
+            } catch (Throwable t) {
+                logger.error("Couldn't load texture {}, it will stay transparent", texture.getKey(), t);
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the worker pool, {@link TextureLoader#awaitIdle(long)} waits for it as well as for any texture
+     * it starts loading.
+     */
+    void submit(Runnable task) {
+        pending.incrementAndGet();
+        workers.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                if (pending.decrementAndGet() == 0) {
+                    synchronized (pending) {
+                        pending.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until the workers have nothing left to read or decode.
+     *
+     * @return {@code false} if the timeout elapsed first.
+     */
+    boolean awaitIdle(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+
+                pending.wait(Math.max(1, remaining / 1_000_000));
+            }
+        }
+
+        return true;
+    }
+
+    private Decoded read(GameTexture texture, Source source) throws IOException {
+        var baked = assetManager.provideAssetBuffer(source.path());
+        if (baked == null) throw AssetProvider.RESOURCE_NOT_FOUND;
+
+        try {
+            var header = BakedTexture.readHeader(baked.buffer());
+            if (header.width() != source.width() || header.height() != source.height())
+                throw new IllegalStateException(source.path() + " changed size since its header was read.");
+            if (baked.buffer().remaining() < BakedTexture.HEADER_SIZE + header.pixelsSize())
+                throw new IllegalStateException(source.path() + " is truncated.");
+
+            var pixels = baked.buffer().slice(BakedTexture.HEADER_SIZE, Math.toIntExact(header.pixelsSize()));
+            return new Decoded(texture, pixels, header.levels(), baked::close);
+        } catch (RuntimeException e) {
+            baked.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer decode(String path, int expectedWidth, int expectedHeight) throws IOException {
+        // A pack provider hands out a view of its mapping, stb then reads the PNG without any copy.
+        try (var encoded = assetManager.provideAssetBuffer(path); var stack = MemoryStack.stackPush()) {
+            if (encoded == null) throw AssetProvider.RESOURCE_NOT_FOUND;
+
+            var width = stack.mallocInt(1);
+            var height = stack.mallocInt(1);
+            var channels = stack.mallocInt(1);
+
+            var image = stbi_load_from_memory(encoded.buffer(), width, height, channels, 4);
+            if (image == null) throw new IllegalStateException("Couldn't decode " + path + ": " + stbi_failure_reason());
+
+            if (width.get(0) != expectedWidth || height.get(0) != expectedHeight) {
+                stbi_image_free(image);
+                throw new IllegalStateException(path + " doesn't match the size in its header.");
+            }
+
+            return image;
+        }
+    }
+
+    /**
+     * Uploads decoded textures until the frame's budget is spent, must be called on the render thread.
+     *
+     * @return how many textures became resident.
+     */
+    int processUploads() {
+        return this.processUploads(UPLOAD_BUDGET_BYTES);
+    }
+
+    /**
+     * @param budget how many bytes may be uploaded, at least one texture is always uploaded.
+     */
+    int processUploads(long budget) {
+        int uploaded = 0;
+
+        Decoded next;
+        while ((next = decoded.peek()) != null) {
+            long size = next.pixels().remaining();
+            if (uploaded > 0 && size > budget) break;
+
+            decoded.poll();
+            try {
+                this.upload(next.texture(), next.pixels(), next.levels());
+            } finally {
+                next.release().run();
+            }
+
+            budget -= size;
+            uploaded++;
+        }
+
+        return uploaded;
+    }
+
+    private void upload(GameTexture texture, ByteBuffer pixels, int levels) {
+        if (pixelBuffer == 0) pixelBuffer = glGenBuffers();
+
+        glBindBuffer(GL_PIXEL_UNPACK_BUFFER, pixelBuffer);
+
+        long size = pixels.remaining();
+        if (size > pixelBufferSize) {
+            glBufferData(GL_PIXEL_UNPACK_BUFFER, size, GL_STREAM_DRAW);
+            this.pixelBufferSize = size;
+        }
+
+        // Invalidating lets the driver hand out fresh storage if the previous upload is still being read.
+        var mapped = glMapBufferRange(GL_PIXEL_UNPACK_BUFFER, 0, size, GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_BUFFER_BIT);
+        if (mapped == null) {
+            glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+            logger.error("Couldn't map the pixel buffer, uploading {} from client memory", texture.getKey());
+
+            texture.upload(pixels, levels);
+            return;
+        }
+
+        MemoryUtil.memCopy(pixels, mapped);
+        glUnmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+
+        texture.upload(null, levels); // Reads from the bound pixel buffer.
+        glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+    }
+
+    void dispose() {
+        workers.shutdownNow();
+
+        Decoded next;
+        while ((next = decoded.poll()) != null) next.release().run();
+
+        if (pixelBuffer != 0) RoguesOdyssey.instance().renderer.glState().deleteBuffer(pixelBuffer);
+        if (placeholderTexture != 0) RoguesOdyssey.instance().renderer.glState().deleteTexture(placeholderTexture);
+    }
+}
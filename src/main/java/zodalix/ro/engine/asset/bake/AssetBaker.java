@@ -0,0 +1,122 @@
+package zodalix.ro.engine.asset.bake;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.NotNull;
+import zodalix.ro.engine.asset.provider.AssetPack;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Bakes an {@code assets} directory ahead of time, so the game doesn't decode or parse anything it can avoid at load:
+ * <ul>
+ *     <li>PNGs become {@link BakedTexture}s, raw RGBA with their mip chain.</li>
+ *     <li>JSON made only of numbers becomes a {@link BakedTable}, other JSON is kept as is.</li>
+ *     <li>Everything else is copied.</li>
+ * </ul>
+ * The baked directory is then written as an {@link AssetPack}. This runs at build time through the {@code bakeAssets}
+ * Gradle task, images are decoded with ImageIO so no natives are needed.
+ */
+public final class AssetBaker {
+    private static final Gson GSON = new Gson();
+
+    private int textures, tables, copies;
+
+    private AssetBaker() {}
+
+    /**
+     * @param assetsDirectory the source directory, whose subdirectories are namespaces.
+     * @param bakedDirectory  where the baked assets are written, emptied first.
+     */
+    private void bake(@NotNull Path assetsDirectory, @NotNull Path bakedDirectory) throws IOException {
+        if (Files.exists(bakedDirectory)) {
+            try (Stream<Path> stale = Files.walk(bakedDirectory)) {
+                for (var file : (Iterable<Path>) stale.sorted(Comparator.reverseOrder())::iterator) Files.delete(file);
+            }
+        }
+
+        try (Stream<Path> files = Files.walk(assetsDirectory)) {
+            for (var file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                var name = file.getFileName().toString();
+                var target = bakedDirectory.resolve(assetsDirectory.relativize(file).toString());
+                Files.createDirectories(target.getParent());
+
+                if (name.endsWith(".png")) this.bakeTexture(file, replaceExtension(target, BakedTexture.EXTENSION));
+                else if (name.endsWith(".json") && this.bakeTable(file, replaceExtension(target, BakedTable.EXTENSION))) tables++;
+                else {
+                    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                    copies++;
+                }
+            }
+        }
+    }
+
+    private void bakeTexture(Path source, Path target) throws IOException {
+        var image = ImageIO.read(source.toFile());
+        if (image == null) throw new IOException("Couldn't decode " + source);
+
+        int width = image.getWidth(), height = image.getHeight();
+        var argb = image.getRGB(0, 0, width, height, null, 0, width);
+
+        var rgba = new byte[width * height * 4];
+        for (int i = 0; i < argb.length; i++) {
+            rgba[i * 4] = (byte) (argb[i] >> 16);
+            rgba[i * 4 + 1] = (byte) (argb[i] >> 8);
+            rgba[i * 4 + 2] = (byte) argb[i];
+            rgba[i * 4 + 3] = (byte) (argb[i] >>> 24);
+        }
+
+        Files.write(target, BakedTexture.bake(rgba, width, height));
+        textures++;
+    }
+
+    /**
+     * @return {@code false} if the JSON can't be baked, the caller copies it instead.
+     */
+    private boolean bakeTable(Path source, Path target) throws IOException {
+        JsonObject root;
+        try (Reader reader = Files.newBufferedReader(source)) {
+            root = GSON.fromJson(reader, JsonObject.class);
+        } catch (JsonParseException | ClassCastException _) {
+            return false;
+        }
+
+        byte[] baked = root == null ? null : BakedTable.bake(root);
+        if (baked == null) return false;
+
+        Files.write(target, baked);
+        return true;
+    }
+
+    private static Path replaceExtension(Path path, String extension) {
+        var name = path.getFileName().toString();
+        return path.resolveSibling(name.substring(0, name.lastIndexOf('.')) + extension);
+    }
+
+    /**
+     * Usage: {@code AssetBaker <assets directory> <baked directory> <output pack>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: AssetBaker <assets directory> <baked directory> <output pack>");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+
+        var baker = new AssetBaker();
+        baker.bake(Path.of(args[0]), Path.of(args[1]));
+        int packed = AssetPack.write(Path.of(args[1]), Path.of(args[2]));
+
+        System.out.printf("Baked %d textures and %d tables, copied %d assets, packed %d into %s in %dms%n",
+                baker.textures, baker.tables, baker.copies, packed, args[2], (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,151 @@
+package zodalix.ro.engine.asset.bake;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The baked texture format ({@code .rtex}): RGBA8 pixels ready to upload as is, with their mip chain.
+ * <p>
+ * Everything is little-endian:
+ * <pre>
+ * int    magic    "RTEX"
+ * int    version  {@link BakedTexture#VERSION}
+ * int    width
+ * int    height
+ * int    levels   the base image and its mips, halved down to 1x1
+ * byte   padding, up to {@link BakedTexture#HEADER_SIZE}
+ * byte   pixels[], every level tightly packed one after the other, top row first
+ * </pre>
+ *
+ * @see AssetBaker
+ */
+public final class BakedTexture {
+    public static final String EXTENSION = ".rtex";
+
+    static final int MAGIC = 'R' | 'T' << 8 | 'E' << 16 | 'X' << 24;
+    static final int VERSION = 1;
+
+    /** The header is padded so the pixels stay 16-byte aligned inside an asset pack. */
+    public static final int HEADER_SIZE = 32;
+
+    private BakedTexture() {}
+
+    /**
+     * @param width  the base level's width.
+     * @param height the base level's height.
+     * @param levels how many levels the texture has.
+     */
+    public record Header(int width, int height, int levels) {
+
+        /**
+         * @return the byte offset of a level's pixels, relative to the first level.
+         */
+        public long levelOffset(int level) {
+            long offset = 0;
+            for (int i = 0; i < level; i++) offset += levelSize(i);
+            return offset;
+        }
+
+        public long levelSize(int level) {
+            return (long) levelWidth(level) * levelHeight(level) * 4;
+        }
+
+        public int levelWidth(int level) {
+            return Math.max(1, width >> level);
+        }
+
+        public int levelHeight(int level) {
+            return Math.max(1, height >> level);
+        }
+
+        /**
+         * @return the size of every level together, in bytes.
+         */
+        public long pixelsSize() {
+            return levelOffset(levels);
+        }
+    }
+
+    /**
+     * @return how many levels a full mip chain of the given size has.
+     */
+    public static int levelCount(int width, int height) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+    }
+
+    /**
+     * Reads and validates the header at the start of a baked texture, the pixels after it aren't looked at.
+     *
+     * @throws IllegalStateException if the buffer isn't a baked texture of a supported version.
+     */
+    @NotNull
+    public static Header readHeader(@NotNull ByteBuffer buffer) {
+        var header = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC) throw new IllegalStateException("Not a baked texture.");
+        if (header.getInt(4) != VERSION) throw new IllegalStateException("Unsupported baked texture version " + header.getInt(4));
+
+        var result = new Header(header.getInt(8), header.getInt(12), header.getInt(16));
+        if (result.width() <= 0 || result.height() <= 0 || result.levels() <= 0 || result.levels() > levelCount(result.width(), result.height()))
+            throw new IllegalStateException("Corrupted baked texture header.");
+
+        return result;
+    }
+
+    /**
+     * Builds a baked texture from the base level, generating every mip.
+     *
+     * @param rgba the base level, {@code width * height * 4} bytes, straight (not premultiplied) alpha.
+     */
+    static byte[] bake(byte[] rgba, int width, int height) {
+        var header = new Header(width, height, levelCount(width, height));
+
+        var baked = new byte[Math.toIntExact(HEADER_SIZE + header.pixelsSize())];
+        ByteBuffer.wrap(baked).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC).putInt(VERSION)
+                .putInt(width).putInt(height).putInt(header.levels());
+
+        System.arraycopy(rgba, 0, baked, HEADER_SIZE, rgba.length);
+
+        for (int level = 1; level < header.levels(); level++)
+            downsample(baked, HEADER_SIZE + (int) header.levelOffset(level - 1), header.levelWidth(level - 1), header.levelHeight(level - 1),
+                    HEADER_SIZE + (int) header.levelOffset(level), header.levelWidth(level), header.levelHeight(level));
+
+        return baked;
+    }
+
+    /**
+     * A 2x2 box filter, colours are weighted by alpha so transparent texels don't darken the edges of sprites.
+     */
+    private static void downsample(byte[] data, int source, int sourceWidth, int sourceHeight, int target, int width, int height) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = 0, green = 0, blue = 0, alpha = 0, samples = 0;
+
+                for (int dy = 0; dy < 2; dy++) {
+                    int sy = Math.min(y * 2 + dy, sourceHeight - 1);
+                    for (int dx = 0; dx < 2; dx++) {
+                        int sx = Math.min(x * 2 + dx, sourceWidth - 1);
+                        int texel = source + (sy * sourceWidth + sx) * 4;
+
+                        int a = data[texel + 3] & 0xFF;
+                        red += (data[texel] & 0xFF) * a;
+                        green += (data[texel + 1] & 0xFF) * a;
+                        blue += (data[texel + 2] & 0xFF) * a;
+                        alpha += a;
+                        samples++;
+                    }
+                }
+
+                int texel = target + (y * width + x) * 4;
+                if (alpha > 0) {
+                    data[texel] = (byte) ((red + alpha / 2) / alpha);
+                    data[texel + 1] = (byte) ((green + alpha / 2) / alpha);
+                    data[texel + 2] = (byte) ((blue + alpha / 2) / alpha);
+                }
+                data[texel + 3] = (byte) ((alpha + samples / 2) / samples);
+            }
+        }
+    }
+}
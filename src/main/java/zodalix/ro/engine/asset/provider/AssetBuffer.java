@@ -0,0 +1,57 @@
+package zodalix.ro.engine.asset.provider;
+
+import org.jetbrains.annotations.NotNull;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An asset's bytes in a direct {@link ByteBuffer}, which can be handed to native code (stb, GL) as is.
+ * <p>
+ * The buffer is either a view of storage the provider keeps (such as a memory-mapped pack) or native memory allocated
+ * for the caller; closing takes care of the difference, so a buffer must always be closed and never used afterward.
+ *
+ * @see AssetProvider#provideBuffer(String)
+ */
+public final class AssetBuffer implements AutoCloseable {
+    private final ByteBuffer buffer;
+    private final boolean owned;
+
+    private AssetBuffer(ByteBuffer buffer, boolean owned) {
+        this.buffer = buffer;
+        this.owned = owned;
+    }
+
+    /**
+     * @param buffer native memory allocated with {@link MemoryUtil#memAlloc(int)}, freed on close.
+     */
+    static AssetBuffer owned(@NotNull ByteBuffer buffer) {
+        return new AssetBuffer(buffer, true);
+    }
+
+    /**
+     * @param buffer a view of storage that outlives the asset buffer, left alone on close.
+     */
+    static AssetBuffer view(@NotNull ByteBuffer buffer) {
+        return new AssetBuffer(buffer, false);
+    }
+
+    /**
+     * @return the asset's bytes, from position {@code 0} to the limit.
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return {@code true} if the bytes weren't copied out of the provider's storage.
+     */
+    public boolean isView() {
+        return !owned;
+    }
+
+    @Override
+    public void close() {
+        if (owned) MemoryUtil.memFree(buffer);
+    }
+}
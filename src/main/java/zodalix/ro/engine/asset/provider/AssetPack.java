@@ -0,0 +1,146 @@
+package zodalix.ro.engine.asset.provider;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The asset pack format read by {@link PackAssetProvider}: every asset of an {@code assets} directory concatenated
+ * into one file, behind a sorted index.
+ * <p>
+ * Everything is little-endian:
+ * <pre>
+ * int    magic        "ROPK"
+ * int    version      {@link AssetPack#VERSION}
+ * int    entryCount
+ * entry  index[entryCount], sorted by key ({@link String#compareTo(String)})
+ *        ushort keyLength, byte[keyLength] key (UTF-8), long offset, long length
+ * byte   data[], each entry starting on a {@link AssetPack#ALIGNMENT} byte boundary
+ * </pre>
+ * An entry's key is the asset's {@link zodalix.ro.engine.utils.NamespacedKey} followed by its extension, such as
+ * {@code ro:textures/backgrounds/title.png}, which is the form {@link AssetPack#keyOf(String)} turns provider paths into.
+ */
+public final class AssetPack {
+    static final int MAGIC = 'R' | 'O' << 8 | 'P' << 16 | 'K' << 24;
+    static final int VERSION = 1;
+    static final int ALIGNMENT = 16;
+
+    private static final String ASSETS_ROOT = "/assets/";
+
+    private AssetPack() {}
+
+    /**
+     * Turns a provider path ({@code /assets/<namespace>/<path>}) into the key it is stored under.
+     *
+     * @return the key, or {@code null} if the path doesn't point into the assets root.
+     */
+    @Nullable
+    static String keyOf(@NotNull String path) {
+        if (!path.startsWith(ASSETS_ROOT)) return null;
+
+        int namespaceEnd = path.indexOf('/', ASSETS_ROOT.length());
+        if (namespaceEnd == -1) return null;
+
+        return path.substring(ASSETS_ROOT.length(), namespaceEnd) + ':' + path.substring(namespaceEnd + 1);
+    }
+
+    /**
+     * The reverse of {@link AssetPack#keyOf(String)}.
+     */
+    @NotNull
+    static String pathOf(@NotNull String key) {
+        int separator = key.indexOf(':');
+        return ASSETS_ROOT + key.substring(0, separator) + '/' + key.substring(separator + 1);
+    }
+
+    /**
+     * Packs every file below an {@code assets} directory, whose subdirectories are namespaces.
+     *
+     * @param assetsDirectory the directory to pack, such as {@code src/main/resources/assets}
+     * @param output          the pack to write, replaced if it exists.
+     * @return how many assets were packed.
+     */
+    public static int write(@NotNull Path assetsDirectory, @NotNull Path output) throws IOException {
+        record Entry(String key, byte[] keyBytes, Path file, long length) {}
+
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(assetsDirectory)) {
+            for (var file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                var relative = assetsDirectory.relativize(file);
+                if (relative.getNameCount() < 2) continue; // Files directly in the root have no namespace.
+
+                var path = relative.subpath(1, relative.getNameCount()).toString().replace('\\', '/');
+                var key = relative.getName(0) + ":" + path;
+
+                var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                if (keyBytes.length > 0xFFFF) throw new IllegalStateException("Asset key is too long: " + key);
+
+                entries.add(new Entry(key, keyBytes, file, Files.size(file)));
+            }
+        }
+
+        entries.sort(Comparator.comparing(Entry::key));
+
+        long indexSize = 12;
+        for (var entry : entries) indexSize += 2 + entry.keyBytes().length + 16;
+
+        var index = ByteBuffer.allocate(Math.toIntExact(indexSize)).order(ByteOrder.LITTLE_ENDIAN);
+        index.putInt(MAGIC).putInt(VERSION).putInt(entries.size());
+
+        long offset = align(indexSize);
+        for (var entry : entries) {
+            index.putShort((short) entry.keyBytes().length).put(entry.keyBytes())
+                    .putLong(offset).putLong(entry.length());
+            offset = align(offset + entry.length());
+        }
+
+        try (var channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(index.flip());
+
+            long position = align(indexSize);
+            for (var entry : entries) {
+                try (var source = FileChannel.open(entry.file(), StandardOpenOption.READ)) {
+                    long transferred = 0;
+                    while (transferred < entry.length())
+                        transferred += source.transferTo(transferred, entry.length() - transferred, channel.position(position + transferred));
+                }
+
+                position = align(position + entry.length());
+            }
+
+            // Pad the last entry, so the file is as long as the index says.
+            if (channel.size() < position) channel.write(ByteBuffer.allocate(Math.toIntExact(position - channel.size())), channel.size());
+        }
+
+        return entries.size();
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Usage: {@code AssetPack <assets directory> <output pack>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPack <assets directory> <output pack>");
+            System.exit(1);
+        }
+
+        var count = write(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Packed " + count + " assets into " + args[1]);
+    }
+}
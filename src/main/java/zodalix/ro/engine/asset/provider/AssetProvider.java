@@ -1,14 +1,59 @@
 package zodalix.ro.engine.asset.provider;
 
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.Collection;
 
 public sealed interface AssetProvider permits
         ClassResourceAssetProvider,
-        DirectoryAssetProvider
+        DirectoryAssetProvider,
+        PackAssetProvider,
+        LayeredAssetProvider
 {
 
 
     IllegalStateException RESOURCE_NOT_FOUND = new IllegalStateException("Couldn't find resource.");
 
     InputStream provide(String path);
+
+    /**
+     * Provides an asset as a direct buffer, for assets that are handed to native code whole (images, fonts...)
+     * <p>
+     * By default the stream from {@link AssetProvider#provide(String)} is read straight into native memory, a single
+     * copy. Providers with random access to their storage return a view of it instead.
+     *
+     * @return the asset's bytes, or {@code null} if it doesn't exist. The buffer must be closed once done.
+     */
+    @Nullable
+    default AssetBuffer provideBuffer(String path) throws IOException {
+        var resource = this.provide(path);
+        if (resource == null) return null;
+
+        var buffer = MemoryUtil.memAlloc(Math.max(resource.available(), 8 * 1024));
+        try (resource; var channel = Channels.newChannel(resource)) {
+            while (channel.read(buffer) != -1)
+                if (!buffer.hasRemaining()) buffer = MemoryUtil.memRealloc(buffer, buffer.capacity() * 2);
+        } catch (IOException | RuntimeException e) {
+            MemoryUtil.memFree(buffer);
+            throw e;
+        }
+
+        return AssetBuffer.owned(buffer.flip());
+    }
+
+    /**
+     * Lists every asset this provider holds, so a {@link LayeredAssetProvider} can tell where an asset lives without
+     * probing for it.
+     *
+     * @return the path of every asset ({@code /assets/<namespace>/...}), or {@code null} if the provider can't
+     * enumerate its assets.
+     */
+    @Nullable
+    default Collection<String> list() throws IOException {
+        return null;
+    }
 }
@@ -2,22 +2,78 @@ package zodalix.ro.engine.asset.provider;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import zodalix.ro.engine.asset.AssetManager;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 
 public non-sealed class ClassResourceAssetProvider implements AssetProvider {
-    private final AssetManager assetManager;
+    private final Class<?> anchor;
 
-    public ClassResourceAssetProvider(@NotNull AssetManager assetManager) {
-        this.assetManager = assetManager;
+    /**
+     * @param anchor the class whose loader the assets are read from.
+     */
+    public ClassResourceAssetProvider(@NotNull Class<?> anchor) {
+        this.anchor = anchor;
     }
 
     @Override
     @Nullable
     public InputStream provide(@NotNull String path) {
         Objects.requireNonNull(path, "path cannot be null.");
-        return assetManager.getClass().getResourceAsStream(path);
+        return anchor.getResourceAsStream(path);
+    }
+
+    /**
+     * Lists the {@code assets} directory of every classpath root, whether it is a directory or a jar.
+     *
+     * @return {@code null} if a root is neither, its assets can then only be found by probing.
+     */
+    @Override
+    @Nullable
+    public Collection<String> list() throws IOException {
+        var paths = new LinkedHashSet<String>();
+
+        var roots = anchor.getClassLoader().getResources("assets");
+        while (roots.hasMoreElements()) {
+            var root = roots.nextElement();
+
+            switch (root.getProtocol()) {
+                case "file" -> {
+                    try {
+                        paths.addAll(DirectoryAssetProvider.listDirectory(Path.of(root.toURI())));
+                    } catch (URISyntaxException e) {
+                        throw new IOException("Malformed classpath root " + root, e);
+                    }
+                }
+                case "jar" -> {
+                    var connection = (JarURLConnection) root.openConnection();
+                    connection.setUseCaches(false); // The class loader shares cached jars, closing ours mustn't close its.
+
+                    try (var jar = connection.getJarFile()) {
+                        var entries = jar.entries();
+                        while (entries.hasMoreElements()) {
+                            var entry = entries.nextElement();
+                            if (!entry.isDirectory() && entry.getName().startsWith("assets/")) paths.add("/" + entry.getName());
+                        }
+                    }
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        return paths;
+    }
+
+    @Override
+    public String toString() {
+        return "classpath";
     }
 }
@@ -5,17 +5,70 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
+/**
+ * Provides assets from a directory on disk laid out like the classpath, {@code <root>/assets/<namespace>/...}.
+ * Useful for resource packs and to override assets while developing, without rebuilding.
+ */
 public non-sealed class DirectoryAssetProvider implements AssetProvider {
+    private final Path root;
+
+    /**
+     * @param root the directory holding the {@code assets} directory.
+     */
+    public DirectoryAssetProvider(@NotNull Path root) {
+        this.root = Objects.requireNonNull(root, "root cannot be null.");
+    }
+
     @Override
     @Nullable
     public InputStream provide(@NotNull String path) {
         Objects.requireNonNull(path, "path cannot be null.");
-        try { return new FileInputStream(path); }
+        try { return new FileInputStream(this.resolve(path).toFile()); }
         catch (FileNotFoundException _) {
-            return FileInputStream.nullInputStream();
+            return null;
+        }
+    }
+
+    private Path resolve(String path) {
+        return root.resolve(path.startsWith("/") ? path.substring(1) : path);
+    }
+
+    @Override
+    @NotNull
+    public Collection<String> list() throws IOException {
+        return listDirectory(root.resolve("assets"));
+    }
+
+    /**
+     * @param assetsDirectory a directory whose subdirectories are namespaces.
+     * @return the provider path of every file below it, nothing if it doesn't exist.
+     */
+    static List<String> listDirectory(Path assetsDirectory) throws IOException {
+        var paths = new ArrayList<String>();
+        if (!Files.isDirectory(assetsDirectory)) return paths;
+
+        try (Stream<Path> files = Files.walk(assetsDirectory)) {
+            for (var file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                var relative = assetsDirectory.relativize(file).toString().replace('\\', '/');
+                paths.add("/assets/" + relative);
+            }
         }
+
+        return paths;
+    }
+
+    @Override
+    public String toString() {
+        return "directory " + root;
     }
 }
@@ -0,0 +1,187 @@
+package zodalix.ro.engine.asset.provider;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stacks providers on top of each other, an asset comes from the topmost layer that has it: dev overrides and
+ * resource packs above mods, above the game's own assets.
+ * <p>
+ * When the stack is built, every layer that can {@linkplain AssetProvider#list() list} its assets is indexed, so
+ * each path is resolved to its winning layer once and for all and a path no layer has is known to be missing without
+ * touching the disk. Layers that can't be listed are probed the first time a path is requested, the outcome
+ * (including a miss) is then cached as well. Either way an asset's storage is only ever opened to read it.
+ * <p>
+ * The index is built once, files added to a directory layer afterward aren't seen until the next launch.
+ */
+public non-sealed class LayeredAssetProvider implements AssetProvider, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(LayeredAssetProvider.class);
+
+    private final List<AssetProvider> layers;
+    private final List<AssetProvider> unindexedLayers;
+
+    // The winning layer of every indexed path.
+    private final Map<String, Resolution> index;
+
+    // Paths resolved by probing, including the ones no layer has.
+    private final Map<String, Resolution> probed;
+
+    /**
+     * @param layer the layer providing a path, or {@code null} if none does.
+     */
+    private record Resolution(@Nullable AssetProvider layer) {}
+
+    private static final Resolution NOT_FOUND = new Resolution(null);
+
+    /**
+     * @param layers the providers, topmost first.
+     */
+    public LayeredAssetProvider(@NotNull List<? extends AssetProvider> layers) {
+        if (layers.isEmpty()) throw new IllegalArgumentException("At least one layer is needed.");
+
+        this.layers = List.copyOf(layers);
+        this.unindexedLayers = new ArrayList<>();
+        this.index = new HashMap<>();
+        this.probed = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        for (final var layer : this.layers) {
+            Collection<String> paths;
+            try {
+                paths = layer.list();
+            } catch (IOException e) {
+                logger.warn("Couldn't list the assets of {}, they will be looked up one by one.", layer, e);
+                paths = null;
+            }
+
+            if (paths == null) {
+                unindexedLayers.add(layer);
+                continue;
+            }
+
+            var resolution = new Resolution(layer);
+            for (final var path : paths) index.putIfAbsent(path, resolution);
+        }
+
+        logger.debug("Indexed {} assets from {} layers in {}ms, {} could only be probed",
+                index.size(), this.layers.size(), (System.nanoTime() - start) / 1_000_000, unindexedLayers.size());
+    }
+
+    @Override
+    @Nullable
+    public InputStream provide(@NotNull String path) {
+        Objects.requireNonNull(path, "path cannot be null.");
+
+        var resolution = this.resolved(path);
+        if (resolution != null) return resolution.layer() == null ? null : resolution.layer().provide(path);
+
+        for (final var candidate : this.unindexedLayers(path)) {
+            var resource = candidate.provide(path);
+            if (resource != null) {
+                probed.put(path, new Resolution(candidate));
+                return resource;
+            }
+        }
+
+        probed.put(path, NOT_FOUND);
+        return null;
+    }
+
+    @Override
+    @Nullable
+    public AssetBuffer provideBuffer(@NotNull String path) throws IOException {
+        Objects.requireNonNull(path, "path cannot be null.");
+
+        var resolution = this.resolved(path);
+        if (resolution != null) return resolution.layer() == null ? null : resolution.layer().provideBuffer(path);
+
+        for (final var candidate : this.unindexedLayers(path)) {
+            var buffer = candidate.provideBuffer(path);
+            if (buffer != null) {
+                probed.put(path, new Resolution(candidate));
+                return buffer;
+            }
+        }
+
+        probed.put(path, NOT_FOUND);
+        return null;
+    }
+
+    /**
+     * @return how the path was resolved before, or {@code null} if it still has to be probed.
+     */
+    @Nullable
+    private Resolution resolved(String path) {
+        if (unindexedLayers.isEmpty()) return index.getOrDefault(path, NOT_FOUND);
+
+        return probed.get(path);
+    }
+
+    /**
+     * @return the unindexed layers to probe for the path, those above its indexed layer if it has one.
+     */
+    private List<AssetProvider> unindexedLayers(String path) {
+        var resolution = index.get(path);
+        if (resolution == null) return unindexedLayers;
+
+        var indexed = resolution.layer();
+        var candidates = new ArrayList<AssetProvider>();
+        for (final var layer : layers) {
+            if (layer == indexed) {
+                candidates.add(layer); // Known to have it, probing ends here.
+                break;
+            }
+            if (unindexedLayers.contains(layer)) candidates.add(layer);
+        }
+
+        return candidates;
+    }
+
+    @Override
+    @Nullable
+    public Collection<String> list() {
+        if (!unindexedLayers.isEmpty()) return null;
+        return new LinkedHashSet<>(index.keySet());
+    }
+
+    /**
+     * Closes every layer that holds resources, such as mapped packs, even if closing one of them fails.
+     *
+     * @throws IOException the first layer's failure, the later ones added as suppressed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (final var layer : layers) {
+            if (!(layer instanceof AutoCloseable closeable)) continue;
+
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                var exception = e instanceof IOException ioException ? ioException : new IOException("Couldn't close " + layer, e);
+                if (failure == null) failure = exception;
+                else failure.addSuppressed(exception);
+            }
+        }
+
+        if (failure != null) throw failure;
+    }
+
+    @Override
+    public String toString() {
+        return "layers " + layers;
+    }
+}
@@ -0,0 +1,180 @@
+package zodalix.ro.engine.asset.provider;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Provides assets from an {@link AssetPack} mapped into memory.
+ * <p>
+ * The whole pack is mapped once, looking an asset up is a binary search over the index and
+ * {@link PackAssetProvider#provideBuffer(String)} returns a slice of the mapping: nothing is read or copied until
+ * the bytes are actually touched, by stb for instance, and then straight from the page cache.
+ * <p>
+ * The mapping lives until the provider is closed, buffers it provided must not be used afterward.
+ */
+public non-sealed class PackAssetProvider implements AssetProvider, AutoCloseable {
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Path packFile;
+    private final Arena arena;
+    private final MemorySegment pack;
+
+    private final String[] keys;
+    private final long[] offsets, lengths;
+
+    /**
+     * @param packFile the pack to map.
+     * @throws IOException           if the pack can't be mapped.
+     * @throws IllegalStateException if the file isn't a pack of a supported version.
+     */
+    public PackAssetProvider(@NotNull Path packFile) throws IOException {
+        this.packFile = packFile;
+        this.arena = Arena.ofShared(); // Slices are read by the asset loader threads too.
+
+        try (var channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+            this.pack = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+
+        try {
+            if (pack.byteSize() < 12 || pack.get(INT, 0) != AssetPack.MAGIC) throw new IllegalStateException(packFile + " is not an asset pack.");
+            if (pack.get(INT, 4) != AssetPack.VERSION) throw new IllegalStateException(packFile + " has unsupported version " + pack.get(INT, 4));
+
+            int count = pack.get(INT, 8);
+            this.keys = new String[count];
+            this.offsets = new long[count];
+            this.lengths = new long[count];
+
+            long position = 12;
+            for (int i = 0; i < count; i++) {
+                int keyLength = Short.toUnsignedInt(pack.get(SHORT, position));
+                position += 2;
+
+                keys[i] = new String(pack.asSlice(position, keyLength).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+                position += keyLength;
+
+                offsets[i] = pack.get(LONG, position);
+                lengths[i] = pack.get(LONG, position + 8);
+                position += 16;
+
+                if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > pack.byteSize())
+                    throw new IllegalStateException("Entry " + keys[i] + " of " + packFile + " lies outside of the pack.");
+                if (i > 0 && keys[i - 1].compareTo(keys[i]) >= 0)
+                    throw new IllegalStateException("The index of " + packFile + " isn't sorted at " + keys[i]);
+            }
+        } catch (RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    private int indexOf(String path) {
+        var key = AssetPack.keyOf(path);
+        return key == null ? -1 : Arrays.binarySearch(keys, key);
+    }
+
+    @Nullable
+    private ByteBuffer slice(@NotNull String path) {
+        Objects.requireNonNull(path, "path cannot be null.");
+
+        int index = this.indexOf(path);
+        if (index < 0) return null;
+
+        return pack.asSlice(offsets[index], lengths[index]).asByteBuffer();
+    }
+
+    @Override
+    @Nullable
+    public InputStream provide(@NotNull String path) {
+        var slice = this.slice(path);
+        return slice == null ? null : new SliceInputStream(slice);
+    }
+
+    @Override
+    @Nullable
+    public AssetBuffer provideBuffer(@NotNull String path) {
+        var slice = this.slice(path);
+        return slice == null ? null : AssetBuffer.view(slice);
+    }
+
+    @Override
+    @NotNull
+    public Collection<String> list() {
+        var paths = new ArrayList<String>(keys.length);
+        for (final var key : keys) paths.add(AssetPack.pathOf(key));
+        return paths;
+    }
+
+    /**
+     * @return how many assets the pack holds.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    @Override
+    public String toString() {
+        return "pack " + packFile;
+    }
+
+    private static final class SliceInputStream extends InputStream {
+        private final ByteBuffer slice;
+
+        private SliceInputStream(ByteBuffer slice) {
+            this.slice = slice;
+        }
+
+        @Override
+        public int read() {
+            return slice.hasRemaining() ? slice.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte @NotNull [] bytes, int offset, int length) {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (length == 0) return 0;
+            if (!slice.hasRemaining()) return -1;
+
+            length = Math.min(length, slice.remaining());
+            slice.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = Math.clamp(n, 0, slice.remaining());
+            slice.position(slice.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return slice.remaining();
+        }
+    }
+}
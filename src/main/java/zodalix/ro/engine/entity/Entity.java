@@ -1,30 +1,30 @@
 package zodalix.ro.engine.entity;
 
-import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import zodalix.ro.engine.Tickable;
 import zodalix.ro.engine.utils.BoundingBox;
-import zodalix.ro.engine.utils.Subscription;
 import zodalix.ro.engine.utils.position.Position;
 
 
-import java.util.List;
 import java.util.UUID;
-import java.util.function.Consumer;
 
+/**
+ * Entities that move post an {@link EntityMovedEvent}, listeners hear about it once per tick.
+ */
 public interface Entity extends Tickable {
 
-    interface MovementSubscribable {
-        @NotNull List<Subscription<Position>> movementSubscribers();
-        @Nullable Subscription<Position> movementSubscribe(Consumer<Position> updateFunction, Runnable cancelledCallback);
-
-        void cancelMovementSubscription(Subscription<Position> tSubscription, boolean callback);
-    }
-
     UUID uuid();
 
     BoundingBox boundingBox();
 
     Position position();
 
+    /**
+     * @param alpha how far the simulation is between the previous tick and the next one, in {@code [0, 1)}
+     * @return where the entity should be drawn, entities that don't keep their previous tick's position are drawn where they are.
+     * @see zodalix.ro.engine.SimulationClock#alpha()
+     */
+    default Position renderPosition(float alpha) {
+        return position();
+    }
+
 }
@@ -11,6 +11,9 @@ public class EntityController {
         return this.entity;
     }
 
-    public void checkInput(int releasedKey, float deltaTime) {
+    /**
+     * Called every tick, the tick's input is in {@link zodalix.ro.engine.input.GameInputHandler#snapshot()}.
+     */
+    public void checkInput(float deltaTime) {
     }
 }
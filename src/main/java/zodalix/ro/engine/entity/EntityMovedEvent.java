@@ -0,0 +1,62 @@
+package zodalix.ro.engine.entity;
+
+import org.jetbrains.annotations.NotNull;
+import zodalix.ro.engine.event.EventBus;
+import zodalix.ro.engine.event.EventChannel;
+import zodalix.ro.engine.event.GameEvent;
+import zodalix.ro.engine.utils.position.MutablePosition;
+import zodalix.ro.engine.utils.position.Position;
+
+/**
+ * An entity moved during the tick, once however many times it moved.
+ * <p>
+ * An entity posts it before each move with {@link EntityMovedEvent#departFrom(Position)}, only the first call of a
+ * tick is kept, so listeners get where the entity was before the tick's first move and where it ended up.
+ */
+public final class EntityMovedEvent extends GameEvent {
+    private final MutablePosition from = new MutablePosition(0, 0);
+    private boolean departed;
+
+    /**
+     * @return the bus's channel of movement events.
+     */
+    public static EventChannel<EntityMovedEvent> channel(@NotNull EventBus bus) {
+        return bus.channel(EntityMovedEvent.class, EntityMovedEvent::new);
+    }
+
+    /**
+     * Records where the entity was before moving, if it didn't move yet this tick.
+     */
+    public void departFrom(@NotNull Position position) {
+        if (departed) return;
+
+        this.from.setTo(position);
+        this.departed = true;
+    }
+
+    @NotNull
+    public Entity entity() {
+        return (Entity) this.source();
+    }
+
+    /**
+     * @return where the entity was before it first moved this tick.
+     */
+    @NotNull
+    public Position from() {
+        return from;
+    }
+
+    /**
+     * @return where the entity is now.
+     */
+    @NotNull
+    public Position to() {
+        return this.entity().position();
+    }
+
+    @Override
+    protected void reset() {
+        this.departed = false;
+    }
+}
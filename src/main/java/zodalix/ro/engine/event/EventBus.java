@@ -0,0 +1,59 @@
+package zodalix.ro.engine.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Delivers the {@link GameEvent}s posted during a tick once the tick is over, at most one per source and type.
+ * <p>
+ * Changes that used to notify their listeners on the spot (an entity moving on one axis, then on the other) are now
+ * coalesced into a single event, listeners pay for their work once per tick however often the state changed. The game
+ * loop calls {@link EventBus#dispatch()} after every tick, so listeners see the tick's final state, before the frame
+ * is drawn.
+ * <pre>
+ * var moved = eventBus.channel(EntityMovedEvent.class, EntityMovedEvent::new);
+ * moved.subscribe(player, event -&gt; ...);
+ * </pre>
+ *
+ * @see EventChannel
+ */
+public final class EventBus {
+    private final Map<Class<?>, EventChannel<?>> channels;
+    private final List<EventChannel<?>> order; // Channels dispatch in the order they were created.
+
+    public EventBus() {
+        this.channels = new HashMap<>();
+        this.order = new ArrayList<>();
+    }
+
+    /**
+     * @param type    the events' class.
+     * @param factory creates the pooled events, only called when the pool is empty.
+     * @return the channel of the events, created on first use. Posting callers should keep it rather than look it up each time.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <E extends GameEvent> EventChannel<E> channel(@NotNull Class<E> type, @NotNull Supplier<E> factory) {
+        var channel = channels.get(type);
+        if (channel == null) {
+            channel = new EventChannel<>(type, factory);
+            channels.put(type, channel);
+            order.add(channel);
+        }
+
+        return (EventChannel<E>) channel;
+    }
+
+    /**
+     * Dispatches every channel's pending events. Must be called on the render thread, between ticks.
+     */
+    public void dispatch() {
+        //noinspection ForLoopReplaceableByForEach (Listeners may create channels, which would break an iterator.)
+        for (int i = 0; i < order.size(); i++) order.get(i).dispatch();
+    }
+}
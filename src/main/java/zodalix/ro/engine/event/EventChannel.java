@@ -0,0 +1,158 @@
+package zodalix.ro.engine.event;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The events of one type and their listeners, see {@link EventBus#channel(Class, Supplier)}.
+ * <p>
+ * Posting an event for a source that already has one pending returns the pending event instead of a new one, so
+ * however many times a source changes during a tick, its listeners hear about it once. Events come from a pool and go
+ * back to it after dispatch, nothing is allocated once the pool covers a tick's sources.
+ * <p>
+ * Listeners are kept in a copy-on-write array: a dispatch walks the array it started with, so subscribing or
+ * cancelling from a listener is safe and takes effect from the next event on. Events posted from a listener are
+ * dispatched in the next pass.
+ * <p>
+ * Render thread only, like the tick.
+ *
+ * @param <E> the events.
+ */
+public final class EventChannel<E extends GameEvent> {
+    private final Class<E> type;
+    private final Supplier<E> factory;
+
+    private volatile Listener<E>[] listeners;
+
+    private GameEvent[] pending, dispatching;
+    private int pendingCount;
+    private final Map<Object, E> pendingBySource; // Open addressing, clearing and reusing it allocates nothing.
+    private final ArrayDeque<E> pool;
+
+    @SuppressWarnings("unchecked")
+    EventChannel(Class<E> type, Supplier<E> factory) {
+        this.type = type;
+        this.factory = factory;
+
+        this.listeners = (Listener<E>[]) new Listener<?>[0];
+        this.pending = new GameEvent[16];
+        this.dispatching = new GameEvent[16];
+        this.pendingBySource = new IdentityHashMap<>();
+        this.pool = new ArrayDeque<>();
+    }
+
+    /**
+     * @return the event pending for the source this tick, fresh from the pool if it has none yet. The caller fills it in.
+     */
+    @NotNull
+    public E post(@NotNull Object source) {
+        var event = pendingBySource.get(source);
+        if (event != null) return event;
+
+        event = pool.poll();
+        if (event == null) event = factory.get();
+
+        event.source = Objects.requireNonNull(source, "source cannot be null.");
+        event.reset();
+
+        if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pendingCount * 2);
+        pending[pendingCount++] = event;
+        pendingBySource.put(source, event);
+
+        return event;
+    }
+
+    /**
+     * Listens to the events of every source.
+     */
+    public Listener<E> subscribe(@NotNull Consumer<? super E> listener) {
+        return this.subscribe(null, listener);
+    }
+
+    /**
+     * @param source the only source to listen to, or {@code null} for every source.
+     */
+    public synchronized Listener<E> subscribe(@Nullable Object source, @NotNull Consumer<? super E> listener) {
+        var subscription = new Listener<>(this, source, Objects.requireNonNull(listener, "listener cannot be null."));
+
+        var listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        listeners[listeners.length - 1] = subscription;
+        this.listeners = listeners;
+
+        return subscription;
+    }
+
+    private synchronized void unsubscribe(Listener<E> subscription) {
+        var listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] != subscription) continue;
+
+            var remaining = Arrays.copyOf(listeners, listeners.length - 1);
+            System.arraycopy(listeners, i + 1, remaining, i, listeners.length - i - 1);
+            this.listeners = remaining;
+            return;
+        }
+    }
+
+    /**
+     * Hands the events posted since the last dispatch to the listeners, then returns them to the pool.
+     */
+    @SuppressWarnings("unchecked")
+    void dispatch() {
+        if (pendingCount == 0) return;
+
+        var batch = this.pending;
+        int count = this.pendingCount;
+
+        // Whatever listeners post from here on goes to the next dispatch.
+        this.pending = dispatching;
+        this.dispatching = batch;
+        this.pendingCount = 0;
+        this.pendingBySource.clear();
+
+        for (int i = 0; i < count; i++) {
+            var event = (E) batch[i];
+
+            for (final var listener : this.listeners)
+                if (listener.source == null || listener.source == event.source) listener.consumer.accept(event);
+        }
+
+        for (int i = 0; i < count; i++) {
+            var event = (E) batch[i];
+            event.source = null;
+            pool.push(event);
+            batch[i] = null;
+        }
+    }
+
+    public Class<E> type() {
+        return type;
+    }
+
+    /**
+     * A listener registered on a channel, cancel it to stop listening.
+     */
+    public static final class Listener<E extends GameEvent> {
+        private final EventChannel<E> channel;
+        private final @Nullable Object source;
+        private final Consumer<? super E> consumer;
+
+        private Listener(EventChannel<E> channel, @Nullable Object source, Consumer<? super E> consumer) {
+            this.channel = channel;
+            this.source = source;
+            this.consumer = consumer;
+        }
+
+        public void cancel() {
+            channel.unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package zodalix.ro.engine.event;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Something that happened to a source (usually an entity) during a tick, dispatched by the {@link EventBus}.
+ * <p>
+ * Events are pooled by their {@link EventChannel} and reused once dispatched, listeners must copy what they need
+ * rather than keep the event.
+ */
+public abstract class GameEvent {
+    Object source;
+
+    /**
+     * @return what the event happened to, events are coalesced per source.
+     */
+    @NotNull
+    public Object source() {
+        return source;
+    }
+
+    /**
+     * Called when the event is taken from the pool for a new source, subclasses clear their state here.
+     */
+    protected void reset() {}
+}
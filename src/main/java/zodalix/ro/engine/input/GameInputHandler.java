@@ -4,16 +4,29 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import zodalix.ro.engine.asset.bake.BakedTable;
 import zodalix.ro.engine.utils.NamespacedKey;
 import zodalix.ro.game.RoguesOdyssey;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 import static org.lwjgl.glfw.GLFW.*;
 
+/**
+ * Collects the keyboard and mouse input GLFW reports and hands it to the game.
+ * <p>
+ * GLFW callbacks only queue events in an {@link InputEventQueue}. Once per frame {@link GameInputHandler#pollEvents()}
+ * drains it, updating the key state and passing the events on to the current screen; at the start of each tick
+ * {@link GameInputHandler#beginTick()} then freezes that state in an {@link InputSnapshot} for gameplay code to read.
+ * <p>
+ * The drained events can be {@linkplain GameInputHandler#startRecording(InputRecorder) recorded}, and a recording
+ * {@linkplain GameInputHandler#replay(InputReplay) replayed} in place of the window's input.
+ */
 public class GameInputHandler {
     public static final Keybinding MOVE_RIGHT = new Keybinding(NamespacedKey.getDefault("key/move_right"));
     public static final Keybinding MOVE_LEFT = new Keybinding(NamespacedKey.getDefault("key/move_left"));
@@ -21,49 +34,251 @@ public class GameInputHandler {
 
     public static final Keybinding ESCAPE = new Keybinding(NamespacedKey.getDefault("key/escape"));
 
-    private int lastKnownMouseMods = 0;
-    private final Set<Integer> mouseButtonsHeld = new HashSet<>();
-    private final Map<Keybinding, Integer> keybindings;
+    private final InputEventQueue events;
+    private final InputEventQueue.Sink dispatcher;
+
+    // The live state, updated as events are drained. Edges accumulate until the next tick takes them.
+    private final long[] keysDown, keysPressed, keysReleased;
+    private int buttonsDown, buttonsPressed, buttonsReleased;
+    private int lastKnownMods = 0, lastKnownMouseMods = 0;
+    private float cursorX, cursorY;
+
+    private InputSnapshot snapshot = InputSnapshot.EMPTY;
+    private long tick;
+
+    private @Nullable InputRecorder recorder;
+    private @Nullable InputReplay replay;
+
+    private int[] keybindings; // GLFW key codes indexed by the keybinding's id, -1 when unbound.
+    private final Set<Keybinding> registeredKeybindings;
 
     private static final Logger log = LogManager.getLogger(GameInputHandler.class);
     private static final Gson gson = new Gson();
 
     public GameInputHandler(RoguesOdyssey instance) {
-        this.keybindings = new HashMap<>();
+        this.keybindings = new int[0];
+        this.registeredKeybindings = new HashSet<>();
+
+        this.events = new InputEventQueue();
+        this.dispatcher = this::dispatch;
+
+        this.keysDown = new long[InputSnapshot.KEY_WORDS];
+        this.keysPressed = new long[InputSnapshot.KEY_WORDS];
+        this.keysReleased = new long[InputSnapshot.KEY_WORDS];
     }
 
     /**
-     * Do NOT use this method for player input or anything that requires multiple keys.
+     * Queues a key event, called by GLFW.
      *
      * @param keycode the keycode received
      * @param modifiers any modifiers that were also pressed like CTRL or SHIFT
-     * @param action GLFW_RELEASE or GLFW_PRESS
+     * @param action GLFW_RELEASE, GLFW_PRESS or GLFW_REPEAT
      */
     public void keyboardInputReceived(int keycode, int modifiers, int action) {
-        if (RoguesOdyssey.instance().renderer.handleKeyboardInput(keycode, modifiers, action)) return;
+        this.queue(InputEventQueue.KEY, InputEventQueue.key(keycode, modifiers, action));
+    }
+
+    /**
+     * Queues a mouse button event, called by GLFW.
+     */
+    public void mouseInputReceived(int mouseButton, int modifiers, int action) {
+        this.queue(InputEventQueue.MOUSE_BUTTON, InputEventQueue.key(mouseButton, modifiers, action));
+    }
 
-        if (keycode == GLFW_KEY_TAB && action == GLFW_PRESS)
-            RoguesOdyssey.instance().renderer.tabulateRequest(modifiers);
+    /**
+     * Queues a cursor movement, called by GLFW.
+     */
+    public void cursorMoved(double x, double y) {
+        this.queue(InputEventQueue.CURSOR, InputEventQueue.cursor((float) x, (float) y));
+    }
 
+    /**
+     * Queues a window resize, called by GLFW. Resizes go through the queue so recordings replay them too.
+     */
+    public void windowResized(int width, int height) {
+        this.queue(InputEventQueue.RESIZE, InputEventQueue.size(width, height));
     }
 
-    public void mouseInputReceived(int mouseButton, int modifiers, int action) {
-        this.lastKnownMouseMods = modifiers;
-        try {
-            if (action == GLFW_RELEASE) mouseButtonsHeld.remove(mouseButton);
-            else mouseButtonsHeld.add(mouseButton);
-        } catch (Throwable _) {}
+    private void queue(byte type, long payload) {
+        if (replay != null) return; // The window's input is ignored while a recording drives the game.
+        events.offer(type, payload);
+    }
+
+    /**
+     * Drains the events GLFW reported since the last call, updating the key state and passing them on to the
+     * renderer. Must be called once per frame, on the thread polling GLFW.
+     */
+    public void pollEvents() {
+        if (replay != null) replay.feed(events, tick);
+        events.drain(dispatcher);
+
+        int dropped = events.takeDropped();
+        if (dropped != 0) log.warn("Dropped {} input events, the event queue was full", dropped);
+    }
+
+    private void dispatch(byte type, long payload) {
+        if (recorder != null) {
+            try {
+                recorder.write(tick, type, payload);
+            } catch (UncheckedIOException e) {
+                log.error("Stopped recording input to {}", recorder.file(), e);
+                this.recorder = null;
+            }
+        }
+
+        int code = InputEventQueue.code(payload), modifiers = InputEventQueue.modifiers(payload), action = InputEventQueue.action(payload);
+
+        switch (type) {
+            case InputEventQueue.KEY -> {
+                this.lastKnownMods = modifiers;
+                if (code >= 0 && code <= GLFW_KEY_LAST) {
+                    int word = code >> 6;
+                    long bit = 1L << code;
+
+                    if (action == GLFW_RELEASE) {
+                        keysDown[word] &= ~bit;
+                        keysReleased[word] |= bit;
+                    } else if (action == GLFW_PRESS) {
+                        keysDown[word] |= bit;
+                        keysPressed[word] |= bit;
+                    }
+                }
+
+                // Do NOT use screen key events for player input or anything that requires multiple keys.
+                if (RoguesOdyssey.instance().renderer.handleKeyboardInput(code, modifiers, action)) return;
+
+                if (code == GLFW_KEY_TAB && action == GLFW_PRESS)
+                    RoguesOdyssey.instance().renderer.tabulateRequest(modifiers);
+            }
+            case InputEventQueue.MOUSE_BUTTON -> {
+                this.lastKnownMods = modifiers;
+                this.lastKnownMouseMods = modifiers;
+                if (code >= 0 && code <= GLFW_MOUSE_BUTTON_LAST) {
+                    if (action == GLFW_RELEASE) {
+                        buttonsDown &= ~(1 << code);
+                        buttonsReleased |= 1 << code;
+                    } else {
+                        buttonsDown |= 1 << code;
+                        buttonsPressed |= 1 << code;
+                    }
+                }
+
+                RoguesOdyssey.instance().renderer.handleMouseInput(code, modifiers, action);
+            }
+            case InputEventQueue.CURSOR -> {
+                this.cursorX = InputEventQueue.cursorX(payload);
+                this.cursorY = InputEventQueue.cursorY(payload);
+            }
+            case InputEventQueue.RESIZE -> {
+                int width = InputEventQueue.width(payload), height = InputEventQueue.height(payload);
 
-        RoguesOdyssey.instance().renderer.handleMouseInput(mouseButton, modifiers, action);
+                // A replay resizes the real window too, so it draws as many pixels as the recorded session did.
+                if (replay != null) glfwSetWindowSize(RoguesOdyssey.instance().windowHandle, width, height);
+                RoguesOdyssey.instance().renderer.windowResized(width, height);
+            }
+            default -> throw new IllegalStateException("Unknown input event type " + type);
+        }
     }
 
     public void checkForClickHold() {
-        mouseButtonsHeld.forEach(btn -> RoguesOdyssey.instance().renderer.handleMouseInput(btn, this.lastKnownMouseMods, GLFW_PRESS));
+        for (int buttons = buttonsDown; buttons != 0; buttons &= buttons - 1)
+            RoguesOdyssey.instance().renderer.handleMouseInput(Integer.numberOfTrailingZeros(buttons), this.lastKnownMouseMods, GLFW_PRESS);
+    }
+
+    /**
+     * Freezes the input drained so far into the snapshot the coming tick reads, and starts collecting the next
+     * tick's presses and releases.
+     */
+    public InputSnapshot beginTick() {
+        this.snapshot = new InputSnapshot(tick++,
+                keysDown.clone(), keysPressed.clone(), keysReleased.clone(),
+                buttonsDown, buttonsPressed, buttonsReleased, lastKnownMods,
+                cursorX, cursorY);
+
+        Arrays.fill(keysPressed, 0);
+        Arrays.fill(keysReleased, 0);
+        this.buttonsPressed = 0;
+        this.buttonsReleased = 0;
+
+        return snapshot;
+    }
+
+    /**
+     * Records every event dispatched from now on, until {@link GameInputHandler#stopRecording()}.
+     */
+    public void startRecording(@NotNull InputRecorder recorder) {
+        if (this.replay != null) throw new IllegalStateException("Can't record while replaying.");
+        this.recorder = recorder;
+    }
+
+    /**
+     * Ends the recording, if one is running, and moves its file in place.
+     */
+    public void stopRecording() {
+        if (recorder == null) return;
+
+        try {
+            recorder.finish(tick);
+            log.info("Recorded {} input events over {} ticks to {}", recorder.eventCount(), tick, recorder.file());
+        } catch (IOException e) {
+            log.error("Couldn't finish the input recording {}", recorder.file(), e);
+        }
+
+        this.recorder = null;
+    }
+
+    /**
+     * Feeds the recording's events in place of the window's input, from the first tick on.
+     */
+    public void replay(@NotNull InputReplay replay) {
+        if (this.recorder != null) throw new IllegalStateException("Can't replay while recording.");
+        if (this.tick != 0) throw new IllegalStateException("A replay must start before the first tick.");
+        this.replay = replay;
+    }
+
+    /**
+     * @return whether a replay is running and every tick it recorded has begun.
+     */
+    public boolean isReplayFinished() {
+        return replay != null && replay.isFinished(tick);
+    }
+
+    /**
+     * @return how many ticks began so far.
+     */
+    public long tickCount() {
+        return tick;
+    }
+
+    /**
+     * @return the input of the current tick.
+     */
+    public InputSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the cursor's latest position in window coordinates, which screens read while events are dispatched.
+     */
+    public float cursorX() {
+        return cursorX;
+    }
+
+    public float cursorY() {
+        return cursorY;
     }
 
     public Optional<Integer> action(Keybinding keybinding) {
-        if (keybindings.getOrDefault(keybinding, -1) == -1) return Optional.empty();
-        return Optional.of(keybindings.get(keybinding));
+        int key = this.boundKey(keybinding);
+        return key == -1 ? Optional.empty() : Optional.of(key);
+    }
+
+    /**
+     * @return the GLFW key code the keybinding is bound to, or {@code -1} if it isn't bound.
+     */
+    public int boundKey(Keybinding keybinding) {
+        int id = keybinding.id();
+        return id < keybindings.length ? keybindings[id] : -1;
     }
 
     private String getKeyboardLayout() {
@@ -78,7 +293,8 @@ public class GameInputHandler {
         if(keybindings.length == 0) return;
 
         JsonObject keybindingsJson = null;
-        if (keymapPath != null) {
+        BakedTable bakedKeymap = keymapPath == null ? null : RoguesOdyssey.instance().assetManager.getBakedTable(keymapPath);
+        if (keymapPath != null && bakedKeymap == null) {
             try (var inputStream = RoguesOdyssey.instance().assetManager.getInputStream(keymapPath)) {
                 if (inputStream == null) throw new IllegalStateException(keymapPath + " keymap doesn't exist.");
 
@@ -94,13 +310,26 @@ public class GameInputHandler {
         }
 
         for (var keybinding : keybindings) {
-            if(this.keybindings.containsKey(keybinding)) continue;
+            if(!this.registeredKeybindings.add(keybinding)) continue;
 
             int defaultBinding = -1;
-            if(keybindingsJson != null  && keybindingsJson.has(keybinding.toString()))
+            if (bakedKeymap != null)
+                defaultBinding = (int) bakedKeymap.get(keybinding.toString(), -1);
+            else if(keybindingsJson != null  && keybindingsJson.has(keybinding.toString()))
                 defaultBinding = keybindingsJson.get(keybinding.toString()).getAsInt();
 
-            this.keybindings.put(keybinding, defaultBinding);
+            this.bind(keybinding, defaultBinding);
         }
     }
+
+    private void bind(Keybinding keybinding, int key) {
+        int id = keybinding.id();
+        if (id >= keybindings.length) {
+            int oldLength = keybindings.length;
+            this.keybindings = Arrays.copyOf(keybindings, Math.max(id + 1, NamespacedKey.count()));
+            Arrays.fill(keybindings, oldLength, keybindings.length, -1);
+        }
+
+        keybindings[id] = key;
+    }
 }
@@ -0,0 +1,136 @@
+package zodalix.ro.engine.input;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed-size ring of raw input events, written by the GLFW callbacks and drained once per frame by the
+ * {@link GameInputHandler}.
+ * <p>
+ * There is a single producer (GLFW calls back on the thread polling events) and a single consumer, so the ring needs
+ * no lock: the producer fills a slot and then publishes it by moving the tail, the consumer reads up to the tail and
+ * then frees the slots by moving the head. Nothing is allocated once the ring exists.
+ * <p>
+ * A full ring drops new events rather than blocking GLFW, which only happens if the queue isn't drained for
+ * {@link InputEventQueue#CAPACITY} events.
+ */
+final class InputEventQueue {
+    static final int CAPACITY = 1024; // A power of two, indices wrap with a mask.
+    private static final int MASK = CAPACITY - 1;
+
+    static final byte KEY = 0, MOUSE_BUTTON = 1, CURSOR = 2, RESIZE = 3;
+
+    private static final VarHandle HEAD, TAIL;
+
+    static {
+        try {
+            var lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(InputEventQueue.class, "head", long.class);
+            TAIL = lookup.findVarHandle(InputEventQueue.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final byte[] types = new byte[CAPACITY];
+    private final long[] payloads = new long[CAPACITY];
+
+    @SuppressWarnings("unused") private long head; // Next slot to read, only moved by the consumer.
+    @SuppressWarnings("unused") private long tail; // Next slot to write, only moved by the producer.
+
+    private volatile int dropped;
+
+    /**
+     * Receives the drained events, see {@link InputEventQueue#key(int, int, int)} and the like for the payloads.
+     */
+    @FunctionalInterface
+    interface Sink {
+        void accept(byte type, long payload);
+    }
+
+    /**
+     * @return {@code false} if the ring is full and the event was dropped.
+     */
+    boolean offer(byte type, long payload) {
+        long tail = (long) TAIL.getOpaque(this);
+        if (tail - (long) HEAD.getAcquire(this) == CAPACITY) {
+            //noinspection NonAtomicOperationOnVolatileField (Only the producer writes it.)
+            dropped++;
+            return false;
+        }
+
+        int slot = (int) tail & MASK;
+        types[slot] = type;
+        payloads[slot] = payload;
+
+        TAIL.setRelease(this, tail + 1);
+        return true;
+    }
+
+    /**
+     * Hands every published event to the sink, in the order they were offered.
+     *
+     * @return how many events were drained.
+     */
+    int drain(Sink sink) {
+        long head = (long) HEAD.getOpaque(this);
+        long tail = (long) TAIL.getAcquire(this);
+
+        for (long i = head; i < tail; i++) {
+            int slot = (int) i & MASK;
+            sink.accept(types[slot], payloads[slot]);
+        }
+
+        HEAD.setRelease(this, tail);
+        return (int) (tail - head);
+    }
+
+    /**
+     * @return how many events were dropped since the last call.
+     */
+    int takeDropped() {
+        int dropped = this.dropped;
+        if (dropped != 0) this.dropped = 0; // Racing a drop only delays its report.
+        return dropped;
+    }
+
+    static long key(int keycode, int modifiers, int action) {
+        return (long) action << 48 | (long) (modifiers & 0xFFFF) << 32 | (keycode & 0xFFFFFFFFL);
+    }
+
+    static long cursor(float x, float y) {
+        return (long) Float.floatToRawIntBits(x) << 32 | (Float.floatToRawIntBits(y) & 0xFFFFFFFFL);
+    }
+
+    static long size(int width, int height) {
+        return (long) width << 32 | (height & 0xFFFFFFFFL);
+    }
+
+    static int code(long payload) {
+        return (int) payload;
+    }
+
+    static int modifiers(long payload) {
+        return (int) (payload >>> 32) & 0xFFFF;
+    }
+
+    static int action(long payload) {
+        return (int) (payload >>> 48);
+    }
+
+    static float cursorX(long payload) {
+        return Float.intBitsToFloat((int) (payload >>> 32));
+    }
+
+    static float cursorY(long payload) {
+        return Float.intBitsToFloat((int) payload);
+    }
+
+    static int width(long payload) {
+        return (int) (payload >>> 32);
+    }
+
+    static int height(long payload) {
+        return (int) payload;
+    }
+}
@@ -0,0 +1,99 @@
+package zodalix.ro.engine.input;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes every input event the {@link GameInputHandler} dispatches to a file, stamped with the tick that first sees
+ * it, so an {@link InputReplay} can drive the game through the same session again.
+ * <p>
+ * The file starts with a header (magic, version, tick rate and the session's seed), followed by one record per
+ * event: the ticks since the previous record as a variable-length number, the event type and its payload. An end
+ * record holds how many ticks the session ran. Events are stamped with ticks rather than time, a replay is exactly
+ * as long in ticks however fast its frames are.
+ * <p>
+ * The recording is written to a temporary file and moved in place once finished, an interrupted session leaves the
+ * previous recording alone.
+ *
+ * @see GameInputHandler#startRecording(InputRecorder)
+ */
+public final class InputRecorder {
+    static final int MAGIC = 0x524F4952; // "ROIR"
+    static final short VERSION = 1;
+    static final byte END = -1;
+
+    private final Path file, temporaryFile;
+    private final DataOutputStream output;
+    private long lastTick;
+    private int events;
+
+    /**
+     * @param tickRate the simulation's tick rate, a replay runs at the same one.
+     * @param seed     the seed the session's randomness derives from.
+     */
+    public InputRecorder(@NotNull Path file, int tickRate, long seed) throws IOException {
+        this.file = file;
+        this.temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        var parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)));
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeInt(tickRate);
+        output.writeLong(seed);
+    }
+
+    void write(long tick, byte type, long payload) {
+        try {
+            writeVarLong(output, tick - lastTick);
+            output.writeByte(type);
+            output.writeLong(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        this.lastTick = tick;
+        this.events++;
+    }
+
+    /**
+     * Ends the recording and moves it in place.
+     *
+     * @param ticks how many ticks the session ran.
+     */
+    void finish(long ticks) throws IOException {
+        writeVarLong(output, Math.max(0, ticks - lastTick));
+        output.writeByte(END);
+        output.close();
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return how many events were recorded so far.
+     */
+    public int eventCount() {
+        return events;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+}
@@ -0,0 +1,139 @@
+package zodalix.ro.engine.input;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A recording made by an {@link InputRecorder}, fed back to the {@link GameInputHandler} in place of the window's input.
+ * <p>
+ * The whole recording is read up front into flat arrays, feeding a tick's events is then a walk over them. A replay
+ * is meant to run one tick per frame whatever the frame time, so two runs of the same recording simulate exactly the
+ * same thing and their frame times can be compared.
+ *
+ * @see GameInputHandler#replay(InputReplay)
+ */
+public final class InputReplay {
+    private static final Logger logger = LogManager.getLogger(InputReplay.class);
+
+    private final int tickRate;
+    private final long seed;
+    private final long tickCount;
+
+    private final long[] ticks;
+    private final byte[] types;
+    private final long[] payloads;
+    private final int eventCount;
+    private int cursor;
+
+    private InputReplay(int tickRate, long seed, long tickCount, long[] ticks, byte[] types, long[] payloads, int eventCount) {
+        this.tickRate = tickRate;
+        this.seed = seed;
+        this.tickCount = tickCount;
+        this.ticks = ticks;
+        this.types = types;
+        this.payloads = payloads;
+        this.eventCount = eventCount;
+    }
+
+    @NotNull
+    public static InputReplay read(@NotNull Path file) throws IOException {
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != InputRecorder.MAGIC) throw new IOException(file + " is not an input recording.");
+
+            short version = input.readShort();
+            if (version != InputRecorder.VERSION) throw new IOException(file + " was recorded with version " + version + ", expected " + InputRecorder.VERSION);
+
+            int tickRate = input.readInt();
+            long seed = input.readLong();
+
+            long[] ticks = new long[256];
+            byte[] types = new byte[256];
+            long[] payloads = new long[256];
+            int count = 0;
+
+            long tick = 0;
+            while (true) {
+                try {
+                    tick += readVarLong(input);
+                    byte type = input.readByte();
+                    if (type == InputRecorder.END) break;
+
+                    long payload = input.readLong();
+                    if (count == ticks.length) {
+                        ticks = Arrays.copyOf(ticks, count * 2);
+                        types = Arrays.copyOf(types, count * 2);
+                        payloads = Arrays.copyOf(payloads, count * 2);
+                    }
+
+                    ticks[count] = tick;
+                    types[count] = type;
+                    payloads[count] = payload;
+                    count++;
+                } catch (EOFException _) {
+                    // The recorder only leaves unfinished files behind under a temporary name, but one may still be renamed by hand.
+                    logger.warn("Input recording {} ends abruptly, replaying the {} events read", file, count);
+                    tick = count == 0 ? 0 : ticks[count - 1] + 1;
+                    break;
+                }
+            }
+
+            return new InputReplay(tickRate, seed, tick, ticks, types, payloads, count);
+        }
+    }
+
+    /**
+     * Queues the events recorded for the tick.
+     */
+    void feed(InputEventQueue queue, long tick) {
+        while (cursor < eventCount && ticks[cursor] <= tick) {
+            if (!queue.offer(types[cursor], payloads[cursor])) return; // Full, the rest goes in on the next frame.
+            cursor++;
+        }
+    }
+
+    /**
+     * @return whether every recorded tick ran.
+     */
+    public boolean isFinished(long tick) {
+        return tick >= tickCount;
+    }
+
+    public int tickRate() {
+        return tickRate;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @return how many ticks the recorded session ran.
+     */
+    public long tickCount() {
+        return tickCount;
+    }
+
+    public int eventCount() {
+        return eventCount;
+    }
+
+    private static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new IOException("Malformed variable-length number.");
+    }
+}
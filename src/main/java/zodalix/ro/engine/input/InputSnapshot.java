@@ -0,0 +1,128 @@
+package zodalix.ro.engine.input;
+
+import org.jetbrains.annotations.NotNull;
+import zodalix.ro.game.RoguesOdyssey;
+
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_LAST;
+import static org.lwjgl.glfw.GLFW.GLFW_MOUSE_BUTTON_LAST;
+
+/**
+ * The state of the keyboard and mouse at the start of a simulation tick, taken by
+ * {@link GameInputHandler#beginTick()}.
+ * <p>
+ * Besides what is held down, a snapshot knows what was pressed and released since the previous tick: a key tapped
+ * between two ticks is both pressed and released, though never seen down. Keys are bits in a few {@code long}s,
+ * so asking about one is a shift and a mask, no GLFW call.
+ * <p>
+ * Snapshots are immutable, a tick reads the same input from start to end whatever arrives meanwhile.
+ *
+ * @see GameInputHandler#snapshot()
+ */
+public final class InputSnapshot {
+    static final int KEY_WORDS = (GLFW_KEY_LAST >> 6) + 1;
+
+    public static final InputSnapshot EMPTY = new InputSnapshot(
+            -1, new long[KEY_WORDS], new long[KEY_WORDS], new long[KEY_WORDS], 0, 0, 0, 0, 0f, 0f);
+
+    private final long tick;
+    private final long[] keysDown, keysPressed, keysReleased;
+    private final int buttonsDown, buttonsPressed, buttonsReleased;
+    private final int modifiers;
+    private final float cursorX, cursorY;
+
+    InputSnapshot(long tick, long[] keysDown, long[] keysPressed, long[] keysReleased,
+                  int buttonsDown, int buttonsPressed, int buttonsReleased, int modifiers,
+                  float cursorX, float cursorY) {
+        this.tick = tick;
+        this.keysDown = keysDown;
+        this.keysPressed = keysPressed;
+        this.keysReleased = keysReleased;
+        this.buttonsDown = buttonsDown;
+        this.buttonsPressed = buttonsPressed;
+        this.buttonsReleased = buttonsReleased;
+        this.modifiers = modifiers;
+        this.cursorX = cursorX;
+        this.cursorY = cursorY;
+    }
+
+    private static boolean bit(long[] words, int key) {
+        return key >= 0 && key <= GLFW_KEY_LAST && (words[key >> 6] & 1L << key) != 0;
+    }
+
+    private static boolean bit(int bits, int button) {
+        return button >= 0 && button <= GLFW_MOUSE_BUTTON_LAST && (bits & 1 << button) != 0;
+    }
+
+    /**
+     * @param key a GLFW key code, unknown keys are never down.
+     */
+    public boolean isDown(int key) {
+        return bit(keysDown, key);
+    }
+
+    /**
+     * @return whether the key went down since the previous tick.
+     */
+    public boolean wasPressed(int key) {
+        return bit(keysPressed, key);
+    }
+
+    /**
+     * @return whether the key went up since the previous tick.
+     */
+    public boolean wasReleased(int key) {
+        return bit(keysReleased, key);
+    }
+
+    public boolean isDown(@NotNull Keybinding keybinding) {
+        return this.isDown(RoguesOdyssey.instance().inputHandler.boundKey(keybinding));
+    }
+
+    public boolean wasPressed(@NotNull Keybinding keybinding) {
+        return this.wasPressed(RoguesOdyssey.instance().inputHandler.boundKey(keybinding));
+    }
+
+    public boolean wasReleased(@NotNull Keybinding keybinding) {
+        return this.wasReleased(RoguesOdyssey.instance().inputHandler.boundKey(keybinding));
+    }
+
+    /**
+     * @param button a GLFW mouse button.
+     */
+    public boolean isButtonDown(int button) {
+        return bit(buttonsDown, button);
+    }
+
+    public boolean wasButtonPressed(int button) {
+        return bit(buttonsPressed, button);
+    }
+
+    public boolean wasButtonReleased(int button) {
+        return bit(buttonsReleased, button);
+    }
+
+    /**
+     * @return the modifiers (such as {@code GLFW_MOD_SHIFT}) of the last key or mouse button event.
+     */
+    public int modifiers() {
+        return modifiers;
+    }
+
+    /**
+     * @return the cursor's position in window coordinates, from the top left corner.
+     */
+    public float cursorX() {
+        return cursorX;
+    }
+
+    public float cursorY() {
+        return cursorY;
+    }
+
+    /**
+     * @return the number of the tick the snapshot was taken for, {@code -1} for {@link InputSnapshot#EMPTY}.
+     */
+    public long tick() {
+        return tick;
+    }
+}
@@ -1,26 +1,40 @@
 package zodalix.ro.engine.input;
 
-import org.lwjgl.glfw.GLFW;
 import zodalix.ro.engine.utils.NamespacedKey;
 import zodalix.ro.game.RoguesOdyssey;
 
-import java.util.Optional;
-
+/**
+ * An action bound to a key through the keymap. Whether it is down, pressed or released is read from the current
+ * tick's {@link InputSnapshot}.
+ */
 public class Keybinding extends NamespacedKey {
     public Keybinding(NamespacedKey base) {
         super(base);
     }
 
     public boolean isDown() {
-        Optional<Integer> optionalKey = RoguesOdyssey.instance().inputHandler.action(this);
-        return optionalKey.filter
-                (integer -> GLFW.glfwGetKey(RoguesOdyssey.instance().windowHandle, integer) == GLFW.GLFW_PRESS)
-                .isPresent();
+        return RoguesOdyssey.instance().inputHandler.snapshot().isDown(this);
+    }
+
+    /**
+     * @return whether the bound key went down since the previous tick.
+     */
+    public boolean wasPressed() {
+        return RoguesOdyssey.instance().inputHandler.snapshot().wasPressed(this);
+    }
 
+    /**
+     * @return whether the bound key went up since the previous tick.
+     */
+    public boolean wasReleased() {
+        return RoguesOdyssey.instance().inputHandler.snapshot().wasReleased(this);
     }
 
-    public boolean wasDown(int releasedKey) {
-        Optional<Integer> optionalKey = RoguesOdyssey.instance().inputHandler.action(this);
-        return optionalKey.filter(integer -> integer == releasedKey).isPresent();
+    /**
+     * @return whether a key event's key is the bound one, for screens reacting to events rather than ticks.
+     */
+    public boolean matches(int keycode) {
+        int key = RoguesOdyssey.instance().inputHandler.boundKey(this);
+        return key != -1 && key == keycode;
     }
 }
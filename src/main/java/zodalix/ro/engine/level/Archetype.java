@@ -0,0 +1,184 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The entities of an {@link EntityStore} that have exactly the same components, stored as structure of arrays.
+ * <p>
+ * Entities are packed in {@link Chunk}s of {@link Archetype#CHUNK_SIZE}, each component in its own array, so a system
+ * touching positions and velocities streams through two float arrays and nothing else. Chunks are never reallocated,
+ * an archetype grows by adding one: arrays handed to a system stay the live storage even if entities are created
+ * meanwhile. Removing an entity moves the archetype's last entity into its row.
+ */
+public final class Archetype {
+    public static final int CHUNK_SIZE = 1024;
+    static final int CHUNK_SHIFT = 10, CHUNK_MASK = CHUNK_SIZE - 1;
+
+    final long mask;
+    final int index; // In the store's archetypes.
+    private final FloatComponent[] floatComponents;
+    private final ObjectComponent<?>[] objectComponents;
+
+    // Component id -> index into a chunk's float or object arrays, -1 if the archetype doesn't have it.
+    private final int[] floatSlots, objectSlots;
+
+    final List<Chunk> chunks;
+    int size;
+
+    Archetype(int index, long mask, List<Component> components) {
+        this.index = index;
+        this.mask = mask;
+        this.floatSlots = new int[Component.MAX_COMPONENTS];
+        this.objectSlots = new int[Component.MAX_COMPONENTS];
+        Arrays.fill(floatSlots, -1);
+        Arrays.fill(objectSlots, -1);
+
+        var floats = new ArrayList<FloatComponent>();
+        var objects = new ArrayList<ObjectComponent<?>>();
+        for (final var component : components) {
+            switch (component) {
+                case FloatComponent floatComponent -> {
+                    floatSlots[component.id] = floats.size();
+                    floats.add(floatComponent);
+                }
+                case ObjectComponent<?> objectComponent -> {
+                    objectSlots[component.id] = objects.size();
+                    objects.add(objectComponent);
+                }
+            }
+        }
+
+        this.floatComponents = floats.toArray(FloatComponent[]::new);
+        this.objectComponents = objects.toArray(ObjectComponent[]::new);
+        this.chunks = new ArrayList<>();
+    }
+
+    public boolean has(@NotNull Component component) {
+        return (mask & component.bit()) != 0;
+    }
+
+    /**
+     * @return how many entities the archetype holds.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a row, zeroed.
+     *
+     * @return the row.
+     */
+    int add(int entityIndex) {
+        int row = size++;
+        if ((row >> CHUNK_SHIFT) == chunks.size()) chunks.add(new Chunk());
+
+        chunks.get(row >> CHUNK_SHIFT).entities[row & CHUNK_MASK] = entityIndex;
+        return row;
+    }
+
+    /**
+     * Moves the last row into the removed one.
+     *
+     * @return the entity index now at {@code row}, or {@code -1} if the removed row was the last.
+     */
+    int remove(int row) {
+        int last = --size;
+        var lastChunk = chunks.get(last >> CHUNK_SHIFT);
+        int lastOffset = last & CHUNK_MASK;
+
+        int moved = -1;
+        if (row != last) {
+            var chunk = chunks.get(row >> CHUNK_SHIFT);
+            int offset = row & CHUNK_MASK;
+
+            for (int i = 0; i < floatComponents.length; i++) {
+                int lanes = floatComponents[i].lanes;
+                System.arraycopy(lastChunk.floats[i], lastOffset * lanes, chunk.floats[i], offset * lanes, lanes);
+            }
+            for (int i = 0; i < objectComponents.length; i++) chunk.objects[i][offset] = lastChunk.objects[i][lastOffset];
+
+            moved = chunk.entities[offset] = lastChunk.entities[lastOffset];
+        }
+
+        // Clear the vacated row, a later entity starts zeroed and references aren't kept alive.
+        for (int i = 0; i < floatComponents.length; i++) {
+            int lanes = floatComponents[i].lanes;
+            Arrays.fill(lastChunk.floats[i], lastOffset * lanes, lastOffset * lanes + lanes, 0f);
+        }
+        for (int i = 0; i < objectComponents.length; i++) lastChunk.objects[i][lastOffset] = null;
+
+        return moved;
+    }
+
+    Chunk chunk(int row) {
+        return chunks.get(row >> CHUNK_SHIFT);
+    }
+
+    int floatSlot(FloatComponent component) {
+        int slot = floatSlots[component.id];
+        if (slot == -1) throw new IllegalArgumentException("Archetype has no " + component + " component.");
+        return slot;
+    }
+
+    int objectSlot(ObjectComponent<?> component) {
+        int slot = objectSlots[component.id];
+        if (slot == -1) throw new IllegalArgumentException("Archetype has no " + component + " component.");
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return "archetype " + Arrays.toString(floatComponents) + Arrays.toString(objectComponents);
+    }
+
+    /**
+     * Up to {@link Archetype#CHUNK_SIZE} entities of an archetype, the unit systems iterate over.
+     */
+    public final class Chunk {
+        final float[][] floats;
+        final Object[][] objects;
+        final int[] entities;
+
+        private Chunk() {
+            this.floats = new float[floatComponents.length][];
+            for (int i = 0; i < floats.length; i++) floats[i] = new float[CHUNK_SIZE * floatComponents[i].lanes];
+
+            this.objects = new Object[objectComponents.length][CHUNK_SIZE];
+            this.entities = new int[CHUNK_SIZE];
+        }
+
+        /**
+         * @return the component's lanes of every entity in the chunk, interleaved, the live storage.
+         */
+        public float[] floats(@NotNull FloatComponent component) {
+            return floats[floatSlot(component)];
+        }
+
+        /**
+         * @return the component's values of every entity in the chunk, the live storage.
+         */
+        public Object[] objects(@NotNull ObjectComponent<?> component) {
+            return objects[objectSlot(component)];
+        }
+
+        public <T> T object(@NotNull ObjectComponent<T> component, int row) {
+            return component.type().cast(objects[objectSlot(component)][row]);
+        }
+
+        /**
+         * @return the index of the entity in the row, see {@link EntityStore#handle(int)}.
+         */
+        public int entityIndex(int row) {
+            return entities[row];
+        }
+
+        public Archetype archetype() {
+            return Archetype.this;
+        }
+    }
+}
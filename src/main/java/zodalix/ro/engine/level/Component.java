@@ -0,0 +1,38 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A kind of data entities in an {@link EntityStore} can have. Every component has a small id, an archetype is the set
+ * of its entities' components as a bitmask of those ids.
+ * <p>
+ * Components are meant to be created once, as constants, there can be at most {@link Component#MAX_COMPONENTS}.
+ *
+ * @see Components
+ */
+public abstract sealed class Component permits FloatComponent, ObjectComponent {
+    public static final int MAX_COMPONENTS = Long.SIZE;
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final String name;
+    final int id;
+
+    Component(@NotNull String name) {
+        this.name = name;
+        this.id = NEXT_ID.getAndIncrement();
+
+        if (id >= MAX_COMPONENTS) throw new IllegalStateException("Can't create more than " + MAX_COMPONENTS + " components");
+    }
+
+    long bit() {
+        return 1L << id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
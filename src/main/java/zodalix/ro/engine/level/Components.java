@@ -0,0 +1,20 @@
+package zodalix.ro.engine.level;
+
+/**
+ * The components the engine's own systems work with.
+ */
+public final class Components {
+    private Components() {}
+
+    /** Where the entity is, {@code x, y}. */
+    public static final FloatComponent POSITION = new FloatComponent("position", 2);
+
+    /** Where the entity was at the start of the tick, to interpolate from. {@code x, y} */
+    public static final FloatComponent PREVIOUS_POSITION = new FloatComponent("previous_position", 2);
+
+    /** How far the entity moves per second, {@code x, y}. */
+    public static final FloatComponent VELOCITY = new FloatComponent("velocity", 2);
+
+    /** The entity's half-width and half-height, like {@link zodalix.ro.engine.utils.BoundingBox#rectangle(float, float)}. */
+    public static final FloatComponent BOUNDS = new FloatComponent("bounds", 2);
+}
@@ -0,0 +1,123 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entities an {@link EntitySystem} creates and destroys, recorded while systems run and applied by the
+ * {@link SystemScheduler} once the systems running alongside it are done.
+ * <pre>
+ * commands.create(Components.POSITION, Components.VELOCITY)
+ *         .set(Components.POSITION, x, y)
+ *         .set(Components.VELOCITY, 0, -1);
+ * </pre>
+ * Commands are applied in the order systems were added, and within a system in the order they were recorded, chunks
+ * walked with {@link Query#forEachChunkParallel(Query.ParallelChunkConsumer, EntityCommands)} in chunk order, so
+ * the store ends up the same whatever the threads did. Destroys are applied before creates. Not thread safe, each
+ * chunk gets its own.
+ */
+public final class EntityCommands {
+    private final List<Spawn> spawns;
+    private long[] destroys;
+    private int destroyCount;
+
+    EntityCommands() {
+        this.spawns = new ArrayList<>();
+        this.destroys = new long[16];
+    }
+
+    /**
+     * Creates an entity with the components once applied, zero or {@code null} unless set on the returned spawn.
+     */
+    public Spawn create(@NotNull Component... components) {
+        var spawn = new Spawn(components);
+        spawns.add(spawn);
+        return spawn;
+    }
+
+    /**
+     * Destroys the entity once applied, if it's still alive then.
+     */
+    public void destroy(long entity) {
+        if (destroyCount == destroys.length) this.destroys = Arrays.copyOf(destroys, destroyCount * 2);
+        destroys[destroyCount++] = entity;
+    }
+
+    public boolean isEmpty() {
+        return spawns.isEmpty() && destroyCount == 0;
+    }
+
+    /**
+     * Moves the other's commands after these.
+     */
+    void append(EntityCommands other) {
+        if (other.isEmpty()) return;
+
+        spawns.addAll(other.spawns);
+        for (int i = 0; i < other.destroyCount; i++) this.destroy(other.destroys[i]);
+        other.clear();
+    }
+
+    void apply(EntityStore store) {
+        for (int i = 0; i < destroyCount; i++) store.destroy(destroys[i]);
+        for (final var spawn : spawns) spawn.apply(store);
+        this.clear();
+    }
+
+    private void clear() {
+        spawns.clear();
+        this.destroyCount = 0;
+    }
+
+    /**
+     * An entity to create, its components' values set as it's created.
+     */
+    public static final class Spawn {
+        private final Component[] components;
+        private final Object[] values; // Per component: float[] lanes, the object, or null to leave it zeroed.
+
+        private Spawn(Component[] components) {
+            this.components = components.clone();
+            this.values = new Object[components.length];
+        }
+
+        public Spawn set(@NotNull FloatComponent component, float... lanes) {
+            if (lanes.length != component.lanes)
+                throw new IllegalArgumentException(component + " has " + component.lanes + " lanes, got " + lanes.length + ".");
+
+            values[this.slot(component)] = lanes.clone();
+            return this;
+        }
+
+        public <T> Spawn set(@NotNull ObjectComponent<T> component, T value) {
+            values[this.slot(component)] = value;
+            return this;
+        }
+
+        private int slot(Component component) {
+            for (int i = 0; i < components.length; i++) if (components[i] == component) return i;
+            throw new IllegalArgumentException("Spawn has no " + component + " component.");
+        }
+
+        @SuppressWarnings("unchecked")
+        private void apply(EntityStore store) {
+            long entity = store.create(components);
+
+            for (int i = 0; i < components.length; i++) {
+                if (values[i] == null) continue;
+
+                switch (components[i]) {
+                    case FloatComponent floatComponent -> {
+                        var lanes = (float[]) values[i];
+                        for (int lane = 0; lane < lanes.length; lane++) store.set(entity, floatComponent, lane, lanes[lane]);
+                    }
+                    case ObjectComponent<?> objectComponent ->
+                            store.set(entity, (ObjectComponent<Object>) objectComponent, values[i]);
+                }
+            }
+        }
+    }
+}
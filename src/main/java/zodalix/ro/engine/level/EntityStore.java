@@ -0,0 +1,241 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The entities of a {@link Level}, stored by {@link Archetype} as structure of arrays, and the
+ * {@link EntitySystem}s ticking them.
+ * <p>
+ * An entity is a handle, a {@code long} made of its index and a generation: once the entity is destroyed its index
+ * is reused by a later entity, with a new generation, so stale handles are told apart. {@link EntityStore#NONE} is
+ * never a live entity.
+ * <p>
+ * Components are read and written per entity through the store, or in bulk per chunk through a {@link Query}, which
+ * is what systems are meant to do. Entities destroyed while a query runs stay in place until it ends.
+ * <p>
+ * Render thread only, like the tick. While the {@link SystemScheduler} runs systems, possibly on other threads,
+ * entities can be read and written but not created or destroyed, systems record that in their {@link EntityCommands}.
+ */
+public final class EntityStore {
+    public static final long NONE = 0;
+
+    private final List<Archetype> archetypes;
+    private final Map<Long, Archetype> archetypesByMask;
+    private final SystemScheduler scheduler;
+
+    // Per entity index: the archetype's index in archetypes (-1 when free), the row in it and the generation.
+    private int[] archetypeOf, rowOf, generations;
+    private int[] freeIndices;
+    private int freeCount, indexCount, size;
+
+    private final AtomicInteger iterating; // Parallel systems iterate at the same time.
+    private boolean structureLocked;
+    private long[] pendingDestroys;
+    private int pendingDestroyCount;
+
+    public EntityStore() {
+        this.archetypes = new ArrayList<>();
+        this.archetypesByMask = new HashMap<>();
+        this.scheduler = new SystemScheduler();
+        this.iterating = new AtomicInteger();
+
+        this.archetypeOf = new int[64];
+        this.rowOf = new int[64];
+        this.generations = new int[64];
+        this.freeIndices = new int[16];
+        this.pendingDestroys = new long[16];
+    }
+
+    /**
+     * Creates an entity with the components, all zero or {@code null}.
+     *
+     * @return the entity's handle.
+     */
+    public long create(@NotNull Component... components) {
+        this.checkUnlocked();
+        var archetype = this.archetype(components);
+
+        int index;
+        if (freeCount > 0) index = freeIndices[--freeCount];
+        else {
+            index = indexCount++;
+            if (index == archetypeOf.length) {
+                this.archetypeOf = Arrays.copyOf(archetypeOf, index * 2);
+                this.rowOf = Arrays.copyOf(rowOf, index * 2);
+                this.generations = Arrays.copyOf(generations, index * 2);
+            }
+        }
+
+        generations[index]++;
+        if (generations[index] == 0) generations[index]++; // Wrapped, keep NONE unused.
+
+        archetypeOf[index] = archetype.index;
+        rowOf[index] = archetype.add(index);
+        size++;
+
+        return this.handle(index);
+    }
+
+    private Archetype archetype(Component[] components) {
+        long mask = 0;
+        for (final var component : components) mask |= component.bit();
+
+        var archetype = archetypesByMask.get(mask);
+        if (archetype != null) return archetype;
+
+        var unique = new ArrayList<Component>();
+        for (final var component : components) if (!unique.contains(component)) unique.add(component);
+
+        archetype = new Archetype(archetypes.size(), mask, unique);
+        archetypes.add(archetype);
+        archetypesByMask.put(mask, archetype);
+        return archetype;
+    }
+
+    /**
+     * Destroys the entity, right away or, if a query is running, once it ends. Stale handles are ignored.
+     */
+    public void destroy(long entity) {
+        this.checkUnlocked();
+        if (!this.isAlive(entity)) return;
+
+        if (iterating.get() > 0) {
+            if (pendingDestroyCount == pendingDestroys.length) pendingDestroys = Arrays.copyOf(pendingDestroys, pendingDestroyCount * 2);
+            pendingDestroys[pendingDestroyCount++] = entity;
+            return;
+        }
+
+        int index = (int) entity;
+        var archetype = archetypes.get(archetypeOf[index]);
+
+        int moved = archetype.remove(rowOf[index]);
+        if (moved != -1) rowOf[moved] = rowOf[index];
+
+        archetypeOf[index] = -1;
+        if (freeCount == freeIndices.length) freeIndices = Arrays.copyOf(freeIndices, freeCount * 2);
+        freeIndices[freeCount++] = index;
+        size--;
+    }
+
+    private void checkUnlocked() {
+        if (structureLocked)
+            throw new IllegalStateException("Entities can't be created or destroyed while systems run, use the system's EntityCommands.");
+    }
+
+    public boolean isAlive(long entity) {
+        int index = (int) entity, generation = (int) (entity >>> 32);
+        return entity != NONE && index >= 0 && index < indexCount && archetypeOf[index] != -1 && generations[index] == generation;
+    }
+
+    /**
+     * @return the handle of the live entity at the index, as found in {@link Archetype.Chunk#entityIndex(int)}.
+     */
+    public long handle(int index) {
+        return (long) generations[index] << 32 | index;
+    }
+
+    public boolean has(long entity, @NotNull Component component) {
+        return this.isAlive(entity) && archetypes.get(archetypeOf[(int) entity]).has(component);
+    }
+
+    public float get(long entity, @NotNull FloatComponent component, int lane) {
+        int row = this.row(entity);
+        var archetype = archetypes.get(archetypeOf[(int) entity]);
+        return archetype.chunk(row).floats[archetype.floatSlot(component)][(row & Archetype.CHUNK_MASK) * component.lanes + lane];
+    }
+
+    public void set(long entity, @NotNull FloatComponent component, int lane, float value) {
+        int row = this.row(entity);
+        var archetype = archetypes.get(archetypeOf[(int) entity]);
+        archetype.chunk(row).floats[archetype.floatSlot(component)][(row & Archetype.CHUNK_MASK) * component.lanes + lane] = value;
+    }
+
+    /**
+     * Sets a two-lane component, such as a position.
+     */
+    public void set(long entity, @NotNull FloatComponent component, float x, float y) {
+        int row = this.row(entity);
+        var archetype = archetypes.get(archetypeOf[(int) entity]);
+
+        var floats = archetype.chunk(row).floats[archetype.floatSlot(component)];
+        int offset = (row & Archetype.CHUNK_MASK) * component.lanes;
+        floats[offset] = x;
+        floats[offset + 1] = y;
+    }
+
+    public <T> T get(long entity, @NotNull ObjectComponent<T> component) {
+        int row = this.row(entity);
+        var archetype = archetypes.get(archetypeOf[(int) entity]);
+        return component.type().cast(archetype.chunk(row).objects[archetype.objectSlot(component)][row & Archetype.CHUNK_MASK]);
+    }
+
+    public <T> void set(long entity, @NotNull ObjectComponent<T> component, T value) {
+        int row = this.row(entity);
+        var archetype = archetypes.get(archetypeOf[(int) entity]);
+        archetype.chunk(row).objects[archetype.objectSlot(component)][row & Archetype.CHUNK_MASK] = value;
+    }
+
+    private int row(long entity) {
+        if (!this.isAlive(entity)) throw new IllegalArgumentException("Entity " + Long.toHexString(entity) + " is not alive.");
+        return rowOf[(int) entity];
+    }
+
+    /**
+     * @return a query over the entities having at least these components, keep it rather than create one per tick.
+     */
+    public Query query(@NotNull Component... components) {
+        long mask = 0;
+        for (final var component : components) mask |= component.bit();
+
+        return new Query(this, mask);
+    }
+
+    /**
+     * Systems conflicting with one another run in the order they were added, see {@link SystemScheduler}.
+     */
+    public void addSystem(@NotNull EntitySystem system) {
+        this.scheduler.add(system);
+    }
+
+    public SystemScheduler scheduler() {
+        return scheduler;
+    }
+
+    public void tick(float deltaTime) {
+        this.scheduler.run(this, deltaTime);
+    }
+
+    /**
+     * @return how many entities are alive.
+     */
+    public int size() {
+        return size;
+    }
+
+    List<Archetype> archetypes() {
+        return archetypes;
+    }
+
+    void lockStructure(boolean locked) {
+        this.structureLocked = locked;
+    }
+
+    void beginIteration() {
+        iterating.incrementAndGet();
+    }
+
+    void endIteration() {
+        if (iterating.decrementAndGet() > 0 || pendingDestroyCount == 0) return;
+
+        int count = pendingDestroyCount;
+        this.pendingDestroyCount = 0;
+        for (int i = 0; i < count; i++) this.destroy(pendingDestroys[i]);
+    }
+}
@@ -0,0 +1,31 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Logic run over an {@link EntityStore}'s entities every tick, usually through a {@link Query}.
+ * <p>
+ * Systems declaring their {@linkplain EntitySystem#access() access} run alongside the systems they don't conflict
+ * with, on the {@link SystemScheduler}'s workers. A system must not create or destroy entities itself, it records
+ * that in its {@link EntityCommands}, applied once the systems it runs with are done.
+ *
+ * @see EntityStore#addSystem(EntitySystem)
+ */
+@FunctionalInterface
+public interface EntitySystem {
+    void update(@NotNull EntityStore store, @NotNull EntityCommands commands, float deltaTime);
+
+    /**
+     * @return the components the system reads and writes, {@link SystemAccess#EXCLUSIVE} to run alone.
+     */
+    default SystemAccess access() {
+        return SystemAccess.EXCLUSIVE;
+    }
+
+    /**
+     * @return the name the system's timings are reported under.
+     */
+    default String name() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,24 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A component made of a few floats (its lanes), such as a position's {@code x} and {@code y}.
+ * <p>
+ * Lanes are stored interleaved in one {@code float[]} per chunk, entity {@code row}'s lane {@code l} is at
+ * {@code row * lanes + l}.
+ */
+public final class FloatComponent extends Component {
+    final int lanes;
+
+    public FloatComponent(@NotNull String name, int lanes) {
+        super(name);
+        if (lanes <= 0) throw new IllegalArgumentException("A component needs at least one lane, got " + lanes);
+
+        this.lanes = lanes;
+    }
+
+    public int lanes() {
+        return lanes;
+    }
+}
@@ -2,10 +2,18 @@ package zodalix.ro.engine.level;
 
 import zodalix.ro.engine.Tickable;
 
+/**
+ * A place entities live in. Its entities are kept in an {@link EntityStore}, ticking the level runs the store's systems.
+ */
 public abstract class Level implements Tickable {
+    protected final EntityStore entities = new EntityStore();
+
+    public EntityStore entities() {
+        return entities;
+    }
 
     @Override
     public void tick(float deltaTime) {
-
+        this.entities.tick(deltaTime);
     }
 }
@@ -0,0 +1,34 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+import static zodalix.ro.engine.level.Components.*;
+
+/**
+ * Moves every entity with a {@link Components#VELOCITY} by it, after remembering where entities with a
+ * {@link Components#PREVIOUS_POSITION} were so they can be drawn in between ticks.
+ */
+public final class MovementSystem implements EntitySystem {
+    private final Query interpolated, moving;
+
+    public MovementSystem(@NotNull EntityStore store) {
+        this.interpolated = store.query(POSITION, PREVIOUS_POSITION);
+        this.moving = store.query(POSITION, VELOCITY);
+    }
+
+    @Override
+    public void update(@NotNull EntityStore store, @NotNull EntityCommands commands, float deltaTime) {
+        interpolated.forEachChunkParallel((chunk, count, _) ->
+                System.arraycopy(chunk.floats(POSITION), 0, chunk.floats(PREVIOUS_POSITION), 0, count * POSITION.lanes), commands);
+
+        moving.forEachChunkParallel((chunk, count, _) -> {
+            float[] positions = chunk.floats(POSITION), velocities = chunk.floats(VELOCITY);
+            for (int i = 0, lanes = count * POSITION.lanes; i < lanes; i++) positions[i] += velocities[i] * deltaTime;
+        }, commands);
+    }
+
+    @Override
+    public SystemAccess access() {
+        return SystemAccess.of().reads(VELOCITY).writes(POSITION, PREVIOUS_POSITION);
+    }
+}
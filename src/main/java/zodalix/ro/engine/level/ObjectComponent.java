@@ -0,0 +1,22 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A component holding a reference, such as an entity's texture. Prefer {@link FloatComponent}s for anything ticked,
+ * references can't be scanned without chasing pointers.
+ *
+ * @param <T> the referenced values.
+ */
+public final class ObjectComponent<T> extends Component {
+    private final Class<T> type;
+
+    public ObjectComponent(@NotNull String name, @NotNull Class<T> type) {
+        super(name);
+        this.type = type;
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+}
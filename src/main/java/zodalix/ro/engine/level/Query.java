@@ -0,0 +1,177 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The entities of an {@link EntityStore} having at least some components, walked chunk by chunk.
+ * <pre>
+ * var moving = store.query(Components.POSITION, Components.VELOCITY);
+ * moving.forEachChunk((chunk, count) -&gt; {
+ *     float[] positions = chunk.floats(Components.POSITION), velocities = chunk.floats(Components.VELOCITY);
+ *     for (int i = 0; i &lt; count * 2; i++) positions[i] += velocities[i] * deltaTime;
+ * });
+ * </pre>
+ * Matching archetypes are looked up once and again only when the store creates a new archetype, a query is meant
+ * to be created once and kept. Entities created while a query runs aren't visited, entities destroyed while it runs
+ * are removed once it's done.
+ * <p>
+ * Systems with a lot of entities to go through use {@link Query#forEachChunkParallel(ParallelChunkConsumer, EntityCommands)}
+ * instead, which hands chunks to the tick workers.
+ */
+public final class Query {
+    private final EntityStore store;
+    private final long mask;
+
+    private final List<Archetype> matches;
+    private int archetypesSeen;
+
+    // The chunks of a parallel walk and their counts, in order, and the commands recorded for each.
+    private Archetype.Chunk[] chunks;
+    private int[] counts;
+    private EntityCommands[] chunkCommands;
+
+    /**
+     * Receives the entities of a chunk, rows {@code 0} to {@code count} exclusive.
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        void accept(Archetype.Chunk chunk, int count);
+    }
+
+    /**
+     * Receives the entities of a chunk, rows {@code 0} to {@code count} exclusive, and the commands to record the
+     * chunk's creates and destroys in. Called from several threads at once, each chunk only once.
+     */
+    @FunctionalInterface
+    public interface ParallelChunkConsumer {
+        void accept(Archetype.Chunk chunk, int count, EntityCommands commands);
+    }
+
+    Query(EntityStore store, long mask) {
+        this.store = store;
+        this.mask = mask;
+        this.matches = new ArrayList<>();
+        this.chunks = new Archetype.Chunk[4];
+        this.counts = new int[4];
+        this.chunkCommands = new EntityCommands[0];
+    }
+
+    private void refresh() {
+        var archetypes = store.archetypes();
+        for (; archetypesSeen < archetypes.size(); archetypesSeen++) {
+            var archetype = archetypes.get(archetypesSeen);
+            if ((archetype.mask & mask) == mask) matches.add(archetype);
+        }
+    }
+
+    public void forEachChunk(@NotNull ChunkConsumer consumer) {
+        this.refresh();
+
+        store.beginIteration();
+        try {
+            for (int a = 0; a < matches.size(); a++) {
+                var archetype = matches.get(a);
+                int size = archetype.size; // Rows appended meanwhile are left for the next run.
+
+                for (int first = 0; first < size; first += Archetype.CHUNK_SIZE)
+                    consumer.accept(archetype.chunk(first), Math.min(Archetype.CHUNK_SIZE, size - first));
+            }
+        } finally {
+            store.endIteration();
+        }
+    }
+
+    /**
+     * Walks the chunks on the tick workers, if there are any and more than one chunk matches, then appends the
+     * commands recorded for each chunk to {@code commands}, in chunk order.
+     * <p>
+     * Only meant for systems run by the {@link SystemScheduler}, the consumer must only write the components its
+     * system declared writing, and only to the chunk it's given.
+     */
+    public void forEachChunkParallel(@NotNull ParallelChunkConsumer consumer, @NotNull EntityCommands commands) {
+        this.refresh();
+
+        int chunkCount = 0;
+        for (int a = 0; a < matches.size(); a++) {
+            var archetype = matches.get(a);
+            int size = archetype.size;
+
+            for (int first = 0; first < size; first += Archetype.CHUNK_SIZE) {
+                if (chunkCount == chunks.length) {
+                    this.chunks = Arrays.copyOf(chunks, chunkCount * 2);
+                    this.counts = Arrays.copyOf(counts, chunkCount * 2);
+                }
+
+                chunks[chunkCount] = archetype.chunk(first);
+                counts[chunkCount++] = Math.min(Archetype.CHUNK_SIZE, size - first);
+            }
+        }
+        if (chunkCount == 0) return;
+
+        if (chunkCommands.length < chunkCount) {
+            int old = chunkCommands.length;
+            this.chunkCommands = Arrays.copyOf(chunkCommands, chunkCount);
+            for (int i = old; i < chunkCount; i++) chunkCommands[i] = new EntityCommands();
+        }
+
+        var pool = SystemScheduler.workers();
+        store.beginIteration();
+        try {
+            if (pool == null || chunkCount == 1) {
+                for (int i = 0; i < chunkCount; i++) consumer.accept(chunks[i], counts[i], chunkCommands[i]);
+            } else {
+                var task = new ChunkRange(consumer, 0, chunkCount);
+                if (ForkJoinTask.getPool() == pool) task.invoke();
+                else pool.invoke(task);
+            }
+        } finally {
+            store.endIteration();
+            Arrays.fill(chunks, 0, chunkCount, null);
+        }
+
+        for (int i = 0; i < chunkCount; i++) commands.append(chunkCommands[i]);
+    }
+
+    /**
+     * @return how many entities match.
+     */
+    public int count() {
+        this.refresh();
+
+        int count = 0;
+        for (final var archetype : matches) count += archetype.size;
+        return count;
+    }
+
+    /**
+     * Splits the chunks in halves until a single one is left.
+     */
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, tasks are never serialized.
+    private final class ChunkRange extends RecursiveAction {
+        private final ParallelChunkConsumer consumer;
+        private final int from, to;
+
+        ChunkRange(ParallelChunkConsumer consumer, int from, int to) {
+            this.consumer = consumer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                consumer.accept(chunks[from], counts[from], chunkCommands[from]);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            ForkJoinTask.invokeAll(new ChunkRange(consumer, from, middle), new ChunkRange(consumer, middle, to));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The components an {@link EntitySystem} reads and writes, from which the {@link SystemScheduler} works out which
+ * systems may run at the same time: two systems conflict if one writes a component the other reads or writes.
+ * <pre>
+ * SystemAccess.of().reads(Components.VELOCITY).writes(Components.POSITION)
+ * </pre>
+ * A system touching anything else, such as game state outside the store, should stay {@link SystemAccess#EXCLUSIVE}.
+ *
+ * @param reads     the bits of the components read.
+ * @param writes    the bits of the components written.
+ * @param exclusive whether the system conflicts with every other.
+ */
+public record SystemAccess(long reads, long writes, boolean exclusive) {
+    /** Runs alone, what a system that declares nothing gets. */
+    public static final SystemAccess EXCLUSIVE = new SystemAccess(0, 0, true);
+
+    private static final SystemAccess NONE = new SystemAccess(0, 0, false);
+
+    /**
+     * @return an access to no component, to add to with {@link SystemAccess#reads(Component...)} and
+     * {@link SystemAccess#writes(Component...)}.
+     */
+    public static SystemAccess of() {
+        return NONE;
+    }
+
+    public SystemAccess reads(@NotNull Component... components) {
+        return new SystemAccess(reads | mask(components), writes, exclusive);
+    }
+
+    public SystemAccess writes(@NotNull Component... components) {
+        return new SystemAccess(reads, writes | mask(components), exclusive);
+    }
+
+    /**
+     * @return whether the two systems must not run at the same time.
+     */
+    public boolean conflicts(@NotNull SystemAccess other) {
+        return exclusive || other.exclusive
+                || (writes & (other.reads | other.writes)) != 0
+                || (other.writes & reads) != 0;
+    }
+
+    private static long mask(Component[] components) {
+        long mask = 0;
+        for (final var component : components) mask |= component.bit();
+        return mask;
+    }
+}
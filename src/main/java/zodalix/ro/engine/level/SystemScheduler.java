@@ -0,0 +1,186 @@
+package zodalix.ro.engine.level;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import zodalix.ro.engine.profiler.FrameProfiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs an {@link EntityStore}'s {@link EntitySystem}s, those that don't conflict at the same time.
+ * <p>
+ * Each system is put in a stage right after the last stage holding a system added before it that it
+ * {@linkplain SystemAccess#conflicts(SystemAccess) conflicts} with, so conflicting systems still run in the order they
+ * were added. A stage's systems run on the tick workers, and may themselves split their chunks over them with
+ * {@link Query#forEachChunkParallel(Query.ParallelChunkConsumer, EntityCommands)}. Between stages, the
+ * {@link EntityCommands} of the stage's systems are applied in the order the systems were added: the only points
+ * where entities are created and destroyed.
+ * <p>
+ * The workers are a {@link ForkJoinPool} shared by every store, of {@code -Dro.tickThreads} threads, by default one
+ * per core but the render thread's. With a single thread, everything runs on the caller, in the same stages.
+ */
+public final class SystemScheduler {
+    private static final int THREADS = Integer.getInteger("ro.tickThreads", Runtime.getRuntime().availableProcessors() - 1);
+    private static volatile ForkJoinPool workers;
+
+    private final List<SystemTask> systems;
+    private SystemTask[][] stages;
+
+    private @Nullable FrameProfiler profiler;
+    private int[] phases;
+
+    SystemScheduler() {
+        this.systems = new ArrayList<>();
+        this.stages = new SystemTask[0][];
+        this.phases = new int[0];
+    }
+
+    /**
+     * @return the tick workers, or {@code null} if ticks run on a single thread.
+     */
+    static @Nullable ForkJoinPool workers() {
+        if (THREADS <= 1) return null;
+
+        var pool = workers;
+        if (pool == null) {
+            synchronized (SystemScheduler.class) {
+                pool = workers;
+                if (pool == null) {
+                    var threadCount = new AtomicInteger();
+                    workers = pool = new ForkJoinPool(THREADS, forkJoinPool -> {
+                        var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                        thread.setName("Tick Worker #" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, null, false);
+                }
+            }
+        }
+
+        return pool;
+    }
+
+    void add(EntitySystem system) {
+        var access = system.access();
+
+        int stage = 0;
+        for (final var other : systems)
+            if (other.stage >= stage && access.conflicts(other.access)) stage = other.stage + 1;
+
+        var task = new SystemTask(system, access, stage, systems.size());
+        systems.add(task);
+
+        if (stage == stages.length) {
+            this.stages = Arrays.copyOf(stages, stage + 1);
+            stages[stage] = new SystemTask[0];
+        }
+        stages[stage] = Arrays.copyOf(stages[stage], stages[stage].length + 1);
+        stages[stage][stages[stage].length - 1] = task;
+
+        if (profiler != null) this.registerPhases();
+    }
+
+    void run(EntityStore store, float deltaTime) {
+        var pool = workers();
+
+        for (final var stage : stages) {
+            for (final var task : stage) task.prepare(store, deltaTime);
+
+            store.lockStructure(true);
+            try {
+                if (pool == null || stage.length == 1) {
+                    for (final var task : stage) task.invoke();
+                } else if (ForkJoinTask.getPool() == pool) {
+                    ForkJoinTask.invokeAll(stage);
+                } else {
+                    pool.invoke(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            ForkJoinTask.invokeAll(stage);
+                        }
+                    });
+                }
+            } finally {
+                store.lockStructure(false);
+            }
+
+            for (final var task : stage) task.commands.apply(store);
+        }
+
+        if (profiler != null) for (final var task : systems) profiler.record(phases[task.index], task.nanos);
+    }
+
+    /**
+     * Reports every system's time as a phase of the profiler's frames, named after {@link EntitySystem#name()}.
+     */
+    public void profile(@NotNull FrameProfiler profiler) {
+        this.profiler = profiler;
+        this.registerPhases();
+    }
+
+    private void registerPhases() {
+        this.phases = new int[systems.size()];
+        for (final var task : systems) phases[task.index] = profiler.phase("system: " + task.system.name());
+    }
+
+    public int systemCount() {
+        return systems.size();
+    }
+
+    public EntitySystem system(int index) {
+        return systems.get(index).system;
+    }
+
+    /**
+     * @return the stage the system runs in, systems of the same stage run at the same time.
+     */
+    public int stage(int index) {
+        return systems.get(index).stage;
+    }
+
+    /**
+     * @return how long the system took during the last tick, in nanoseconds, including the chunks it split off.
+     */
+    public long lastNanos(int index) {
+        return systems.get(index).nanos;
+    }
+
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, tasks are never serialized.
+    private static final class SystemTask extends RecursiveAction {
+        final EntitySystem system;
+        final SystemAccess access;
+        final int stage, index;
+        final EntityCommands commands;
+
+        private EntityStore store;
+        private float deltaTime;
+        long nanos;
+
+        SystemTask(EntitySystem system, SystemAccess access, int stage, int index) {
+            this.system = system;
+            this.access = access;
+            this.stage = stage;
+            this.index = index;
+            this.commands = new EntityCommands();
+        }
+
+        void prepare(EntityStore store, float deltaTime) {
+            this.store = store;
+            this.deltaTime = deltaTime;
+            this.reinitialize();
+        }
+
+        @Override
+        protected void compute() {
+            long start = System.nanoTime();
+            system.update(store, commands, deltaTime);
+            this.nanos = System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package zodalix.ro.engine.profiler;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how long named phases of each frame take, in nanoseconds, over the last {@link FrameProfiler#HISTORY} frames.
+ * <p>
+ * Phases are registered once with {@link FrameProfiler#phase(String)} and then timed by id, either with
+ * {@link FrameProfiler#begin(int)}/{@link FrameProfiler#end()} or as a scope:
+ * <pre>{@code
+ * try (var _ = profiler.scope(TICK)) {
+ *     ...
+ * }
+ * }</pre>
+ * Scopes nest, a phase's time includes the time of the phases opened inside it. A phase entered several times in a
+ * frame is recorded as the sum. Nothing is allocated while timing, the scope returned is always the same object.
+ * <p>
+ * Statistics ({@link FrameProfiler#percentile(int, double)}, {@link FrameProfiler#max(int)}) are computed on demand
+ * from the ring buffer and are meant to be read a few times per second at most, not every frame.
+ *
+ * @see FrameProfiler#FRAME
+ */
+public final class FrameProfiler {
+    /** How many frames of history every phase keeps. */
+    public static final int HISTORY = 256;
+
+    private static final int MAX_PHASES = 64, MAX_DEPTH = 32;
+
+    /** The whole frame, always registered as phase {@code 0}. */
+    public static final int FRAME = 0;
+
+    private final List<String> phaseNames;
+    private final Map<String, Integer> phaseIds;
+
+    private final long[][] samples; // [phase][frame], a ring buffer indexed by cursor.
+    private final long[] current; // The time accumulated by each phase in the frame being recorded.
+    private int cursor, recordedFrames;
+
+    private final int[] stackPhases;
+    private final long[] stackStarts;
+    private int depth;
+
+    private final long[] scratch;
+    private final Scope scope;
+
+    public FrameProfiler() {
+        this.phaseNames = new ArrayList<>();
+        this.phaseIds = new HashMap<>();
+
+        this.samples = new long[MAX_PHASES][];
+        this.current = new long[MAX_PHASES];
+
+        this.stackPhases = new int[MAX_DEPTH];
+        this.stackStarts = new long[MAX_DEPTH];
+
+        this.scratch = new long[HISTORY];
+        this.scope = new Scope();
+
+        this.phase("frame");
+    }
+
+    /**
+     * Registers a phase, or looks up the id of an existing one.
+     *
+     * @param name the phase's name as displayed.
+     * @return the phase's id.
+     * @throws IllegalStateException if too many phases are registered.
+     */
+    public int phase(@NotNull String name) {
+        var existing = phaseIds.get(name);
+        if (existing != null) return existing;
+
+        int id = phaseNames.size();
+        if (id == MAX_PHASES) throw new IllegalStateException("Can't register more than " + MAX_PHASES + " profiler phases");
+
+        phaseNames.add(name);
+        phaseIds.put(name, id);
+        samples[id] = new long[HISTORY];
+
+        return id;
+    }
+
+    /**
+     * Starts recording a frame, the {@link FrameProfiler#FRAME} phase is opened.
+     */
+    public void beginFrame() {
+        this.depth = 0;
+        this.begin(FRAME);
+    }
+
+    /**
+     * Closes every phase still open and commits the frame's timings to the history.
+     */
+    public void endFrame() {
+        while (depth > 0) this.end();
+
+        for (int phase = 0; phase < phaseNames.size(); phase++) {
+            samples[phase][cursor] = current[phase];
+            current[phase] = 0;
+        }
+
+        this.cursor = (cursor + 1) % HISTORY;
+        if (recordedFrames < HISTORY) recordedFrames++;
+    }
+
+    public void begin(int phase) {
+        if (depth == MAX_DEPTH) throw new IllegalStateException("Profiler scopes are nested deeper than " + MAX_DEPTH);
+
+        stackPhases[depth] = phase;
+        stackStarts[depth] = System.nanoTime();
+        depth++;
+    }
+
+    /**
+     * Closes the innermost open phase.
+     */
+    public void end() {
+        if (depth == 0) throw new IllegalStateException("No profiler phase is open");
+
+        depth--;
+        current[stackPhases[depth]] += System.nanoTime() - stackStarts[depth];
+    }
+
+    /**
+     * Adds time measured elsewhere (such as on the GPU) to a phase of the frame being recorded.
+     */
+    public void record(int phase, long nanos) {
+        current[phase] += nanos;
+    }
+
+    /**
+     * Opens a phase that is closed with the returned scope, for use in a try-with-resources statement.
+     *
+     * @return a shared scope, closing it closes the innermost open phase.
+     */
+    public Scope scope(int phase) {
+        this.begin(phase);
+        return scope;
+    }
+
+    /**
+     * @return how many phases are registered, ids range from {@code 0} to this exclusive.
+     */
+    public int phaseCount() {
+        return phaseNames.size();
+    }
+
+    public String phaseName(int phase) {
+        return phaseNames.get(phase);
+    }
+
+    /**
+     * @param phase      the phase's id.
+     * @param percentile the percentile, {@code 0 < percentile <= 100}
+     * @return the phase's time at the given percentile over the recorded frames, in nanoseconds (nearest rank)
+     */
+    public long percentile(int phase, double percentile) {
+        if (recordedFrames == 0) return 0;
+
+        System.arraycopy(samples[phase], 0, scratch, 0, recordedFrames);
+        Arrays.sort(scratch, 0, recordedFrames);
+
+        int rank = (int) Math.ceil(percentile / 100.0 * recordedFrames);
+        return scratch[Math.clamp(rank - 1, 0, recordedFrames - 1)];
+    }
+
+    /**
+     * @return the phase's longest time over the recorded frames, in nanoseconds.
+     */
+    public long max(int phase) {
+        long max = 0;
+        for (int i = 0; i < recordedFrames; i++) max = Math.max(max, samples[phase][i]);
+
+        return max;
+    }
+
+    /**
+     * @return the phase's time in the last complete frame, in nanoseconds.
+     */
+    public long last(int phase) {
+        return samples[phase][(cursor + HISTORY - 1) % HISTORY];
+    }
+
+    public final class Scope implements AutoCloseable {
+        private Scope() {}
+
+        @Override
+        public void close() {
+            FrameProfiler.this.end();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package zodalix.ro.engine.profiler;
+
+import org.jetbrains.annotations.NotNull;
+import zodalix.ro.engine.renderer.RenderQueue;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Measures how long the GPU spends on each {@link RenderQueue.Layer} with {@code GL_TIME_ELAPSED} queries.
+ * <p>
+ * Queries are kept in a ring of {@link GpuProfiler#FRAMES_IN_FLIGHT} frames: the results of a frame are only read
+ * back when its slot comes around again, by which point the GPU has almost always finished it. If it hasn't, the
+ * frame's results are dropped rather than waited for, so profiling never stalls the pipeline.
+ * <p>
+ * Results are recorded into the {@link FrameProfiler} as {@code gpu <layer>} phases, next to the CPU timings.
+ * They lag a few frames behind, which doesn't matter for percentiles.
+ *
+ * @see RenderQueue
+ */
+public final class GpuProfiler {
+    public static final int FRAMES_IN_FLIGHT = 4;
+
+    private final FrameProfiler profiler;
+    private final int[] layerPhases;
+
+    private final Slot[] slots;
+    private int slot;
+    private int openLayer = -1;
+
+    private long droppedFrames;
+
+    /**
+     * Must be created on the render thread, once a GL context is current.
+     *
+     * @param profiler the profiler the GPU times are recorded into.
+     */
+    public GpuProfiler(@NotNull FrameProfiler profiler) {
+        this.profiler = profiler;
+
+        var layers = RenderQueue.Layer.values();
+        this.layerPhases = new int[layers.length];
+        for (var layer : layers) layerPhases[layer.ordinal()] = profiler.phase("gpu " + layer.name().toLowerCase());
+
+        this.slots = new Slot[FRAMES_IN_FLIGHT];
+        for (int i = 0; i < FRAMES_IN_FLIGHT; i++) slots[i] = new Slot();
+    }
+
+    /**
+     * Moves to the next slot of the ring, collecting the results it still holds from {@link GpuProfiler#FRAMES_IN_FLIGHT} frames ago.
+     */
+    public void beginFrame() {
+        this.slot = (slot + 1) % FRAMES_IN_FLIGHT;
+
+        var slot = slots[this.slot];
+        if (slot.count == 0) return;
+
+        // Queries complete in order, if the last one is available so are the others.
+        if (glGetQueryObjecti(slot.queries[slot.count - 1], GL_QUERY_RESULT_AVAILABLE) == GL_FALSE) {
+            droppedFrames++;
+        } else {
+            for (int i = 0; i < slot.count; i++)
+                profiler.record(layerPhases[slot.layers[i]], glGetQueryObjectui64(slot.queries[i], GL_QUERY_RESULT));
+        }
+
+        slot.count = 0;
+    }
+
+    /**
+     * Starts timing a layer, only one layer can be timed at a time.
+     */
+    public void begin(@NotNull RenderQueue.Layer layer) {
+        if (openLayer != -1) throw new IllegalStateException("GPU timing of layer " + RenderQueue.Layer.values()[openLayer] + " is still open");
+
+        var slot = slots[this.slot];
+        int query = slot.next(layer.ordinal());
+
+        this.openLayer = layer.ordinal();
+        glBeginQuery(GL_TIME_ELAPSED, query);
+    }
+
+    public void end() {
+        if (openLayer == -1) throw new IllegalStateException("No GPU timing is open");
+
+        glEndQuery(GL_TIME_ELAPSED);
+        this.openLayer = -1;
+    }
+
+    /**
+     * @return how many frames' results were dropped because the GPU hadn't finished them in time.
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public void dispose() {
+        for (var slot : slots) {
+            if (slot.queries.length > 0) glDeleteQueries(slot.queries);
+            slot.queries = new int[0];
+            slot.count = 0;
+        }
+    }
+
+    private static final class Slot {
+        private int[] queries = new int[0];
+        private int[] layers = new int[0];
+        private int count;
+
+        private int next(int layer) {
+            if (count == queries.length) {
+                int capacity = Math.max(queries.length * 2, RenderQueue.Layer.values().length);
+
+                this.queries = Arrays.copyOf(queries, capacity);
+                this.layers = Arrays.copyOf(layers, capacity);
+                for (int i = count; i < capacity; i++) queries[i] = glGenQueries();
+            }
+
+            layers[count] = layer;
+            return queries[count++];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package zodalix.ro.engine.profiler;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Keeps every frame's phase timings of a whole run, where the {@link FrameProfiler} only keeps the last
+ * {@link FrameProfiler#HISTORY} frames, so a replay can be summarized from start to end and compared with another build's.
+ * <p>
+ * Phases registered partway through the run count as {@code 0} in the frames before.
+ */
+public final class RunStatistics {
+    private final FrameProfiler profiler;
+
+    private long[][] samples; // [phase][frame]
+    private int frames;
+
+    public RunStatistics(@NotNull FrameProfiler profiler) {
+        this.profiler = profiler;
+        this.samples = new long[0][];
+    }
+
+    /**
+     * Takes the timings of the frame the profiler just committed.
+     */
+    public void sample() {
+        int phases = profiler.phaseCount();
+        if (samples.length < phases) {
+            int previous = samples.length;
+            this.samples = Arrays.copyOf(samples, phases);
+            for (int phase = previous; phase < phases; phase++)
+                samples[phase] = new long[Math.max(1024, previous == 0 ? 0 : samples[0].length)];
+        }
+
+        if (frames == samples[0].length)
+            for (int phase = 0; phase < samples.length; phase++) samples[phase] = Arrays.copyOf(samples[phase], frames * 2);
+
+        for (int phase = 0; phase < phases; phase++) samples[phase][frames] = profiler.last(phase);
+        frames++;
+    }
+
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * @return the phase's time at the given percentile over the run, in nanoseconds (nearest rank)
+     * @see FrameProfiler#percentile(int, double)
+     */
+    public long percentile(int phase, double percentile) {
+        if (frames == 0 || phase >= samples.length) return 0;
+
+        var sorted = Arrays.copyOf(samples[phase], frames);
+        Arrays.sort(sorted);
+
+        int rank = (int) Math.ceil(percentile / 100.0 * frames);
+        return sorted[Math.clamp(rank - 1, 0, frames - 1)];
+    }
+
+    public long max(int phase) {
+        long max = 0;
+        for (int i = 0; i < frames && phase < samples.length; i++) max = Math.max(max, samples[phase][i]);
+
+        return max;
+    }
+
+    public long mean(int phase) {
+        if (frames == 0 || phase >= samples.length) return 0;
+
+        long sum = 0;
+        for (int i = 0; i < frames; i++) sum += samples[phase][i];
+
+        return sum / frames;
+    }
+
+    /**
+     * Logs a line per phase.
+     */
+    public void log(@NotNull Logger logger) {
+        logger.info("{} frames", frames);
+        for (int phase = 0; phase < samples.length; phase++) {
+            logger.info("{}: mean {}ms p50 {}ms p95 {}ms p99 {}ms max {}ms", profiler.phaseName(phase),
+                    millis(this.mean(phase)), millis(this.percentile(phase, 50)), millis(this.percentile(phase, 95)),
+                    millis(this.percentile(phase, 99)), millis(this.max(phase)));
+        }
+    }
+
+    /**
+     * Writes the statistics as JSON, times in nanoseconds:
+     * <pre>{@code
+     * { "frames": 3600, "phases": { "frame": { "mean": ..., "p50": ..., "p95": ..., "p99": ..., "max": ... }, ... } }
+     * }</pre>
+     */
+    public void write(@NotNull Path file) throws IOException {
+        var phases = new JsonObject();
+        for (int phase = 0; phase < samples.length; phase++) {
+            var statistics = new JsonObject();
+            statistics.addProperty("mean", this.mean(phase));
+            statistics.addProperty("p50", this.percentile(phase, 50));
+            statistics.addProperty("p95", this.percentile(phase, 95));
+            statistics.addProperty("p99", this.percentile(phase, 99));
+            statistics.addProperty("max", this.max(phase));
+            phases.add(profiler.phaseName(phase), statistics);
+        }
+
+        var root = new JsonObject();
+        root.addProperty("frames", frames);
+        root.add("phases", phases);
+
+        var parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, new GsonBuilder().setPrettyPrinting().create().toJson(root));
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -13,6 +13,14 @@ public abstract sealed class Camera implements Tickable permits EntityAttachedCa
     public abstract float getFOV();
     public abstract Position getPosition();
 
+    /**
+     * @param alpha how far the simulation is between the previous tick and the next one.
+     * @return where the camera is looking from this frame, which may lie between two ticks.
+     */
+    public Position getRenderPosition(float alpha) {
+        return getPosition();
+    }
+
     protected final void notifyChanged() {
         RoguesOdyssey.instance().renderer.cameraChanged(this);
     }
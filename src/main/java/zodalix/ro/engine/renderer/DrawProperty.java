@@ -14,8 +14,10 @@ import java.awt.Color;
  * @see Rotation
  * @see Scale
  * @see Dimensions
+ * @see RenderLayer
+ * @see Depth
  */
-public sealed interface DrawProperty permits DrawProperty.ColorTransform, DrawProperty.Dimensions, DrawProperty.Rotation, DrawProperty.Scale, DrawProperty.StretchProperty {
+public sealed interface DrawProperty permits DrawProperty.ColorTransform, DrawProperty.Depth, DrawProperty.Dimensions, DrawProperty.RenderLayer, DrawProperty.Rotation, DrawProperty.Scale, DrawProperty.StretchProperty {
     /**
      * Describes what color should be applied to the texture in the GPU shader call.
      * @param color the color to apply
@@ -23,13 +25,13 @@ public sealed interface DrawProperty permits DrawProperty.ColorTransform, DrawPr
     record ColorTransform(Color color) implements DrawProperty { }
 
     /**
-     * When passed into a draw call, the angle is converted into radians and passed into the shader to process. The texture is then rendered at the desired rotation.
+     * When passed into a draw call, the angle is converted into radians and passed into the shader as a per-instance attribute. The texture is then rendered at the desired rotation.
      * @param degrees the angle to rotate with (in degrees)
      */
     record Rotation(float degrees) implements DrawProperty { }
 
     /**
-     * Describes how large the drawn texture should be. When passed into a draw call, the vertices are multiplied by the passed factor.
+     * Describes how large the drawn texture should be. When passed into a draw call, the sprite's half size is multiplied by the passed factor.
      * @param value how large the texture should be. {@code value > 0]}
      */
     record Scale(float value) implements DrawProperty { }
@@ -44,6 +46,20 @@ public sealed interface DrawProperty permits DrawProperty.ColorTransform, DrawPr
      */
     record Dimensions(float width, float height) implements DrawProperty {}
 
+    /**
+     * Overrides the {@link RenderQueue} layer the texture is drawn in, which otherwise depends on what is being drawn (a screen's GUI or its camera)
+     *
+     * @param layer the layer to draw in.
+     */
+    record RenderLayer(RenderQueue.Layer layer) implements DrawProperty {}
+
+    /**
+     * Orders the texture within its layer, higher depths are drawn on top of lower ones regardless of submission order.
+     *
+     * @param value the depth. {@code RenderQueue.MIN_DEPTH <= value <= RenderQueue.MAX_DEPTH}
+     */
+    record Depth(int value) implements DrawProperty {}
+
     static DrawProperty rotate(float angleDegrees) {
         return new Rotation(angleDegrees);
     }
@@ -74,6 +90,14 @@ public sealed interface DrawProperty permits DrawProperty.ColorTransform, DrawPr
         return new StretchProperty();
     }
 
+    static DrawProperty layer(RenderQueue.Layer layer) {
+        return new RenderLayer(layer);
+    }
+
+    static DrawProperty depth(int depth) {
+        return new Depth(depth);
+    }
+
     static DrawProperty[] of(DrawProperty... properties) {
         return properties;
     }
@@ -1,33 +1,42 @@
 package zodalix.ro.engine.renderer;
 
-import org.jetbrains.annotations.Nullable;
 import zodalix.ro.engine.entity.Entity;
-import zodalix.ro.engine.utils.Subscription;
+import zodalix.ro.engine.entity.EntityMovedEvent;
+import zodalix.ro.engine.event.EventChannel;
 import zodalix.ro.engine.utils.position.MutablePosition;
 import zodalix.ro.engine.utils.position.Position;
+import zodalix.ro.game.RoguesOdyssey;
 
 public non-sealed class EntityAttachedCamera extends Camera {
 
     private final Entity attachedEntity;
     private final MutablePosition lastKnownPosition;
 
-    private final @Nullable Subscription<Position> subscription;
+    private final EventChannel.Listener<EntityMovedEvent> listener;
 
-    public <E extends Entity & Entity.MovementSubscribable> EntityAttachedCamera(E entity) { // Perhaps use an entity reference system instead? What if the entity dies? o_O
+    public EntityAttachedCamera(Entity entity) { // Perhaps use an entity reference system instead? What if the entity dies? o_O
         this.attachedEntity = entity;
         this.lastKnownPosition = new MutablePosition(
           this.attachedEntity.position().x(),
           this.attachedEntity.position().y()
         );
 
-        this.subscription = entity.movementSubscribe(this::positionUpdated, () -> {});
+        // The matrices are recalculated once per tick the entity moved in, not once per move.
+        this.listener = EntityMovedEvent.channel(RoguesOdyssey.instance().eventBus).subscribe(entity, this::positionUpdated);
     }
 
-    private void positionUpdated(Position position) {
-        this.lastKnownPosition.setTo(this.attachedEntity.position()); // Would it really make a performance difference if we added a notification based system into Entity?
+    private void positionUpdated(EntityMovedEvent event) {
+        this.lastKnownPosition.setTo(event.to());
         this.notifyChanged();
     }
 
+    /**
+     * Stops following the entity's movements.
+     */
+    public void detach() {
+        this.listener.cancel();
+    }
+
 
     @Override
     public float getFOV() {
@@ -39,6 +48,11 @@ public non-sealed class EntityAttachedCamera extends Camera {
         return this.lastKnownPosition;
     }
 
+    @Override
+    public Position getRenderPosition(float alpha) {
+        return this.attachedEntity.renderPosition(alpha); // Follows the entity's interpolated position, not its last tick.
+    }
+
     @Override
     public void tick(float deltaTime) {
 
@@ -0,0 +1,209 @@
+package zodalix.ro.engine.renderer;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Shadows the parts of the OpenGL state the engine touches and only forwards actual changes to the driver.
+ * <p>
+ * Every engine draw path binds programs, textures, vertex arrays and buffers and toggles blending through this class
+ * instead of calling GL directly, and doesn't "unbind" afterward: the next draw simply binds what it needs, and if that's
+ * already bound nothing is sent at all. Filtering lives in sampler objects bound to the texture units, so it is no longer
+ * re-applied to the texture on every draw.
+ * <p>
+ * The cache is only correct as long as nothing changes the same state behind its back, objects must also be deleted
+ * through it so a recycled GL name isn't mistaken for a bound one.
+ *
+ * @see GameRenderer#glState()
+ */
+public final class GLStateCache {
+    /** How many texture units are tracked, the engine only samples from unit 0 for now. */
+    public static final int TEXTURE_UNITS = 4;
+
+    /**
+     * The filtering a texture unit samples with. Textures sampled with a mipmapped filter must set their
+     * {@code GL_TEXTURE_MAX_LEVEL} to the last level they have, or they aren't complete.
+     */
+    public enum Filter {
+        NEAREST(GL_NEAREST, GL_NEAREST), LINEAR(GL_LINEAR, GL_LINEAR),
+        /** Picks the closest mip when minifying, so baked mip chains are used, without blurring pixel art. */
+        NEAREST_MIPMAP(GL_NEAREST_MIPMAP_NEAREST, GL_NEAREST);
+
+        private final int glMinFilter, glMagFilter;
+
+        Filter(int glMinFilter, int glMagFilter) {
+            this.glMinFilter = glMinFilter;
+            this.glMagFilter = glMagFilter;
+        }
+    }
+
+    private final int[] samplers;
+
+    private int program, vertexArray, arrayBuffer, activeUnit;
+    private final int[] textures, unitSamplers;
+
+    private boolean blend;
+    private int blendSource = GL_ONE, blendDestination = GL_ZERO;
+
+    private int avoidedCalls, lastFrameAvoidedCalls;
+
+    GLStateCache() {
+        this.samplers = new int[Filter.values().length];
+        for (var filter : Filter.values()) {
+            int sampler = glGenSamplers();
+            glSamplerParameteri(sampler, GL_TEXTURE_MIN_FILTER, filter.glMinFilter);
+            glSamplerParameteri(sampler, GL_TEXTURE_MAG_FILTER, filter.glMagFilter);
+            glSamplerParameteri(sampler, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+            glSamplerParameteri(sampler, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+
+            this.samplers[filter.ordinal()] = sampler;
+        }
+
+        this.textures = new int[TEXTURE_UNITS];
+        this.unitSamplers = new int[TEXTURE_UNITS];
+        this.activeUnit = 0;
+    }
+
+    public void useProgram(int glProgram) {
+        if (this.program == glProgram) {
+            avoidedCalls++;
+            return;
+        }
+
+        this.program = glProgram;
+        glUseProgram(glProgram);
+    }
+
+    /**
+     * Binds a 2D texture to a texture unit, activating the unit only if the binding actually changes.
+     *
+     * @param unit         the texture unit, {@code 0 <= unit < TEXTURE_UNITS}
+     * @param glTextureId  the texture to bind.
+     */
+    public void bindTexture(int unit, int glTextureId) {
+        if (this.textures[unit] == glTextureId) {
+            avoidedCalls++;
+            return;
+        }
+
+        this.activeTexture(unit);
+        this.textures[unit] = glTextureId;
+        glBindTexture(GL_TEXTURE_2D, glTextureId);
+    }
+
+    /**
+     * Makes a texture unit sample with the given filter, regardless of the bound texture's own parameters.
+     */
+    public void bindSampler(int unit, Filter filter) {
+        int sampler = samplers[filter.ordinal()];
+        if (this.unitSamplers[unit] == sampler) {
+            avoidedCalls++;
+            return;
+        }
+
+        this.unitSamplers[unit] = sampler;
+        glBindSampler(unit, sampler);
+    }
+
+    public void bindVertexArray(int glVertexArrayId) {
+        if (this.vertexArray == glVertexArrayId) {
+            avoidedCalls++;
+            return;
+        }
+
+        this.vertexArray = glVertexArrayId;
+        glBindVertexArray(glVertexArrayId);
+    }
+
+    public void bindArrayBuffer(int glBufferId) {
+        if (this.arrayBuffer == glBufferId) {
+            avoidedCalls++;
+            return;
+        }
+
+        this.arrayBuffer = glBufferId;
+        glBindBuffer(GL_ARRAY_BUFFER, glBufferId);
+    }
+
+    /**
+     * Enables blending with the given factors.
+     *
+     * @see org.lwjgl.opengl.GL11#glBlendFunc(int, int)
+     */
+    public void enableBlend(int source, int destination) {
+        if (!this.blend) {
+            this.blend = true;
+            glEnable(GL_BLEND);
+        } else avoidedCalls++;
+
+        if (this.blendSource != source || this.blendDestination != destination) {
+            this.blendSource = source;
+            this.blendDestination = destination;
+            glBlendFunc(source, destination);
+        } else avoidedCalls++;
+    }
+
+    public void disableBlend() {
+        if (!this.blend) {
+            avoidedCalls++;
+            return;
+        }
+
+        this.blend = false;
+        glDisable(GL_BLEND);
+    }
+
+    public void deleteTexture(int glTextureId) {
+        for (int unit = 0; unit < TEXTURE_UNITS; unit++)
+            if (textures[unit] == glTextureId) textures[unit] = 0;
+
+        glDeleteTextures(glTextureId);
+    }
+
+    public void deleteVertexArray(int glVertexArrayId) {
+        if (this.vertexArray == glVertexArrayId) this.vertexArray = 0;
+        glDeleteVertexArrays(glVertexArrayId);
+    }
+
+    public void deleteBuffer(int glBufferId) {
+        if (this.arrayBuffer == glBufferId) this.arrayBuffer = 0;
+        glDeleteBuffers(glBufferId);
+    }
+
+    public void deleteProgram(int glProgram) {
+        if (this.program == glProgram) this.program = 0;
+        glDeleteProgram(glProgram);
+    }
+
+    private void activeTexture(int unit) {
+        if (this.activeUnit == unit) return;
+
+        this.activeUnit = unit;
+        glActiveTexture(GL_TEXTURE0 + unit);
+    }
+
+    /**
+     * Rolls over the avoided call counter.
+     *
+     * @see GLStateCache#getLastFrameAvoidedCalls()
+     */
+    void endFrame() {
+        this.lastFrameAvoidedCalls = this.avoidedCalls;
+        this.avoidedCalls = 0;
+    }
+
+    /**
+     * @return how many GL calls were skipped in the last complete frame because the state was already set.
+     */
+    public int getLastFrameAvoidedCalls() {
+        return lastFrameAvoidedCalls;
+    }
+
+    public void dispose() {
+        for (int unit = 0; unit < TEXTURE_UNITS; unit++) glBindSampler(unit, 0);
+        for (int sampler : samplers) glDeleteSamplers(sampler);
+
+        Arrays.fill(unitSamplers, 0);
+    }
+}
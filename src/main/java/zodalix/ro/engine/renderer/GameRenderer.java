@@ -6,6 +6,9 @@ import org.joml.Vector4f;
 import org.lwjgl.glfw.GLFWWindowSizeCallbackI;
 import org.lwjgl.system.MemoryUtil;
 import zodalix.ro.engine.Tickable;
+import zodalix.ro.engine.utils.NamespacedKey;
+import zodalix.ro.engine.profiler.FrameProfiler;
+import zodalix.ro.engine.profiler.GpuProfiler;
 import zodalix.ro.engine.screen.CameraAwareGameScreen;
 import zodalix.ro.engine.screen.TabScreen;
 import zodalix.ro.game.RoguesOdyssey;
@@ -14,9 +17,18 @@ import zodalix.ro.engine.screen.GameScreen;
 import zodalix.ro.engine.screen.InputListeningGameScreen;
 import zodalix.ro.engine.screen.ui.elements.text.Text;
 import zodalix.ro.engine.screen.ui.elements.text.TextComponent;
+import zodalix.ro.engine.screen.ui.elements.text.TextTemplate;
 
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
 import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL33.*;
@@ -35,17 +47,38 @@ import static org.lwjgl.system.MemoryStack.stackPush;
  */
 public class GameRenderer implements Tickable {
 
+    // The profiler's phase table is set in a monospaced TrueType font, so its numbers line up in columns.
+    private static final NamespacedKey DEBUG_FONT = NamespacedKey.getDefault("text/mono");
+
     private boolean isFullScreen;
 
     private Text debugText, ramText, frameInfoText;
+    private final List<Text> phaseTexts;
+
+    // Parsed once, the debug texts only have their numbers replaced every second.
+    private final TextTemplate frameTemplate, frameInfoTemplate, ramTemplate;
+    private final List<TextTemplate> phaseTemplates;
     private boolean showDebugInfo = false;
 
+    private final FrameProfiler profiler;
+    private final int queuePhase;
+    private final Map<Class<? extends GameScreen>, Integer> screenPhases;
+
     private final Matrix4f projectionMatrix, viewMatrix, renderMatrix;
+    private GLStateCache glState;
+    private QuadMesh quadMesh;
+    private SpriteBatch spriteBatch;
+    private RenderQueue renderQueue;
+    private GpuProfiler gpuProfiler;
     private boolean shouldOverlay;
     private GameScreen currentScreen, overlayingScreen;
 
     private volatile int lastKnownWindowWidth, lastKnownWindowHeight;
 
+    private float tickAlpha;
+
+    private final Queue<Runnable> pendingReleases;
+
     public int getLastKnownWindowWidth() {
         return lastKnownWindowWidth;
     }
@@ -54,6 +87,14 @@ public class GameRenderer implements Tickable {
         return lastKnownWindowHeight;
     }
 
+    /**
+     * @return how far the simulation is between the previous tick and the next one in the frame being drawn, entities interpolate their position with it.
+     * @see zodalix.ro.engine.entity.Entity#renderPosition(float)
+     */
+    public float getTickAlpha() {
+        return tickAlpha;
+    }
+
     public GameRenderer(RoguesOdyssey instance) {
         this.currentScreen = null;
         this.shouldOverlay = false;
@@ -65,15 +106,33 @@ public class GameRenderer implements Tickable {
 
         this.renderMatrix = new Matrix4f();
         this.viewMatrix = new Matrix4f();
+
+        this.pendingReleases = new ConcurrentLinkedQueue<>();
+
+        this.profiler = instance.profiler;
+        this.queuePhase = profiler.phase("render queue");
+        this.screenPhases = new HashMap<>();
+        this.phaseTexts = new ArrayList<>();
+        this.phaseTemplates = new ArrayList<>();
+
+        this.frameTemplate = TextTemplate.compile("<white shadow>Frame <cyan shadow>p50 {}ms <cyan shadow>p95 {}ms <pink bold>p99 {}ms <white shadow>max {}ms");
+        this.frameInfoTemplate = TextTemplate.compile("<white shadow>Draw calls (bg/world/gui/debug): <cyan shadow>{}/{}/{}/{} <white shadow>GL calls avoided: <cyan shadow>{}");
+        this.ramTemplate = TextTemplate.compile("<shadow>On-heap: <orange shadow bold>{}MB<break>  <shadow>Off-heap: <orange shadow bold>{}MB<break>  <shadow>Textures: <orange shadow bold>{}/{}MB <shadow>({} hits, {} misses, {} evicted)");
     }
 
     /**
      * Called after initialization to set up debug information on the screen.
-     * This method creates and positions text elements to display frame and memory usage information.
+     * This method creates the {@link GLStateCache}, the shared {@link QuadMesh}, {@link SpriteBatch}, {@link GpuProfiler} and {@link RenderQueue}, and positions text elements to display frame and memory usage information.
      *
      * @see RoguesOdyssey#startGame()
      */
     public void postInit() {
+        this.glState = new GLStateCache();
+        this.quadMesh = new QuadMesh(glState);
+        this.spriteBatch = new SpriteBatch(glState, quadMesh);
+        this.gpuProfiler = new GpuProfiler(profiler);
+        this.renderQueue = new RenderQueue(spriteBatch, gpuProfiler);
+
         this.debugText = new Text(-9.5f, 9.5f, .5f, TextComponent.text("No data on last frame."));
         this.debugText.setDrawStyle(Text.DrawStyle.ABSOLUTE);
 
@@ -84,6 +143,34 @@ public class GameRenderer implements Tickable {
         this.ramText.setDrawStyle(Text.DrawStyle.ABSOLUTE);
     }
 
+    /**
+     * @return the tracker every engine draw path changes GL state through, {@code null} before {@link GameRenderer#postInit()}.
+     */
+    public GLStateCache glState() {
+        return glState;
+    }
+
+    /**
+     * @return the unit quad shared by every sprite and glyph, {@code null} before {@link GameRenderer#postInit()}.
+     */
+    public QuadMesh quadMesh() {
+        return quadMesh;
+    }
+
+    /**
+     * @return the batch every textured quad is drawn through, {@code null} before {@link GameRenderer#postInit()}.
+     */
+    public SpriteBatch spriteBatch() {
+        return spriteBatch;
+    }
+
+    /**
+     * @return the queue every draw command of the frame is submitted to, {@code null} before {@link GameRenderer#postInit()}.
+     */
+    public RenderQueue renderQueue() {
+        return renderQueue;
+    }
+
     /**
      * @return the currently active {@link GameScreen}, or {@code null} if no screen is active.
      */
@@ -109,45 +196,103 @@ public class GameRenderer implements Tickable {
      * @param fadeFactor the transition factor for screen changes (currently not used).
      */
     public void setCurrentScreen(GameScreen newScreen, float fadeFactor) {
-
+        var previous = this.currentScreen;
+        var previousBackground = this.shouldOverlay ? this.overlayingScreen : null;
 
         //noinspection AssignmentUsedAsCondition
         if ((this.shouldOverlay = newScreen.isOverlayScreen() && currentScreen != null)) {
             this.overlayingScreen = this.currentScreen;
         }
 
+        // Screens that are no longer drawn, neither as the current screen nor as an overlay's background.
+        if (previous != null && previous != newScreen && !(shouldOverlay && previous == overlayingScreen)) previous.dispose();
+        if (previousBackground != null && !(shouldOverlay && previousBackground == overlayingScreen)) previousBackground.dispose();
+
         this.currentScreen = newScreen;
         if (this.currentScreen instanceof CameraAwareGameScreen camAware)
             this.recalculateMatrices(camAware.camera());
 
+        RoguesOdyssey.instance().assetManager.screenChanged(newScreen.getClass().getSimpleName());
+
     }
 
     /**
      * Renders the current game screen. It also displays
      * debug information if enabled.
+     * <p>
+     * Screens don't draw immediately but submit to the {@link RenderQueue}: a screen's own content goes to the
+     * {@link RenderQueue.Layer#GUI} layer and its camera content to {@link RenderQueue.Layer#WORLD}, unless a draw call
+     * asks for a specific layer. The queue is then sorted and executed once.
+     *
+     * @param deltaTime the real time since the last frame.
+     * @param tickAlpha how far the simulation is between the previous tick and the next one.
      */
-    public void render(float deltaTime) {
+    public void render(float deltaTime, float tickAlpha) {
         if (this.currentScreen == null) return;
 
+        this.tickAlpha = tickAlpha;
+        this.gpuProfiler.beginFrame();
+        if (this.currentScreen instanceof CameraAwareGameScreen camAware)
+            this.recalculateMatrices(camAware.camera()); // The camera moves between ticks too.
+
         if (shouldOverlay) {
-            overlayingScreen.draw(projectionMatrix, deltaTime);
-            if (this.overlayingScreen instanceof CameraAwareGameScreen camAwareOverlay) {
-                camAwareOverlay.drawCamera(renderMatrix, deltaTime);
+            this.submitScreen(overlayingScreen, deltaTime);
+            try (var _ = profiler.scope(queuePhase)) {
+                this.renderQueue.execute(); // Nothing of the overlay may sort underneath the screen it covers.
             } // Overlaying might be removed soon.
         }
 
-        this.currentScreen.draw(projectionMatrix, deltaTime);
-        if (this.currentScreen instanceof CameraAwareGameScreen cameraAwareGameScreen) {
-            cameraAwareGameScreen.drawCamera(renderMatrix, deltaTime);
-        }
+        this.submitScreen(currentScreen, deltaTime);
 
         if (showDebugInfo) {
+            this.renderQueue.setDefaultLayer(RenderQueue.Layer.DEBUG);
             this.debugText.draw(null, 0f, 0f, projectionMatrix, deltaTime);
             this.frameInfoText.draw(null, 0f, 0f, projectionMatrix, deltaTime);
             this.ramText.draw(null, 0f, 0f, projectionMatrix, deltaTime);
+            for (var phaseText : phaseTexts) phaseText.draw(null, 0f, 0f, projectionMatrix, deltaTime);
+        }
+
+        try (var _ = profiler.scope(queuePhase)) {
+            this.renderQueue.execute();
+        }
+
+        this.spriteBatch.endFrame();
+        this.renderQueue.endFrame();
+        this.glState.endFrame();
+
+        Runnable release;
+        while ((release = pendingReleases.poll()) != null) release.run();
+    }
+
+    private void submitScreen(GameScreen screen, float deltaTime) {
+        Integer phase = screenPhases.get(screen.getClass());
+        if (phase == null) {
+            phase = profiler.phase("render " + screen.getClass().getSimpleName());
+            screenPhases.put(screen.getClass(), phase);
+        }
+
+        try (var _ = profiler.scope(phase)) {
+            this.renderQueue.setDefaultLayer(RenderQueue.Layer.GUI);
+            screen.draw(projectionMatrix, deltaTime);
+
+            if (screen instanceof CameraAwareGameScreen cameraAwareGameScreen) {
+                this.renderQueue.setDefaultLayer(RenderQueue.Layer.WORLD);
+                cameraAwareGameScreen.drawCamera(renderMatrix, deltaTime);
+            }
         }
     }
 
+    /**
+     * Queues the release of GL objects to run on the render thread at the end of the current frame.
+     * <p>
+     * This is meant for objects whose owner can be garbage collected from any thread, such as a {@link java.lang.ref.Cleaner} action.
+     *
+     * @param release the action deleting the GL objects.
+     */
+    public void releaseLater(Runnable release) {
+        this.pendingReleases.add(release);
+    }
+
     /**
      * Adjusts the rendering viewport and projection matrix when the game window is resized.
      * This method is triggered by the GLFW window size callback.
@@ -176,13 +321,13 @@ public class GameRenderer implements Tickable {
 
         float mouseX, mouseY;
         {
-            double[] mouseXA = new double[1], mouseYA = new double[1];
-            glfwGetCursorPos(RoguesOdyssey.instance().windowHandle, mouseXA, mouseYA);
+            // The cursor position the input handler tracked up to this event, no need to ask GLFW.
+            var inputHandler = RoguesOdyssey.instance().inputHandler;
 
             int width = this.getLastKnownWindowWidth(), height = this.getLastKnownWindowHeight();
 
-            float ndcX = (float) (2.0 * mouseXA[0] / width - 1.0);
-            float ndcY = (float) (1.0 - 2.0 * mouseYA[0] / height);
+            float ndcX = 2f * inputHandler.cursorX() / width - 1f;
+            float ndcY = 1f - 2f * inputHandler.cursorY() / height;
 
             var copyPM = new Matrix4f(projectionMatrix);
             copyPM.invert();
@@ -274,16 +419,42 @@ public class GameRenderer implements Tickable {
     }
 
     /**
-     * Displays the FPS, frame-time, and render-time information on the screen.
+     * Displays the frame-time percentiles of every profiled phase, the draw calls and the memory usage on the screen.
      * This is part of the debug information displayed when debug mode is enabled.
      *
-     * @param fps        the current frames per second.
-     * @param frametime  the time taken to render the previous frame in milliseconds.
-     * @param renderDiff the time taken to render the current frame in milliseconds.
+     * @param profiler the profiler recording the game loop.
      */
-    public void displayFPS(long fps, long frametime, long renderDiff) {
-        debugText.setText(TextComponent.composedText("<cyan shadow>{} FPS", fps));
-        frameInfoText.setText(TextComponent.composedText("<white shadow>Frame-time: <cyan shadow>{}ms <white shadow>Rendering took: <pink bold>{}ms", frametime, renderDiff));
+    public void displayFrameStats(FrameProfiler profiler) {
+        setMillis(frameTemplate, 0, profiler.percentile(FrameProfiler.FRAME, 50));
+        setMillis(frameTemplate, 1, profiler.percentile(FrameProfiler.FRAME, 95));
+        setMillis(frameTemplate, 2, profiler.percentile(FrameProfiler.FRAME, 99));
+        setMillis(frameTemplate, 3, profiler.max(FrameProfiler.FRAME));
+        debugText.setText(frameTemplate);
+
+        for (int phase = 1; phase < profiler.phaseCount(); phase++) {
+            if (phaseTexts.size() < phase) {
+                var phaseTemplate = TextTemplate.compile("<white shadow>{}: <cyan shadow>p50 {}ms p95 {}ms <pink shadow>p99 {}ms <white shadow>max {}ms");
+                var phaseText = new Text(-9.5f, 6.4f - (phase - 1) * .6f, .37f, phaseTemplate);
+                phaseText.setDrawStyle(Text.DrawStyle.ABSOLUTE);
+                phaseText.setFont(RoguesOdyssey.instance().assetManager.getFont(DEBUG_FONT));
+                phaseTexts.add(phaseText);
+                phaseTemplates.add(phaseTemplate);
+            }
+
+            var phaseTemplate = phaseTemplates.get(phase - 1).set(0, profiler.phaseName(phase));
+            setMillis(phaseTemplate, 1, profiler.percentile(phase, 50));
+            setMillis(phaseTemplate, 2, profiler.percentile(phase, 95));
+            setMillis(phaseTemplate, 3, profiler.percentile(phase, 99));
+            setMillis(phaseTemplate, 4, profiler.max(phase));
+        }
+
+        frameInfoTemplate
+                .set(0, renderQueue.getLastFrameDrawCalls(RenderQueue.Layer.BACKGROUND))
+                .set(1, renderQueue.getLastFrameDrawCalls(RenderQueue.Layer.WORLD))
+                .set(2, renderQueue.getLastFrameDrawCalls(RenderQueue.Layer.GUI))
+                .set(3, renderQueue.getLastFrameDrawCalls(RenderQueue.Layer.DEBUG))
+                .set(4, glState.getLastFrameAvoidedCalls());
+        frameInfoText.setText(frameInfoTemplate);
 
         {
             Runtime runtime = Runtime.getRuntime();
@@ -291,14 +462,33 @@ public class GameRenderer implements Tickable {
             long totalMemory = runtime.totalMemory();
             long usedMemory = totalMemory - runtime.freeMemory();
 
-            try {
-                var offHeapMemory = ((Long) java.lang.management.ManagementFactory.getPlatformMBeanServer().getAttribute(new javax.management.ObjectName("java.nio:type=BufferPool,name=direct"), "MemoryUsed")) / (1024 * 1024);
-                ramText.setText(TextComponent.composedText("<shadow>On-heap: <orange shadow bold>{}MB<break>  <shadow>Off-heap: <orange shadow bold>{}MB", (usedMemory / 1024 / 1024), offHeapMemory));
-            } catch (Throwable _) {
-            }
+            var textures = RoguesOdyssey.instance().assetManager.getTextureCacheStats();
+            ramTemplate
+                    .set(0, usedMemory / 1024 / 1024)
+                    .set(1, directMemoryUsed() / 1024 / 1024)
+                    .set(2, textures.residentBytes() / 1024 / 1024)
+                    .set(3, textures.budgetBytes() / 1024 / 1024)
+                    .set(4, textures.hits())
+                    .set(5, textures.misses())
+                    .set(6, textures.evictions());
+            ramText.setText(ramTemplate);
         }
     }
 
+    /**
+     * @return the bytes held by direct buffers, LWJGL's allocations aren't included.
+     */
+    private static long directMemoryUsed() {
+        for (final var pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+            if (pool.getName().equals("direct")) return pool.getMemoryUsed();
+
+        return 0;
+    }
+
+
+    private static void setMillis(TextTemplate template, int slot, long nanos) {
+        template.set(slot, nanos / 1_000_000.0, 2);
+    }
 
     @Override
     public void tick(float deltaTime) {
@@ -325,7 +515,8 @@ public class GameRenderer implements Tickable {
             float top = scale;
 
             this.projectionMatrix.identity().setOrtho(left, right, bottom, top, -1.0f, 1.0f);
-            this.viewMatrix.identity().translate(-camera.getPosition().x() * aspectRatio, -camera.getPosition().y(), 0.0f);
+            var cameraPosition = camera.getRenderPosition(tickAlpha);
+            this.viewMatrix.identity().translate(-cameraPosition.x() * aspectRatio, -cameraPosition.y(), 0.0f);
 
             this.renderMatrix.set(projectionMatrix).mul(viewMatrix);
         } else
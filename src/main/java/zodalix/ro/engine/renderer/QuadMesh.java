@@ -0,0 +1,78 @@
+package zodalix.ro.engine.renderer;
+
+import org.jetbrains.annotations.Contract;
+import org.lwjgl.system.MemoryStack;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * The unit quad every sprite and glyph is drawn with, stored once on the GPU.
+ * <p>
+ * The quad spans {@code [-1, 1]} on both axes and is drawn as a triangle strip (bottom-left, bottom-right, top-left, top-right).
+ * Everything that differs between two sprites (where they are, how large they are, which part of the texture they show,
+ * their color and rotation) is an <b>instance attribute</b> laid out as described by the {@code *_LOCATION} constants,
+ * which matches the inputs of the {@code ro:shader/textured} vertex shader.
+ *
+ * @see VertexArray
+ * @see SpriteBatch
+ */
+public final class QuadMesh {
+    /** Per vertex: the quad's corner in {@code [-1, 1]} and the matching corner in texture space {@code [0, 1]} */
+    public static final int CORNER_LOCATION = 0, CORNER_UV_LOCATION = 1;
+
+    /** Per instance: center (vec2), half size (vec2), uv rectangle (vec4: u0, v0, u1, v1), color (vec4), rotation in radians (float) */
+    public static final int CENTER_LOCATION = 2, HALF_SIZE_LOCATION = 3, UV_RECT_LOCATION = 4, COLOR_LOCATION = 5, ROTATION_LOCATION = 6;
+
+    public static final int FLOATS_PER_INSTANCE = 2 + 2 + 4 + 4 + 1;
+    public static final int INSTANCE_STRIDE_BYTES = FLOATS_PER_INSTANCE * Float.BYTES;
+
+    public static final int VERTEX_COUNT = 4;
+
+    private static final int FLOATS_PER_VERTEX = 4;
+
+    private final GLStateCache glState;
+    private final int vertexBuffer;
+
+    QuadMesh(GLStateCache glState) {
+        this.glState = glState;
+        this.vertexBuffer = glGenBuffers();
+
+        try (var stack = MemoryStack.stackPush()) {
+            var vertices = stack.floats(
+                    -1f, -1f, 0f, 0f,
+                    1f, -1f, 1f, 0f,
+                    -1f, 1f, 0f, 1f,
+                    1f, 1f, 1f, 1f
+            );
+
+            glState.bindArrayBuffer(vertexBuffer);
+            glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+        }
+    }
+
+    /**
+     * Creates a vertex array that reads the shared quad per vertex and the sprite instance layout from {@code instanceBuffer}.
+     * <p>
+     * The returned array is meant to be kept for as long as the instance buffer lives, not recreated per draw.
+     *
+     * @param instanceBuffer a buffer object holding tightly packed instances of {@link QuadMesh#FLOATS_PER_INSTANCE} floats each.
+     * @return a new vertex array.
+     */
+    @Contract("_ -> new")
+    public VertexArray newInstancedVertexArray(int instanceBuffer) {
+        final int vertexStride = FLOATS_PER_VERTEX * Float.BYTES;
+
+        return new VertexArray(glState)
+                .attribute(vertexBuffer, CORNER_LOCATION, 2, vertexStride, 0, 0)
+                .attribute(vertexBuffer, CORNER_UV_LOCATION, 2, vertexStride, 2 * Float.BYTES, 0)
+                .attribute(instanceBuffer, CENTER_LOCATION, 2, INSTANCE_STRIDE_BYTES, 0, 1)
+                .attribute(instanceBuffer, HALF_SIZE_LOCATION, 2, INSTANCE_STRIDE_BYTES, 2 * Float.BYTES, 1)
+                .attribute(instanceBuffer, UV_RECT_LOCATION, 4, INSTANCE_STRIDE_BYTES, 4 * Float.BYTES, 1)
+                .attribute(instanceBuffer, COLOR_LOCATION, 4, INSTANCE_STRIDE_BYTES, 8 * Float.BYTES, 1)
+                .attribute(instanceBuffer, ROTATION_LOCATION, 1, INSTANCE_STRIDE_BYTES, 12 * Float.BYTES, 1);
+    }
+
+    public void dispose() {
+        glState.deleteBuffer(vertexBuffer);
+    }
+}
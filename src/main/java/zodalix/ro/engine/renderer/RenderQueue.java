@@ -0,0 +1,289 @@
+package zodalix.ro.engine.renderer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix4f;
+import zodalix.ro.engine.asset.GameShader;
+import zodalix.ro.engine.asset.GameTexture;
+import zodalix.ro.engine.profiler.GpuProfiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the draw commands of a frame and executes them sorted, instead of drawing in whatever order the screens
+ * and entities happen to be visited in.
+ * <p>
+ * Every command carries a 64-bit sort key made of (from most to least significant) its {@link Layer}, its depth, its
+ * shader, its texture and the order it was submitted in. Sorting the keys groups commands sharing a shader and texture
+ * together, so the {@link SpriteBatch} can merge sprites from different entities into one draw call, while the layer
+ * and depth still decide what ends up on top. Commands that tie on everything are executed in submission order.
+ * <p>
+ * Each layer's GPU time is measured by the {@link GpuProfiler} as it is executed.
+ * <p>
+ * Sprites are stored by value in the queue, arbitrary GPU work (such as a {@link zodalix.ro.engine.screen.ui.elements.text.Text}'s
+ * retained glyph mesh) can be submitted as a {@link Command}.
+ *
+ * @see GameRenderer#renderQueue()
+ * @see DrawProperty#layer(Layer)
+ * @see DrawProperty#depth(int)
+ */
+public final class RenderQueue {
+
+    /**
+     * The coarse passes of a frame, drawn in declaration order.
+     */
+    public enum Layer {
+        BACKGROUND, WORLD, GUI, DEBUG;
+
+        private static final Layer[] VALUES = values();
+    }
+
+    /**
+     * Custom GPU work executed in the sorted position of its key.
+     * <p>
+     * The sprite batch is flushed before a command runs, so whatever was sorted before it stays underneath.
+     */
+    @FunctionalInterface
+    public interface Command {
+        void execute();
+    }
+
+    /** The range of depths within a layer, commands with a higher depth are drawn on top. */
+    public static final int MIN_DEPTH = -128, MAX_DEPTH = 127;
+
+    // Depth sits above shader and texture on purpose. There is no depth buffer and every layer is alpha blended, so
+    // draw order is the only thing deciding what covers what: sorting by state first would let a sprite whose
+    // shader or texture id happens to be larger paint over one submitted at a higher depth. No layer is opaque, so
+    // there is none where (layer, shader, texture, depth) would be safe. Sprites at the same depth still group by
+    // shader and texture, which is where the batching comes from since most draws keep the default depth of 0.
+    private static final int INDEX_BITS = 20, TEXTURE_BITS = 16, SHADER_BITS = 10, DEPTH_BITS = 8;
+    private static final int TEXTURE_SHIFT = INDEX_BITS,
+            SHADER_SHIFT = TEXTURE_SHIFT + TEXTURE_BITS,
+            DEPTH_SHIFT = SHADER_SHIFT + SHADER_BITS,
+            LAYER_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+
+    private static final int MAX_COMMANDS = 1 << INDEX_BITS;
+    private static final long INDEX_MASK = MAX_COMMANDS - 1;
+
+    private final SpriteBatch spriteBatch;
+    private final GpuProfiler gpuProfiler;
+
+    private long[] keys;
+    private float[] instances;
+    private GameShader[] shaders;
+    private GameTexture[] textures;
+    private Command[] commands;
+    private int[] matrixIndices;
+    private int count;
+
+    private final List<Matrix4f> matrices; // Pooled across frames, only the first matrixCount are in use.
+    private int matrixCount;
+
+    private Layer defaultLayer;
+
+    private final int[] drawCalls, lastFrameDrawCalls;
+
+    RenderQueue(SpriteBatch spriteBatch, GpuProfiler gpuProfiler) {
+        this.spriteBatch = spriteBatch;
+        this.gpuProfiler = gpuProfiler;
+
+        final int initialCapacity = 256;
+        this.keys = new long[initialCapacity];
+        this.instances = new float[initialCapacity * QuadMesh.FLOATS_PER_INSTANCE];
+        this.shaders = new GameShader[initialCapacity];
+        this.textures = new GameTexture[initialCapacity];
+        this.commands = new Command[initialCapacity];
+        this.matrixIndices = new int[initialCapacity];
+
+        this.matrices = new ArrayList<>();
+        this.defaultLayer = Layer.WORLD;
+
+        this.drawCalls = new int[Layer.VALUES.length];
+        this.lastFrameDrawCalls = new int[Layer.VALUES.length];
+    }
+
+    /**
+     * Sets the layer used by submissions that don't specify one.
+     * <p>
+     * {@link GameRenderer} sets this before handing control to a screen, which is how a screen's GUI and its camera
+     * content end up in different layers without every draw call spelling it out.
+     */
+    public void setDefaultLayer(@NotNull Layer layer) {
+        this.defaultLayer = layer;
+    }
+
+    public Layer getDefaultLayer() {
+        return defaultLayer;
+    }
+
+    /**
+     * Queues a sprite, the arguments match {@link SpriteBatch#draw(GameShader, GameTexture, Matrix4f, float, float, float, float, float, float, float, float, float, float, float, float, float)}
+     *
+     * @param layer the layer to draw in, {@code null} for the {@linkplain RenderQueue#setDefaultLayer(Layer) default layer}.
+     * @param depth the depth within the layer, clamped to {@code [MIN_DEPTH, MAX_DEPTH]}
+     */
+    public void submit(@Nullable Layer layer, int depth,
+                       @NotNull GameShader shader, @NotNull GameTexture texture, @NotNull Matrix4f projectionMatrix,
+                       float x, float y, float halfWidth, float halfHeight,
+                       float u0, float v0, float u1, float v1,
+                       float rotationRadians, float red, float green, float blue, float alpha) {
+        texture.markUsed(); // Before reading its id, an evicted texture reloads and samples the placeholder meanwhile.
+        int index = this.reserve(layer, depth, shader.glShaderProgram, texture.getGlTextureId());
+
+        this.shaders[index] = shader;
+        this.textures[index] = texture;
+        this.matrixIndices[index] = this.matrixIndex(projectionMatrix);
+
+        final var instances = this.instances;
+        int offset = index * QuadMesh.FLOATS_PER_INSTANCE;
+        instances[offset] = x;
+        instances[offset + 1] = y;
+        instances[offset + 2] = halfWidth;
+        instances[offset + 3] = halfHeight;
+        instances[offset + 4] = u0;
+        instances[offset + 5] = v0;
+        instances[offset + 6] = u1;
+        instances[offset + 7] = v1;
+        instances[offset + 8] = red;
+        instances[offset + 9] = green;
+        instances[offset + 10] = blue;
+        instances[offset + 11] = alpha;
+        instances[offset + 12] = rotationRadians;
+    }
+
+    /**
+     * Queues custom GPU work.
+     *
+     * @param layer   the layer to draw in, {@code null} for the {@linkplain RenderQueue#setDefaultLayer(Layer) default layer}.
+     * @param depth   the depth within the layer, clamped to {@code [MIN_DEPTH, MAX_DEPTH]}
+     * @param shader  the shader the command draws with, only used for sorting.
+     * @param texture the texture the command samples, only used for sorting.
+     * @param command the work to execute.
+     */
+    public void submit(@Nullable Layer layer, int depth, @NotNull GameShader shader, @NotNull GameTexture texture, @NotNull Command command) {
+        texture.markUsed();
+        this.submit(layer, depth, shader, texture.getGlTextureId(), command);
+    }
+
+    /**
+     * Queues custom GPU work sampling a texture the asset manager doesn't track, such as a font page.
+     *
+     * @param glTextureId the GL texture the command samples, only used for sorting.
+     * @see RenderQueue#submit(Layer, int, GameShader, GameTexture, Command)
+     */
+    public void submit(@Nullable Layer layer, int depth, @NotNull GameShader shader, int glTextureId, @NotNull Command command) {
+        int index = this.reserve(layer, depth, shader.glShaderProgram, glTextureId);
+        this.commands[index] = command;
+    }
+
+    private int reserve(@Nullable Layer layer, int depth, int shaderId, int textureId) {
+        if (count == MAX_COMMANDS) throw new IllegalStateException("More than " + MAX_COMMANDS + " draw commands were queued in a single frame");
+        if (count == keys.length) this.grow();
+
+        if (layer == null) layer = defaultLayer;
+        depth = Math.clamp(depth, MIN_DEPTH, MAX_DEPTH) - MIN_DEPTH;
+
+        int index = count++;
+        this.keys[index] = (long) layer.ordinal() << LAYER_SHIFT
+                | (long) depth << DEPTH_SHIFT
+                | (long) (shaderId & ((1 << SHADER_BITS) - 1)) << SHADER_SHIFT
+                | (long) (textureId & ((1 << TEXTURE_BITS) - 1)) << TEXTURE_SHIFT
+                | index;
+
+        return index;
+    }
+
+    private void grow() {
+        int capacity = Math.min(keys.length * 2, MAX_COMMANDS);
+
+        this.keys = Arrays.copyOf(keys, capacity);
+        this.instances = Arrays.copyOf(instances, capacity * QuadMesh.FLOATS_PER_INSTANCE);
+        this.shaders = Arrays.copyOf(shaders, capacity);
+        this.textures = Arrays.copyOf(textures, capacity);
+        this.commands = Arrays.copyOf(commands, capacity);
+        this.matrixIndices = Arrays.copyOf(matrixIndices, capacity);
+    }
+
+    /**
+     * Snapshots a projection matrix, a frame rarely uses more than two so identical ones are shared.
+     */
+    private int matrixIndex(Matrix4f projectionMatrix) {
+        for (int i = matrixCount - 1; i >= 0; i--)
+            if (matrices.get(i).equals(projectionMatrix)) return i;
+
+        if (matrixCount == matrices.size()) matrices.add(new Matrix4f());
+        matrices.get(matrixCount).set(projectionMatrix);
+
+        return matrixCount++;
+    }
+
+    /**
+     * Sorts and draws every queued command, then empties the queue.
+     * <p>
+     * This can be called more than once per frame to separate passes that must not be interleaved by sorting.
+     */
+    void execute() {
+        Arrays.sort(keys, 0, count);
+
+        int currentLayer = -1, batchCallsBefore = 0;
+        for (int i = 0; i < count; i++) {
+            long key = keys[i];
+            int index = (int) (key & INDEX_MASK);
+            int layer = (int) (key >>> LAYER_SHIFT);
+
+            if (layer != currentLayer) {
+                if (currentLayer != -1) this.endLayer(currentLayer, batchCallsBefore);
+
+                currentLayer = layer;
+                batchCallsBefore = spriteBatch.getDrawCalls();
+                gpuProfiler.begin(Layer.VALUES[layer]);
+            }
+
+            var command = commands[index];
+            if (command != null) {
+                spriteBatch.flush();
+                command.execute();
+                drawCalls[layer]++;
+                continue;
+            }
+
+            spriteBatch.draw(shaders[index], textures[index], matrices.get(matrixIndices[index]), instances, index * QuadMesh.FLOATS_PER_INSTANCE);
+        }
+
+        if (currentLayer != -1) this.endLayer(currentLayer, batchCallsBefore);
+
+        // Don't keep anything reachable until the slot is reused.
+        Arrays.fill(shaders, 0, count, null);
+        Arrays.fill(textures, 0, count, null);
+        Arrays.fill(commands, 0, count, null);
+
+        this.count = 0;
+        this.matrixCount = 0;
+    }
+
+    private void endLayer(int layer, int batchCallsBefore) {
+        spriteBatch.flush();
+        gpuProfiler.end();
+
+        drawCalls[layer] += spriteBatch.getDrawCalls() - batchCallsBefore;
+    }
+
+    /**
+     * Rolls over the per-layer draw call counters.
+     *
+     * @see RenderQueue#getLastFrameDrawCalls(Layer)
+     */
+    void endFrame() {
+        System.arraycopy(drawCalls, 0, lastFrameDrawCalls, 0, drawCalls.length);
+        Arrays.fill(drawCalls, 0);
+    }
+
+    /**
+     * @return how many draw calls the given layer took in the last complete frame.
+     */
+    public int getLastFrameDrawCalls(@NotNull Layer layer) {
+        return lastFrameDrawCalls[layer.ordinal()];
+    }
+}
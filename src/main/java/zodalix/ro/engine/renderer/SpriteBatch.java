@@ -0,0 +1,202 @@
+package zodalix.ro.engine.renderer;
+
+import org.jetbrains.annotations.NotNull;
+import org.joml.Matrix4f;
+import org.lwjgl.system.MemoryUtil;
+import zodalix.ro.engine.asset.GameShader;
+import zodalix.ro.engine.asset.GameTexture;
+import zodalix.ro.engine.asset.ShaderUniform;
+
+import java.awt.Color;
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL33.*;
+import static zodalix.ro.engine.utils.RenderingUtils.normalizeRGBA;
+
+/**
+ * Collects sprites into a single streaming instance buffer and draws them with as few draw calls as possible.
+ * <p>
+ * Each sprite is one instance of the shared {@link QuadMesh}, its position, size, texture region, color and rotation are
+ * per-instance attributes, so no vertex data is rebuilt on the CPU. Sprites are accumulated until the shader, the texture
+ * or the projection matrix changes (or the buffer runs full), at which point the pending instances are uploaded and drawn
+ * in one {@code glDrawArraysInstanced} call.
+ * <p>
+ * Engine draw paths don't use the batch directly but submit to the {@link RenderQueue}, which feeds it sorted commands
+ * so consecutive sprites share as much state as possible. Anything that draws to the screen without going through the
+ * batch must call {@link SpriteBatch#flush()} first, otherwise the batched sprites would end up being drawn on top of it.
+ *
+ * @see RenderQueue
+ * @see GameRenderer#spriteBatch()
+ */
+public class SpriteBatch {
+    private static final int MAX_SPRITES = 4096;
+
+    private final GLStateCache glState;
+    private final FloatBuffer instances;
+    private final int instanceBuffer;
+    private final VertexArray vertexArray;
+
+    private final Matrix4f projectionMatrix;
+    private GameShader shader;
+    private int glTextureId;
+
+    // The pending shader's uniforms, looked up again only when a batch starts with another shader.
+    private ShaderUniform.OfInt textureUniform;
+    private ShaderUniform.OfMatrix4f mvpUniform;
+
+    private int spriteCount;
+    private int drawCalls, lastFrameDrawCalls;
+
+    SpriteBatch(GLStateCache glState, QuadMesh quadMesh) {
+        this.glState = glState;
+        this.instances = MemoryUtil.memAllocFloat(MAX_SPRITES * QuadMesh.FLOATS_PER_INSTANCE);
+        this.projectionMatrix = new Matrix4f();
+
+        this.instanceBuffer = glGenBuffers();
+        glState.bindArrayBuffer(instanceBuffer);
+        glBufferData(GL_ARRAY_BUFFER, (long) instances.capacity() * Float.BYTES, GL_STREAM_DRAW);
+
+        this.vertexArray = quadMesh.newInstancedVertexArray(instanceBuffer);
+    }
+
+    /**
+     * Queues a sprite for drawing with the given color, the sprite isn't actually drawn until the batch is flushed.
+     *
+     * @see SpriteBatch#draw(GameShader, GameTexture, Matrix4f, float, float, float, float, float, float, float, float, float, float, float, float, float)
+     */
+    public void draw(@NotNull GameShader shader, @NotNull GameTexture texture, @NotNull Matrix4f projectionMatrix,
+                     float x, float y, float halfWidth, float halfHeight,
+                     float u0, float v0, float u1, float v1,
+                     float rotationRadians, @NotNull Color color, float alpha) {
+        this.draw(shader, texture, projectionMatrix, x, y, halfWidth, halfHeight, u0, v0, u1, v1, rotationRadians,
+                normalizeRGBA(color.getRed()), normalizeRGBA(color.getGreen()), normalizeRGBA(color.getBlue()), alpha);
+    }
+
+    /**
+     * Queues a sprite for drawing, the sprite isn't actually drawn until the batch is flushed.
+     *
+     * @param shader           the shader to draw with, must accept the {@link QuadMesh} instance layout and expose {@code uMVPMatrix} and {@code uTexture}.
+     * @param texture          the texture to sample from.
+     * @param projectionMatrix the matrix the sprite is drawn with, copied if it differs from the pending one.
+     * @param x                the X coordinate of the sprite's center (already transformed to the window's ratio)
+     * @param y                the Y coordinate of the sprite's center.
+     * @param halfWidth        half of the sprite's width.
+     * @param halfHeight       half of the sprite's height.
+     * @param u0               the U coordinate of the left edge.
+     * @param v0               the V coordinate of the bottom edge.
+     * @param u1               the U coordinate of the right edge.
+     * @param v1               the V coordinate of the top edge.
+     * @param rotationRadians  the sprite's rotation around its center.
+     */
+    public void draw(@NotNull GameShader shader, @NotNull GameTexture texture, @NotNull Matrix4f projectionMatrix,
+                     float x, float y, float halfWidth, float halfHeight,
+                     float u0, float v0, float u1, float v1,
+                     float rotationRadians, float red, float green, float blue, float alpha) {
+        this.prepare(shader, texture, projectionMatrix);
+
+        instances.put(x).put(y)
+                .put(halfWidth).put(halfHeight)
+                .put(u0).put(v0).put(u1).put(v1)
+                .put(red).put(green).put(blue).put(alpha)
+                .put(rotationRadians);
+
+        this.spriteCount++;
+    }
+
+    /**
+     * Queues a sprite already laid out as a {@link QuadMesh} instance.
+     *
+     * @param instances the array holding the instance.
+     * @param offset    the index of the instance's first float.
+     */
+    void draw(GameShader shader, GameTexture texture, Matrix4f projectionMatrix, float[] instances, int offset) {
+        this.prepare(shader, texture, projectionMatrix);
+
+        this.instances.put(instances, offset, QuadMesh.FLOATS_PER_INSTANCE);
+        this.spriteCount++;
+    }
+
+    private void prepare(GameShader shader, GameTexture texture, Matrix4f projectionMatrix) {
+        if (this.spriteCount > 0 && (this.shader != shader || this.glTextureId != texture.getGlTextureId() || !this.projectionMatrix.equals(projectionMatrix)))
+            this.flush();
+
+        if (this.spriteCount == MAX_SPRITES) this.flush();
+
+        if (this.spriteCount == 0) {
+            if (this.shader != shader) {
+                this.textureUniform = shader.uniformInt("uTexture");
+                this.mvpUniform = shader.uniformMatrix4f("uMVPMatrix");
+            }
+
+            this.shader = shader;
+            this.glTextureId = texture.getGlTextureId();
+            this.projectionMatrix.set(projectionMatrix);
+        }
+    }
+
+    /**
+     * Draws every pending sprite and resets the batch.
+     * <p>
+     * This method is a no-op if there is nothing to draw.
+     */
+    public void flush() {
+        if (this.spriteCount == 0) return;
+
+        final var shader = this.shader;
+        glState.useProgram(shader.glShaderProgram);
+        glState.bindTexture(0, this.glTextureId);
+        glState.bindSampler(0, GLStateCache.Filter.NEAREST_MIPMAP);
+
+        textureUniform.set(0);
+        mvpUniform.set(this.projectionMatrix);
+
+        glState.enableBlend(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+
+        this.instances.flip();
+        glState.bindArrayBuffer(instanceBuffer);
+        glBufferData(GL_ARRAY_BUFFER, (long) instances.capacity() * Float.BYTES, GL_STREAM_DRAW); // Orphan the previous storage.
+        glBufferSubData(GL_ARRAY_BUFFER, 0, instances);
+
+        this.vertexArray.bind();
+        glDrawArraysInstanced(GL_TRIANGLE_STRIP, 0, QuadMesh.VERTEX_COUNT, spriteCount);
+        this.drawCalls++;
+
+        this.instances.clear();
+        this.spriteCount = 0;
+    }
+
+    /**
+     * Flushes the batch and rolls over the draw call counter.
+     *
+     * @see SpriteBatch#getLastFrameDrawCalls()
+     */
+    void endFrame() {
+        this.flush();
+
+        this.lastFrameDrawCalls = this.drawCalls;
+        this.drawCalls = 0;
+    }
+
+    /**
+     * @return how many draw calls the batch issued so far in the current frame.
+     */
+    int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * @return how many draw calls the batch issued in the last complete frame.
+     */
+    public int getLastFrameDrawCalls() {
+        return lastFrameDrawCalls;
+    }
+
+    /**
+     * Releases the GL buffers and the off-heap instance storage, the batch must not be used afterward.
+     */
+    public void dispose() {
+        vertexArray.dispose();
+        glState.deleteBuffer(instanceBuffer);
+        MemoryUtil.memFree(instances);
+    }
+}
@@ -0,0 +1,58 @@
+package zodalix.ro.engine.renderer;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * A thin wrapper around an OpenGL vertex array object.
+ * <p>
+ * A vertex array remembers which buffers feed which shader attribute locations, so the layout is described once
+ * and every later draw only has to bind the array. This is also mandatory in a core profile context, where drawing
+ * without a bound vertex array (or from client-side memory) is an error.
+ * <p>
+ * Binding goes through the {@link GLStateCache}, so drawing the same array twice in a row binds it once.
+ *
+ * @see QuadMesh
+ */
+public final class VertexArray {
+    private final GLStateCache glState;
+    private final int glVertexArrayId;
+
+    public VertexArray(GLStateCache glState) {
+        this.glState = glState;
+        this.glVertexArrayId = glGenVertexArrays();
+    }
+
+    /**
+     * Points a float attribute at a region of a buffer object.
+     *
+     * @param buffer      the buffer object the attribute is read from.
+     * @param location    the attribute's location in the shader (the {@code layout(location = N)} qualifier)
+     * @param size        how many floats the attribute consists of. {@code 1 <= size <= 4}
+     * @param strideBytes the distance in bytes between two consecutive elements.
+     * @param offsetBytes the offset in bytes of the first element inside the buffer.
+     * @param divisor     {@code 0} to advance the attribute per vertex, {@code 1} to advance it per instance.
+     * @return {@code this}
+     */
+    public VertexArray attribute(int buffer, int location, int size, int strideBytes, long offsetBytes, int divisor) {
+        glState.bindVertexArray(glVertexArrayId);
+        glState.bindArrayBuffer(buffer);
+
+        glEnableVertexAttribArray(location);
+        glVertexAttribPointer(location, size, GL_FLOAT, false, strideBytes, offsetBytes);
+        glVertexAttribDivisor(location, divisor);
+
+        return this;
+    }
+
+    public void bind() {
+        glState.bindVertexArray(glVertexArrayId);
+    }
+
+    public int getGlVertexArrayId() {
+        return glVertexArrayId;
+    }
+
+    public void dispose() {
+        glState.deleteVertexArray(glVertexArrayId);
+    }
+}
@@ -12,6 +12,11 @@ public interface GameScreen extends Tickable {
      */
     default boolean isOverlayScreen() { return false; }
 
+    /**
+     * Called once the screen is replaced and won't be drawn again, gives back what it holds such as acquired textures.
+     */
+    default void dispose() {}
+
     @Override
     default void tick(float deltaTime) {}
 }
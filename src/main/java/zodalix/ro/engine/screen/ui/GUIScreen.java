@@ -40,20 +40,22 @@ public class GUIScreen implements InputListeningGameScreen, TabScreen {
         this.elements.addAll(Arrays.asList(elements));
     }
 
+    @Override
+    public void dispose() {
+        for (var element : elements) element.dispose();
+    }
+
     @Override
     public void draw(Matrix4f projectionMatrix, float deltaTime) {
-        var window = RoguesOdyssey.instance().windowHandle;
+        var inputHandler = RoguesOdyssey.instance().inputHandler;
         var gameRenderer = RoguesOdyssey.instance().renderer;
 
         float mouseX, mouseY;
         {
-            double[] mouseXA = new double[1], mouseYA = new double[1];
-            glfwGetCursorPos(window, mouseXA, mouseYA);
-
             int width = gameRenderer.getLastKnownWindowWidth(), height = gameRenderer.getLastKnownWindowHeight();
 
-            float ndcX = (float) (2.0 * mouseXA[0] / width - 1.0);
-            float ndcY = (float) (1.0 - 2.0 * mouseYA[0] / height);
+            float ndcX = 2f * inputHandler.cursorX() / width - 1f;
+            float ndcY = 1f - 2f * inputHandler.cursorY() / height;
 
             var copyPM = new Matrix4f(projectionMatrix);
             copyPM.invert();
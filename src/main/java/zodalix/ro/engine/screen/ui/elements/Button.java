@@ -19,9 +19,14 @@ import java.util.function.Consumer;
 public class Button implements SelectableGUIElement {
 
     private static final float BUTTON_SCALE = .5f; //.375f;
+    private static final NamespacedKey BUTTON_TEXTURE = NamespacedKey.getDefault("textures/buttons/button"),
+            HIGHLIGHTED_BUTTON_TEXTURE = NamespacedKey.getDefault("textures/buttons/button_highlighted");
 
     private final Consumer<Event> eventConsumer;
 
+    // Acquired for the default style, so the highlighted texture isn't evicted while the button isn't hovered.
+    private final @Nullable GameTexture texture, highlightedTexture;
+
     private final Style style;
     private float x, y;
 
@@ -36,7 +41,16 @@ public class Button implements SelectableGUIElement {
 
         this.eventConsumer = eventConsumer;
 
-        if (style instanceof Style.Default def) def.textElement.changePosition(new Point2D(x, y));
+        if (style instanceof Style.Default def) {
+            def.textElement.changePosition(new Point2D(x, y));
+
+            final var am = RoguesOdyssey.instance().assetManager;
+            this.texture = am.acquireTexture(BUTTON_TEXTURE);
+            this.highlightedTexture = am.acquireTexture(HIGHLIGHTED_BUTTON_TEXTURE);
+        } else {
+            this.texture = null;
+            this.highlightedTexture = null;
+        }
     }
 
     public Style getStyle() {
@@ -94,6 +108,15 @@ public class Button implements SelectableGUIElement {
     }
 
 
+    @Override
+    public void dispose() {
+        if (this.texture == null) return;
+
+        final var am = RoguesOdyssey.instance().assetManager;
+        am.releaseTexture(this.texture);
+        am.releaseTexture(this.highlightedTexture);
+    }
+
     @Override
     public void onElementEvent(Event event, float cursorX, float cursorY) {
         if (this.style instanceof Style.Default def)
@@ -161,10 +184,7 @@ public class Button implements SelectableGUIElement {
 
         final var am = RoguesOdyssey.instance().assetManager;
 
-        var texture = hoveredOver ?
-                am.getTexture(NamespacedKey.getDefault("textures/buttons/button_highlighted"))
-                :
-                am.getTexture(NamespacedKey.getDefault("textures/buttons/button"));
+        var texture = hoveredOver ? this.highlightedTexture : this.texture;
 
         texture.drawDefault(am, new Point2D(x, y), projectionMatrix, this.boundingBox(), DrawProperty.scale(BUTTON_SCALE), DrawProperty.dimensions(neededWidth, neededHeight));
     }
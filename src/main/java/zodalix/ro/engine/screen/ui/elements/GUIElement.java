@@ -20,6 +20,11 @@ public interface GUIElement {
     void draw(GUIScreen screen, float cursorX, float cursorY, Matrix4f projectionMatrix, float deltaTime);
     void onElementEvent(Event event, float cursorX, float cursorY);
 
+    /**
+     * Called once the element's screen is disposed, see {@link zodalix.ro.engine.screen.GameScreen#dispose()}.
+     */
+    default void dispose() {}
+
 
     record HoverEvent(boolean isHoverEnd) implements Event {}
 
@@ -0,0 +1,122 @@
+package zodalix.ro.engine.screen.ui.elements.text;
+
+import org.joml.Matrix4f;
+import zodalix.ro.engine.asset.GameShader;
+import zodalix.ro.engine.asset.GameTexture;
+import zodalix.ro.engine.asset.ShaderUniform;
+import zodalix.ro.engine.renderer.GLStateCache;
+import zodalix.ro.engine.renderer.QuadMesh;
+import zodalix.ro.engine.renderer.RenderQueue;
+import zodalix.ro.engine.renderer.VertexArray;
+import zodalix.ro.game.RoguesOdyssey;
+
+import java.lang.ref.Cleaner;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * The GPU side of a {@link Text}: one instance of the shared {@link QuadMesh} per glyph, kept in a buffer object
+ * that is only re-uploaded when the text's layout changes.
+ * <p>
+ * Drawing a whole string is a single {@code glDrawArraysInstanced} call, submitted to the {@link RenderQueue} as a command.
+ */
+final class GlyphMesh implements RenderQueue.Command {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int instanceBuffer;
+    private final VertexArray vertexArray;
+    private final Cleaner.Cleanable cleanable;
+
+    private final GameShader shader;
+    private final ShaderUniform.OfInt textureUniform;
+    private final ShaderUniform.OfMatrix4f mvpUniform;
+
+    private int glyphCount;
+
+    // What the pending submission draws with, a mesh is only ever submitted once per frame.
+    private GameTexture texture; // Null when drawing a font page.
+    private int glTextureId;
+    private GLStateCache.Filter filter;
+    private final Matrix4f projectionMatrix = new Matrix4f();
+
+    GlyphMesh(QuadMesh quadMesh, GameShader shader) {
+        this.shader = shader;
+        this.textureUniform = shader.uniformInt("uTexture");
+        this.mvpUniform = shader.uniformMatrix4f("uMVPMatrix");
+
+        this.instanceBuffer = glGenBuffers();
+        this.vertexArray = quadMesh.newInstancedVertexArray(instanceBuffer);
+
+        // The owning Text has no lifecycle of its own, so unreachable meshes hand their GL names back to the render thread.
+        this.cleanable = CLEANER.register(this, new Release(instanceBuffer, vertexArray));
+    }
+
+    /**
+     * Replaces the glyph instances.
+     *
+     * @param instances  tightly packed {@link QuadMesh} instances, only the first {@code glyphCount} are used.
+     * @param glyphCount how many glyphs {@code instances} holds.
+     */
+    void upload(float[] instances, int glyphCount) {
+        this.glyphCount = glyphCount;
+
+        RoguesOdyssey.instance().renderer.glState().bindArrayBuffer(instanceBuffer);
+        glBufferData(GL_ARRAY_BUFFER, (long) instances.length * Float.BYTES, GL_STATIC_DRAW);
+        glBufferSubData(GL_ARRAY_BUFFER, 0, instances);
+    }
+
+    void submit(RenderQueue queue, int depth, GameTexture texture, Matrix4f projectionMatrix) {
+        if (glyphCount == 0) return;
+
+        this.texture = texture;
+        this.filter = GLStateCache.Filter.NEAREST_MIPMAP;
+        this.projectionMatrix.set(projectionMatrix);
+
+        queue.submit(null, depth, shader, texture, this);
+    }
+
+    /**
+     * Submits glyphs sampling a {@link zodalix.ro.engine.asset.GameFont} page, which is filtered linearly since
+     * glyphs are rasterized at a single size and scaled from there.
+     */
+    void submit(RenderQueue queue, int depth, int glTextureId, Matrix4f projectionMatrix) {
+        if (glyphCount == 0) return;
+
+        this.texture = null;
+        this.glTextureId = glTextureId;
+        this.filter = GLStateCache.Filter.LINEAR;
+        this.projectionMatrix.set(projectionMatrix);
+
+        queue.submit(null, depth, shader, glTextureId, this);
+    }
+
+    @Override
+    public void execute() {
+        var glState = RoguesOdyssey.instance().renderer.glState();
+        glState.useProgram(shader.glShaderProgram);
+        glState.bindTexture(0, texture != null ? texture.getGlTextureId() : glTextureId);
+        glState.bindSampler(0, filter);
+
+        textureUniform.set(0);
+        mvpUniform.set(projectionMatrix);
+
+        glState.enableBlend(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+
+        this.vertexArray.bind();
+        glDrawArraysInstanced(GL_TRIANGLE_STRIP, 0, QuadMesh.VERTEX_COUNT, glyphCount);
+    }
+
+    void dispose() {
+        cleanable.clean();
+    }
+
+    private record Release(int instanceBuffer, VertexArray vertexArray) implements Runnable {
+        @Override
+        public void run() {
+            RoguesOdyssey.instance().renderer.releaseLater(() -> {
+                vertexArray.dispose();
+                RoguesOdyssey.instance().renderer.glState().deleteBuffer(instanceBuffer);
+            });
+        }
+    }
+}
@@ -27,6 +27,13 @@ public class StringTextComponent extends TextComponent {
         return string;
     }
 
+    /**
+     * @return the characters to draw, which a {@link TextTemplate} slot may change in place.
+     */
+    public CharSequence characters() {
+        return string;
+    }
+
     public StringTextComponent shadow() {
         this.shadow = true;
         return this;
@@ -39,11 +46,15 @@ public class StringTextComponent extends TextComponent {
 
     @Override
     public BoundingBox boundingBox() {
-        float lr = normalizedWidth * this.string.length();
-        for (final char i : this.string.toCharArray())
-            if (LOW_OFFSET_CHARACTERS.contains(i)) lr -= normalizedWidth * .575f;
+        return BoundingBox.rectangle(width(this.characters()), normalizedWidth + .25f);
+    }
+
+    static float width(CharSequence characters) {
+        float lr = normalizedWidth * characters.length();
+        for (int i = 0; i < characters.length(); i++)
+            if (LOW_OFFSET_CHARACTERS.contains(characters.charAt(i))) lr -= normalizedWidth * .575f;
 
-        return BoundingBox.rectangle(lr, normalizedWidth + .25f);
+        return lr;
     }
 
     public boolean shouldDrawShadow() {
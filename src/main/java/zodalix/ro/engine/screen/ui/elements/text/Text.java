@@ -2,11 +2,15 @@ package zodalix.ro.engine.screen.ui.elements.text;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import zodalix.ro.game.RoguesOdyssey;
+import zodalix.ro.engine.asset.GameFont;
 import zodalix.ro.engine.asset.GameShader;
 import zodalix.ro.engine.asset.GameTexture;
+import zodalix.ro.engine.asset.bake.BakedTable;
+import zodalix.ro.engine.renderer.QuadMesh;
 import zodalix.ro.engine.utils.position.Point2D;
 import zodalix.ro.engine.utils.BoundingBox;
 import zodalix.ro.engine.utils.NamespacedKey;
@@ -16,16 +20,12 @@ import zodalix.ro.engine.utils.RenderingUtils;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.lang.foreign.Arena;
-import java.lang.foreign.ValueLayout;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 
-import static org.lwjgl.opengl.GL33.*;
 import static zodalix.ro.engine.utils.RenderingUtils.normalizeRGBA;
 
 public class Text implements GUIElement {
@@ -37,9 +37,62 @@ public class Text implements GUIElement {
         return text;
     }
 
+    /**
+     * Replaces the displayed text, the glyphs are laid out again on the next draw.
+     * <p>
+     * Components are not watched for changes, mutate a component and pass it here again to have the change picked up.
+     */
     public void setText(TextComponent text) {
+        this.template = null;
         this.text = text;
         this.bb = this.calculateBoundingBox();
+        this.layoutDirty = true;
+    }
+
+    /**
+     * Shows a template, whose slots can then be changed without calling this again: the glyphs are laid out again
+     * whenever a slot changes, the bounding box measured again whenever one changes width.
+     */
+    public void setText(TextTemplate template) {
+        if (this.template == template) return;
+
+        this.template = template;
+        this.text = template.component();
+        this.templateRevision = template.revision();
+        this.templateBoundsRevision = template.boundsRevision();
+        this.bb = this.calculateBoundingBox();
+        this.layoutDirty = true;
+    }
+
+    /**
+     * Picks up the changes made to the template's slots since the last time.
+     */
+    private void syncTemplate() {
+        if (template == null || template.revision() == templateRevision) return;
+
+        if (template.boundsRevision() != templateBoundsRevision) {
+            this.templateBoundsRevision = template.boundsRevision();
+            this.bb = this.calculateBoundingBox();
+        }
+
+        this.templateRevision = template.revision();
+        this.layoutDirty = true;
+    }
+
+
+    /**
+     * Draws the text with a TrueType font instead of the bitmap font, {@code null} goes back to the bitmap font.
+     */
+    public void setFont(@Nullable GameFont font) {
+        if (this.font == font) return;
+
+        this.font = font;
+        this.bb = this.calculateBoundingBox();
+        this.layoutDirty = true;
+    }
+
+    public @Nullable GameFont getFont() {
+        return font;
     }
 
 
@@ -52,13 +105,20 @@ public class Text implements GUIElement {
 
     private final GameShader shader;
 
+    private @Nullable GameFont font;
+    private int fontGeneration;
+
     private TextComponent text;
 
+    private @Nullable TextTemplate template;
+    private long templateRevision, templateBoundsRevision;
+
     private float x, y;
 
     private DrawStyle drawStyle = DrawStyle.CENTERED;
 
     public void setDrawStyle(DrawStyle drawStyle) {
+        this.layoutDirty |= this.drawStyle != drawStyle;
         this.drawStyle = drawStyle;
     }
 
@@ -67,6 +127,31 @@ public class Text implements GUIElement {
 
     private final float scale;
 
+    private int depth = 1; // Above the sprites of the same layer by default, a text is usually the label of something.
+
+    /**
+     * Sets the depth the text is drawn at within its {@link zodalix.ro.engine.renderer.RenderQueue} layer.
+     *
+     * @see zodalix.ro.engine.renderer.DrawProperty#depth(int)
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    // Glyph instances are laid out once and kept on the GPU until the text, its position or the window's ratio changes.
+    private GlyphMesh glyphMesh;
+    private float[] glyphInstances = new float[0];
+    private int glyphCount;
+    private boolean layoutDirty = true;
+    private float layoutRatio = Float.NaN;
+    private boolean layoutResident; // Glyph UVs point into the placeholder until the font texture is loaded.
+
+    // With a TrueType font, glyphs are grouped into one mesh per font page they sample.
+    private int[] glyphPageTextures = new int[0];
+    private GlyphMesh[] pageMeshes = new GlyphMesh[0];
+    private int[] pageTextures = new int[0];
+    private int pageCount;
+    private float[] pageInstances = new float[0];
 
     public Text(float x, float y, float scale, TextComponent text) {
         this.text = text;
@@ -78,7 +163,25 @@ public class Text implements GUIElement {
         this.bb = calculateBoundingBox();
     }
 
-    private static final Map<Character, Float> widthSpacingMap = new HashMap<>(), heightSpacingMap = new HashMap<>();
+    public Text(float x, float y, float scale, TextTemplate template) {
+        this(x, y, scale, template.component());
+
+        this.template = template;
+        this.templateRevision = template.revision();
+        this.templateBoundsRevision = template.boundsRevision();
+    }
+
+    // Extra spacing of the bitmap font's characters, indexed by character with the "default" entry last.
+    // NaN for characters the spacing file doesn't list.
+    private static final int DEFAULT_SPACING = 256;
+    private static final float[] widthSpacing = new float[DEFAULT_SPACING + 1], heightSpacing = new float[DEFAULT_SPACING + 1];
+    private static boolean spacingLoaded;
+
+    static {
+        Arrays.fill(widthSpacing, Float.NaN);
+        Arrays.fill(heightSpacing, Float.NaN);
+    }
+
     private static final Gson gson = new Gson();
 
     private static int WIDTH_PIXELS = 15, HEIGHT_PIXELS = 14;
@@ -87,8 +190,11 @@ public class Text implements GUIElement {
         this.texture = RoguesOdyssey.instance().assetManager
                 .getTexture(NamespacedKey.getDefault("text/ascii"));
 
-        if (Text.widthSpacingMap.isEmpty() || Text.heightSpacingMap.isEmpty()) { // Kill me.
-            try (var inputStream = RoguesOdyssey.instance().assetManager.getInputStream(NamespacedKey.getDefault("text/default_spacing.json"))) {
+        if (!Text.spacingLoaded) { // Kill me.
+            var baked = RoguesOdyssey.instance().assetManager.getBakedTable(NamespacedKey.getDefault("text/default_spacing.json"));
+
+            if (baked != null) Text.loadSpacing(baked);
+            else try (var inputStream = RoguesOdyssey.instance().assetManager.getInputStream(NamespacedKey.getDefault("text/default_spacing.json"))) {
                 if (inputStream == null) throw new IllegalStateException("Spacing file couldn't be found!");
 
                 var reader = gson.newJsonReader(new InputStreamReader(inputStream));
@@ -99,35 +205,48 @@ public class Text implements GUIElement {
                 Text.HEIGHT_PIXELS = root.get("height_pixels").getAsInt();
 
                 var widthMap = root.getAsJsonObject("width_add");
-                for(var entry : widthMap.asMap().entrySet()) {
-                    char charVal = Character.MAX_VALUE;
-                    if(!entry.getKey().equalsIgnoreCase("default")) {
-                        charVal = entry.getKey().charAt(0);
-                    }
-
-                    Text.widthSpacingMap.put(charVal,entry.getValue().getAsFloat());
-                }
+                for(var entry : widthMap.asMap().entrySet())
+                    Text.putSpacing(Text.widthSpacing, entry.getKey(), entry.getValue().getAsFloat());
 
                 var heightMap = root.getAsJsonObject("height_add");
-                for(var entry : heightMap.asMap().entrySet()) {
-                    char charVal = Character.MAX_VALUE;
-                    if(!entry.getKey().equalsIgnoreCase("default")) {
-                        charVal = entry.getKey().charAt(0);
-                    }
-
-                    Text.heightSpacingMap.put(charVal,entry.getValue().getAsFloat());
-                }
+                for(var entry : heightMap.asMap().entrySet())
+                    Text.putSpacing(Text.heightSpacing, entry.getKey(), entry.getValue().getAsFloat());
 
                 reader.close();
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+
+            Text.spacingLoaded = true;
         }
 
         this.shader = RoguesOdyssey.instance().assetManager
                 .getShader(NamespacedKey.getDefault("shader/textured"));
     }
 
+    /**
+     * Fills the spacing tables from the baked form of {@code default_spacing.json}, which the JSON is flattened into.
+     */
+    private static void loadSpacing(BakedTable baked) {
+        Text.WIDTH_PIXELS = (int) baked.get("width_pixels", Text.WIDTH_PIXELS);
+        Text.HEIGHT_PIXELS = (int) baked.get("height_pixels", Text.HEIGHT_PIXELS);
+
+        baked.forEachIn("width_add", (key, value) -> Text.putSpacing(Text.widthSpacing, key, value));
+        baked.forEachIn("height_add", (key, value) -> Text.putSpacing(Text.heightSpacing, key, value));
+    }
+
+    private static void putSpacing(float[] spacing, String key, float value) {
+        int index = key.equalsIgnoreCase("default") ? DEFAULT_SPACING : key.charAt(0);
+        if (index <= DEFAULT_SPACING) spacing[index] = value; // The bitmap font has no glyph beyond that anyway.
+    }
+
+    /**
+     * @return the character's extra spacing, NaN if the spacing file doesn't list it.
+     */
+    private static float spacing(float[] spacing, char character) {
+        return character < DEFAULT_SPACING ? spacing[character] : Float.NaN;
+    }
+
     @Override
     public boolean isHoveredOver() {
         return isHoveredOver;
@@ -145,37 +264,148 @@ public class Text implements GUIElement {
 
     @Override
     public void changePosition(Point2D point) {
+        this.layoutDirty |= this.x != point.x || this.y != point.y;
+
         this.x = point.x;
         this.y = point.y;
     }
 
     @Override
     public BoundingBox boundingBox() {
+        this.syncTemplate();
         return bb;
     }
 
     private BoundingBox calculateBoundingBox() {
+        if (font != null) {
+            float unitsPerPixel = this.unitsPerPixel();
+            return BoundingBox.rectangle(this.measure(text) * unitsPerPixel / 2, font.lineHeight() * unitsPerPixel / 2);
+        }
+
         return text.boundingBox().mulAll(this.scale);
     }
 
+    /**
+     * @return the size of a font pixel, the font's glyphs come out about as tall as the bitmap font's at the same scale.
+     */
+    private float unitsPerPixel() {
+        return 1.25f * scale / GameFont.PIXEL_HEIGHT;
+    }
+
+    /**
+     * @return the width of every string in the component with the font, in font pixels.
+     */
+    private float measure(TextComponent parentComponent) {
+        float width = 0;
+
+        for (int m = 0; m < parentComponent.children().size() + 1; m++) {
+            TextComponent component = null;
+
+            if (m == 0) {
+                if (!parentComponent.getClass().equals(TextComponent.class)) component = parentComponent;
+            } else component = parentComponent.children().get(m - 1);
+
+            switch (component) {
+                case StringTextComponent stringTextComponent -> width += Objects.requireNonNull(font).measure(stringTextComponent.characters());
+                case TextComponent textComponent when !textComponent.children().isEmpty() -> width += measure(textComponent);
+                case null, default -> {
+                }
+            }
+        }
+
+        return width;
+    }
+
 
     @Override
     public void draw(GUIScreen screen, float cursorX, float cursorY, Matrix4f projectionMatrix, float deltaTime) {
+        this.syncTemplate();
+
         if (bb != null && !bb.isScreenVisible(this.x, this.y, projectionMatrix))
             return;
 
-        var transformedX = RenderingUtils.transformPoint(x, RoguesOdyssey.instance().renderer);
-        var centeredStartDraw = (this.bb.leftX() + transformedX) + (this.scale * this.scale);
+        final var renderer = RoguesOdyssey.instance().renderer;
+
+        var ratio = RenderingUtils.transformPoint(1f, renderer);
+        if (layoutDirty || ratio != layoutRatio || layoutResident != texture.isResident() || (font != null && font.generation() != fontGeneration)) {
+            this.layoutResident = texture.isResident();
+            this.buildGlyphs();
+            this.layoutRatio = ratio;
+            this.layoutDirty = false;
+        }
+
+        if (font == null) {
+            glyphMesh.submit(renderer.renderQueue(), depth, texture, projectionMatrix);
+            return;
+        }
+
+        for (int page = 0; page < pageCount; page++) {
+            pageMeshes[page].submit(renderer.renderQueue(), depth, pageTextures[page], projectionMatrix);
+        }
+    }
+
+    /**
+     * Lays out every glyph of {@link Text#text} and uploads them to the {@link GlyphMesh}.
+     */
+    private void buildGlyphs() {
+        final var renderer = RoguesOdyssey.instance().renderer;
+
+        var transformedX = RenderingUtils.transformPoint(x, renderer);
+        var centeredStartDraw = (this.bb.leftX() + transformedX) + (font == null ? this.scale * this.scale : 0);
 
         AtomicReference<Float> drawX = new AtomicReference<>(
                 drawStyle == DrawStyle.CENTERED ?
                         centeredStartDraw : transformedX
         );
 
-        loopChildrenAndDraw(drawX, this.text, projectionMatrix);
+        this.glyphCount = 0;
+        loopChildrenAndBuild(drawX, this.text);
+
+        if (font != null) {
+            // Read after laying out, which may have cleared pages none of this text's glyphs are in.
+            this.fontGeneration = font.generation();
+            this.uploadPages(renderer.quadMesh());
+            return;
+        }
+
+        if (glyphMesh == null) glyphMesh = new GlyphMesh(renderer.quadMesh(), shader);
+        glyphMesh.upload(glyphInstances, glyphCount);
+    }
+
+    /**
+     * Splits the glyph instances by the font page they sample and uploads each page's to its own mesh.
+     */
+    private void uploadPages(QuadMesh quadMesh) {
+        this.pageCount = 0;
+        for (int glyph = 0; glyph < glyphCount; glyph++) {
+            int pageTexture = glyphPageTextures[glyph], page = 0;
+            while (page < pageCount && pageTextures[page] != pageTexture) page++;
+            if (page < pageCount) continue;
+
+            if (pageCount == pageTextures.length) {
+                pageTextures = Arrays.copyOf(pageTextures, pageCount + 1);
+                pageMeshes = Arrays.copyOf(pageMeshes, pageCount + 1);
+            }
+            if (pageMeshes[pageCount] == null) pageMeshes[pageCount] = new GlyphMesh(quadMesh, shader);
+            pageTextures[pageCount++] = pageTexture;
+        }
+
+        if (pageInstances.length < glyphInstances.length) pageInstances = new float[glyphInstances.length];
+
+        for (int page = 0; page < pageCount; page++) {
+            int count = 0;
+            for (int glyph = 0; glyph < glyphCount; glyph++) {
+                if (glyphPageTextures[glyph] != pageTextures[page]) continue;
+
+                System.arraycopy(glyphInstances, glyph * QuadMesh.FLOATS_PER_INSTANCE, pageInstances, count * QuadMesh.FLOATS_PER_INSTANCE, QuadMesh.FLOATS_PER_INSTANCE);
+                count++;
+            }
+
+            pageMeshes[page].upload(pageInstances, count);
+        }
     }
 
-    private void loopChildrenAndDraw(AtomicReference<Float> drawX, TextComponent parentComponent, Matrix4f projectionMatrix) {
+    private void loopChildrenAndBuild(AtomicReference<Float> drawX, TextComponent parentComponent) {
         for (int m = 0; m < parentComponent.children().size() + 1; m++) {
             TextComponent component = null;
 
@@ -185,12 +415,14 @@ public class Text implements GUIElement {
 
             switch (component) {
                 case StringTextComponent stringTextComponent -> {
-                    var offset = drawStringTextComponent(stringTextComponent, drawX, projectionMatrix);
+                    var offset = font != null ?
+                            buildFontStringTextComponent(stringTextComponent, drawX.get()) :
+                            buildStringTextComponent(stringTextComponent, drawX);
                     drawX.set(drawX.get() + offset);
                 }
 
                 case TextComponent textComponent when !textComponent.children().isEmpty() ->
-                        loopChildrenAndDraw(drawX, textComponent, projectionMatrix);
+                        loopChildrenAndBuild(drawX, textComponent);
 
                 case null, default -> {
                 }
@@ -198,7 +430,30 @@ public class Text implements GUIElement {
         }
     }
 
+    private void putGlyph(float x, float y, float halfWidth, float halfHeight, float u0, float v0, float u1, float v1, float red, float green, float blue, float alpha) {
+        int offset = glyphCount * QuadMesh.FLOATS_PER_INSTANCE;
+        if (offset + QuadMesh.FLOATS_PER_INSTANCE > glyphInstances.length) {
+            glyphInstances = Arrays.copyOf(glyphInstances, Math.max(glyphInstances.length * 2, 32 * QuadMesh.FLOATS_PER_INSTANCE));
+            glyphPageTextures = Arrays.copyOf(glyphPageTextures, glyphInstances.length / QuadMesh.FLOATS_PER_INSTANCE);
+        }
 
+        final var instances = this.glyphInstances;
+        instances[offset] = x;
+        instances[offset + 1] = y;
+        instances[offset + 2] = halfWidth;
+        instances[offset + 3] = halfHeight;
+        instances[offset + 4] = u0;
+        instances[offset + 5] = v0;
+        instances[offset + 6] = u1;
+        instances[offset + 7] = v1;
+        instances[offset + 8] = red;
+        instances[offset + 9] = green;
+        instances[offset + 10] = blue;
+        instances[offset + 11] = alpha;
+        instances[offset + 12] = 0f; // Glyphs are never rotated.
+
+        glyphCount++;
+    }
 
     @Override
     public void onElementEvent(Event event, float cursorX, float cursorY) {
@@ -206,32 +461,18 @@ public class Text implements GUIElement {
             this.isHoveredOver = !hoverEvent.isHoverEnd();
     }
 
-    private float drawStringTextComponent(StringTextComponent component, AtomicReference<Float> x, Matrix4f projectionMatrix) {
-        glBindTexture(GL_TEXTURE_2D, texture.getGlTextureId());
-
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-
-        // Enable alpha blending
-        glEnable(GL_BLEND);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-
-        var shaderProgram = this.shader.glShaderProgram;
-        glUseProgram(shaderProgram);
-
-        int textureHandle = glGetUniformLocation(shaderProgram, "uTexture");
-        glActiveTexture(GL_TEXTURE0);
-        glBindTexture(GL_TEXTURE_2D, this.texture.getGlTextureId());
-        glUniform1i(textureHandle, 0);
-
-        // Get position handle
-        int positionHandle = glGetAttribLocation(shaderProgram, "aPosition"),
-                texCoordHandle = glGetAttribLocation(shaderProgram, "aTexCoord"),
-                colorHandle = glGetAttribLocation(shaderProgram, "aColor");
-
+    private float buildStringTextComponent(StringTextComponent component, AtomicReference<Float> x) {
         BiFunction<Vector2f, Float, Float> drawFunc = (pos, darknessFactor) -> {
             //pos = RenderingUtils.transformCoordinates(pos, RoguesOdyssey.instance().renderer);
-            var text = component.getString();
+            var text = component.characters();
+            var color = component.color();
+
+            float red = normalizeRGBA((int) (color.getRed() / darknessFactor)),
+                    green = normalizeRGBA((int) (color.getGreen() / darknessFactor)),
+                    blue = normalizeRGBA((int) (color.getBlue() / darknessFactor)),
+                    alpha = normalizeRGBA((int) (color.getAlpha() / darknessFactor));
+
+            final float glyphHalfSize = (10 / 16f) * scale;
 
             boolean lowOffsetPassed = false;
 
@@ -242,94 +483,30 @@ public class Text implements GUIElement {
                     xOffset -= .025f * scale;
                 }
 
-                Matrix4f scratch = new Matrix4f(), modelMatrix = new Matrix4f(), mvpMatrix = new Matrix4f(), viewMatrix = new Matrix4f();
-
-                modelMatrix.identity();
-                viewMatrix.identity();
+                int beginX = Math.max(((int) (Math.floor(character / 16f)) * 16), 0),
+                        beginY = Math.max(((character % 16) * 16), 0);
 
-                projectionMatrix.mul(viewMatrix, mvpMatrix);
-                float xPos = (xOffset + pos.x);
+                float heightAdd = spacing(Text.heightSpacing, character);
+                if (Float.isNaN(heightAdd)) heightAdd = Text.heightSpacing[DEFAULT_SPACING];
 
-                modelMatrix.translate(xPos, pos.y, 0f);
-                mvpMatrix.mul(modelMatrix, scratch);
+                int endX = beginX + Text.WIDTH_PIXELS + (int) heightAdd,
+                        endY = beginY + Text.HEIGHT_PIXELS;
 
-                int mvpMatrixId = glGetUniformLocation(shaderProgram, "uMVPMatrix");
-
-                glUniformMatrix4fv(mvpMatrixId, false, scratch.get(new float[16]));
-
-
-                glEnableVertexAttribArray(positionHandle);
-                glEnableVertexAttribArray(texCoordHandle);
-                glEnableVertexAttribArray(colorHandle);
-                try (var arena = Arena.ofConfined()) {
-                    int beginX = Math.max(((int) (Math.floor(character / 16f)) * 16), 0),
-                            beginY = Math.max(((character % 16) * 16), 0);
-
-                    int endX = beginX + Text.WIDTH_PIXELS + heightSpacingMap.getOrDefault(character,heightSpacingMap.get(Character.MAX_VALUE)).intValue(),
-                            endY = beginY + Text.HEIGHT_PIXELS;
-
-
-                    {
-                        var verticesSegment = arena.allocate(ValueLayout.JAVA_FLOAT, 8);
-                        for (int j = 0; j < 8; j++) {
-                            var baseValue = (10 / 16f) * scale;
-                            if (j < 2 || (j == 3 || j == 4)) baseValue = -baseValue;
-
-                            verticesSegment.set(ValueLayout.OfFloat.JAVA_FLOAT, j * 4, baseValue);
-                        }
-                        glVertexAttribPointer(positionHandle, 2, GL_FLOAT, false, 0, verticesSegment.address());
-                    }
-
-                    {
-                        float textureLeft = beginY / 256f,
-                                textureRight = endY / 256f,
-                                textureBottom = beginX / 256f,
-                                textureTop = endX / 256f;
-
-                        var textureCoordinatesSegment = arena.allocate(ValueLayout.OfFloat.JAVA_FLOAT, 8);
-                        for (int j = 0; j < 8; j++) {
-                            float value = 0;
-                            if (j == 0 || j == 4) value = textureLeft;
-                            else if (j == 2 || j == 6) value = textureRight;
-                            if (j % 2 != 0) {
-                                if (j < 4) value = textureTop;
-                                else value = textureBottom;
-                            }
-
-                            textureCoordinatesSegment.set(ValueLayout.OfFloat.JAVA_FLOAT, j * 4, value);
-                        }
-
-                        glVertexAttribPointer(texCoordHandle, 2, GL_FLOAT, false, 0, textureCoordinatesSegment.address());
-                    }
-
-                    {
-                        var segmentLength = 4 * 4;
-                        var colorSegment = arena.allocate(ValueLayout.OfFloat.JAVA_FLOAT, segmentLength);
-                        var color = component.color();
-
-                        for (int j = 0; j < segmentLength; j += 4) {
-
-                            colorSegment.set(ValueLayout.JAVA_FLOAT, j * 4L, normalizeRGBA((int) (color.getRed() / darknessFactor)));
-                            colorSegment.set(ValueLayout.JAVA_FLOAT, (j + 1) * 4L, normalizeRGBA((int) (color.getGreen() / darknessFactor)));
-                            colorSegment.set(ValueLayout.JAVA_FLOAT, (j + 2) * 4L, normalizeRGBA((int) (color.getBlue() / darknessFactor)));
-                            colorSegment.set(ValueLayout.JAVA_FLOAT, (j + 3) * 4L, normalizeRGBA((int) (color.getAlpha() / darknessFactor)));
-                        }
-
-                        glVertexAttribPointer(colorHandle, 4, GL_FLOAT, false, 0, colorSegment.address());
-                    }
-
-                    // Draw the text
-                    glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
-
-                }
-                glDisableVertexAttribArray(positionHandle);
-                glDisableVertexAttribArray(texCoordHandle);
-                glDisableVertexAttribArray(colorHandle);
+                float textureLeft = texture.mapU(beginY / 256f),
+                        textureRight = texture.mapU(endY / 256f),
+                        textureBottom = texture.mapV(beginX / 256f),
+                        textureTop = texture.mapV(endX / 256f);
 
+                putGlyph(
+                        xOffset + pos.x, pos.y, glyphHalfSize, glyphHalfSize,
+                        textureLeft, textureTop, textureRight, textureBottom,
+                        red, green, blue, alpha
+                );
 
                 xOffset += 1.1f * scale;
-                if(Text.widthSpacingMap.containsKey(character)) {
-                    xOffset += Text.widthSpacingMap.getOrDefault(character, Text.widthSpacingMap.get(Character.MAX_VALUE)) * scale;
+                float widthAdd = spacing(Text.widthSpacing, character);
+                if(!Float.isNaN(widthAdd)) {
+                    xOffset += widthAdd * scale;
                     lowOffsetPassed = true;
                 } else lowOffsetPassed = false;
             }
@@ -348,8 +525,65 @@ public class Text implements GUIElement {
             offset = drawFunc.apply(new Vector2f(xNative + boldOffset, y), 1f);
         }
 
-        glDisable(GL_BLEND);
-        glUseProgram(0);
         return offset;
     }
+
+    /**
+     * Lays out a string with the {@link Text#font}, rasterizing the glyphs it hasn't drawn yet.
+     *
+     * @return how far the pen moved.
+     */
+    private float buildFontStringTextComponent(StringTextComponent component, float x) {
+        final var font = Objects.requireNonNull(this.font);
+
+        if (component.shouldDrawShadow())
+            putFontString(font, component, x - .05f * scale, y - .05f * scale, 1.5f);
+
+        float offset = 0;
+        for (int i = 0; i < (component.isBold() ? 2 : 1); i++)
+            offset = putFontString(font, component, x + i * .075f * scale, y, 1f);
+
+        return offset;
+    }
+
+    private float putFontString(GameFont font, StringTextComponent component, float x, float y, float darknessFactor) {
+        var text = component.characters();
+        var color = component.color();
+
+        float red = normalizeRGBA((int) (color.getRed() / darknessFactor)),
+                green = normalizeRGBA((int) (color.getGreen() / darknessFactor)),
+                blue = normalizeRGBA((int) (color.getBlue() / darknessFactor)),
+                alpha = normalizeRGBA((int) (color.getAlpha() / darknessFactor));
+
+        final float unitsPerPixel = this.unitsPerPixel();
+        float baseline = y + (font.lineHeight() / 2 - font.ascent()) * unitsPerPixel; // Centers the line on y.
+
+        float pen = 0;
+        int previous = -1;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+
+            if (previous != -1) pen += font.kerning(previous, codePoint);
+            previous = codePoint;
+
+            int glyph = font.glyph(codePoint);
+            if (font.prepare(glyph)) {
+                float halfWidth = font.width(glyph) * unitsPerPixel / 2, halfHeight = font.height(glyph) * unitsPerPixel / 2;
+                float left = x + (pen + font.offsetX(glyph)) * unitsPerPixel,
+                        top = baseline - font.offsetY(glyph) * unitsPerPixel;
+
+                putGlyph(
+                        left + halfWidth, top - halfHeight, halfWidth, halfHeight,
+                        font.u0(glyph), font.v1(glyph), font.u1(glyph), font.v0(glyph), // The quad's bottom samples the glyph's bottom row.
+                        red, green, blue, alpha
+                );
+                glyphPageTextures[glyphCount - 1] = font.pageTexture(glyph);
+            }
+
+            pen += font.advance(glyph);
+        }
+
+        return pen * unitsPerPixel;
+    }
 }
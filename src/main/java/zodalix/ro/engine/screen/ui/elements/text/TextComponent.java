@@ -7,10 +7,19 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public class TextComponent {
 
+    // The constants of java.awt.Color, by lowercase name.
+    private static final Map<String, Color> NAMED_COLORS = Map.ofEntries(
+            Map.entry("white", Color.WHITE), Map.entry("light_gray", Color.LIGHT_GRAY), Map.entry("gray", Color.GRAY),
+            Map.entry("dark_gray", Color.DARK_GRAY), Map.entry("black", Color.BLACK), Map.entry("red", Color.RED), Map.entry("pink", Color.PINK),
+            Map.entry("orange", Color.ORANGE), Map.entry("yellow", Color.YELLOW), Map.entry("green", Color.GREEN),
+            Map.entry("magenta", Color.MAGENTA), Map.entry("cyan", Color.CYAN), Map.entry("blue", Color.BLUE)
+    );
+
     private final ArrayList<TextComponent> children;
     private Color color = Color.WHITE;
 
@@ -22,31 +31,28 @@ public class TextComponent {
         return new StringTextComponent(string);
     }
 
+    /**
+     * Replaces every {@code {}} with the next object, then {@linkplain TextComponent#parse(String) parses} the result.
+     * Text that changes often should use a {@link TextTemplate} instead, which parses once.
+     */
     public static TextComponent composedText(String string, Object... objects) {
-        var builder = new StringBuilder(string);
+        var builder = new StringBuilder(string.length() + objects.length * 8);
         int atObject = 0;
 
-        for (int i = 0; i < builder.length(); i++) {
-            if(atObject >= objects.length) break;
-
-            var character = builder.charAt(i);
-            if(character != '{') continue;
-
-            var before = accessWithoutViolation(builder.toString(), i-1);
-            var after = accessWithoutViolation(builder.toString(), i+1);
-
-            if(after == '}') {
-                if(before == '\\') {
-                    builder.deleteCharAt(i-1);
-                    i++;
-                    continue;
-                }
+        for (int i = 0; i < string.length(); i++) {
+            var character = string.charAt(i);
 
-                builder.delete(i,i+2);
-                builder.insert(i,objects[atObject].toString());
+            if (atObject < objects.length && character == '{' && accessWithoutViolation(string, i + 1) == '}') {
+                if (accessWithoutViolation(string, i - 1) == '\\') {
+                    builder.setLength(builder.length() - 1); // The escaped braces are kept, without the backslash.
+                    builder.append("{}");
+                } else builder.append(objects[atObject++]);
 
-                atObject++;
+                i++;
+                continue;
             }
+
+            builder.append(character);
         }
 
         return parse(builder.toString());
@@ -120,9 +126,7 @@ public class TextComponent {
     }
 
     private static Color lookupColorFieldSafe(String color) {
-        try {
-            return (Color) Color.class.getDeclaredField(color.toUpperCase(Locale.ROOT)).get(null);
-        } catch (Throwable _ ) { return null; }
+        return NAMED_COLORS.get(color.toLowerCase(Locale.ROOT));
     }
 
     public TextComponent append(TextComponent other) {
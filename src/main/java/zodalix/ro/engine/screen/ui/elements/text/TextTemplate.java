@@ -0,0 +1,225 @@
+package zodalix.ro.engine.screen.ui.elements.text;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Markup with {@code {}} slots, parsed once into a fixed {@link TextComponent} tree whose slots are filled in place.
+ * <p>
+ * Text that changes every frame or every second, like coordinates and debug statistics, would otherwise be formatted
+ * and parsed again on each change with {@link TextComponent#composedText(String, Object...)}. With a template only the
+ * slot's characters are rewritten: numbers are formatted straight into a reused buffer, and a value that didn't change
+ * changes nothing. A {@link Text} showing a template lays its glyphs out again only once a slot changed, and measures
+ * its bounding box again only once a slot's width changed.
+ * <pre>
+ * var coordinates = TextTemplate.compile("&lt;yellow&gt;X: {} Y: {}");
+ * var text = new Text(7f, 9.5f, .5f, coordinates);
+ * coordinates.set(0, x, 2).set(1, y, 2);
+ * </pre>
+ * Slots are numbered in the order they appear, {@code \{}} is a literal {@code {}}. Templates aren't thread-safe.
+ */
+public final class TextTemplate {
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final TextComponent component;
+    private final Slot[] slots;
+    private final StringBuilder scratch;
+
+    private long revision, boundsRevision;
+
+    private TextTemplate(TextComponent component, Slot[] slots) {
+        this.component = component;
+        this.slots = slots;
+        this.scratch = new StringBuilder();
+    }
+
+    /**
+     * @param markup the markup understood by {@link TextComponent#parse(String)}, with {@code {}} where values go.
+     */
+    @NotNull
+    public static TextTemplate compile(@NotNull String markup) {
+        var parsed = TextComponent.parse(markup);
+        var root = new TextComponent();
+        var slots = new ArrayList<Slot>();
+
+        for (final var child : parsed.children()) {
+            if (!(child instanceof StringTextComponent string)) {
+                root.append(child);
+                continue;
+            }
+
+            var literals = new ArrayList<String>();
+            var firstSlot = slots.size();
+            split(string.getString(), literals);
+
+            Segment segment = new Segment(literals.toArray(String[]::new));
+            segment.color(string.color());
+            if (string.shouldDrawShadow()) segment.shadow();
+            if (string.isBold()) segment.bold();
+
+            for (int i = 0; i < literals.size() - 1; i++) slots.add(new Slot(segment));
+            segment.slots = slots.subList(firstSlot, slots.size()).toArray(Slot[]::new);
+            segment.rebuild();
+
+            root.append(segment);
+        }
+
+        return new TextTemplate(root, slots.toArray(Slot[]::new));
+    }
+
+    /**
+     * Splits a string at its {@code {}}, there is always one more literal than slots.
+     */
+    private static void split(String string, List<String> literals) {
+        var literal = new StringBuilder();
+
+        for (int i = 0; i < string.length(); i++) {
+            char character = string.charAt(i);
+
+            if (character == '\\' && string.startsWith("{}", i + 1)) {
+                literal.append("{}");
+                i += 2;
+            } else if (character == '{' && string.startsWith("}", i + 1)) {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                i++;
+            } else literal.append(character);
+        }
+
+        literals.add(literal.toString());
+    }
+
+    /**
+     * @return the component tree, which stays the same for the template's lifetime.
+     */
+    @NotNull
+    public TextComponent component() {
+        return component;
+    }
+
+    public int slotCount() {
+        return slots.length;
+    }
+
+    public TextTemplate set(int slot, long value) {
+        scratch.setLength(0);
+        scratch.append(value);
+        return this.update(slot);
+    }
+
+    /**
+     * @param decimals how many digits are shown after the point, at most 6.
+     */
+    public TextTemplate set(int slot, double value, int decimals) {
+        scratch.setLength(0);
+        appendFixed(scratch, value, decimals);
+        return this.update(slot);
+    }
+
+    public TextTemplate set(int slot, @NotNull CharSequence value) {
+        scratch.setLength(0);
+        scratch.append(value);
+        return this.update(slot);
+    }
+
+    public TextTemplate set(int slot, Object value) {
+        return this.set(slot, String.valueOf(value));
+    }
+
+    private TextTemplate update(int slot) {
+        var target = slots[slot];
+        if (target.value.compareTo(scratch) == 0) return this;
+
+        float width = StringTextComponent.width(target.value);
+
+        target.value.setLength(0);
+        target.value.append(scratch);
+        target.segment.rebuild();
+
+        this.revision++;
+        if (StringTextComponent.width(target.value) != width) this.boundsRevision++;
+
+        return this;
+    }
+
+    /**
+     * Formats without going through a {@link String}, unlike {@link String#format(String, Object...)}.
+     */
+    private static void appendFixed(StringBuilder builder, double value, int decimals) {
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length) throw new IllegalArgumentException("Unsupported decimal count " + decimals);
+
+        long scale = POWERS_OF_TEN[decimals];
+        if (!Double.isFinite(value) || Math.abs(value) >= (double) Long.MAX_VALUE / scale) {
+            builder.append(value);
+            return;
+        }
+
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) builder.append('-');
+
+        builder.append(scaled / scale);
+        if (decimals == 0) return;
+
+        builder.append('.');
+        long fraction = scaled % scale;
+        for (long digit = scale / 10; digit > fraction && digit > 1; digit /= 10) builder.append('0');
+        builder.append(fraction);
+    }
+
+    /**
+     * @return a number that changes whenever a slot's characters change.
+     */
+    long revision() {
+        return revision;
+    }
+
+    /**
+     * @return a number that changes whenever a slot's characters change width.
+     */
+    long boundsRevision() {
+        return boundsRevision;
+    }
+
+    private static final class Slot {
+        private final Segment segment;
+        private final StringBuilder value;
+
+        private Slot(Segment segment) {
+            this.segment = segment;
+            this.value = new StringBuilder();
+        }
+    }
+
+    /**
+     * A run of styled text made of literals with slots in between.
+     */
+    private static final class Segment extends StringTextComponent {
+        private final String[] literals;
+        private final StringBuilder characters;
+        private Slot[] slots;
+
+        private Segment(String[] literals) {
+            super("");
+            this.literals = literals;
+            this.characters = new StringBuilder();
+        }
+
+        private void rebuild() {
+            characters.setLength(0);
+            for (int i = 0; i < slots.length; i++) characters.append(literals[i]).append(slots[i].value);
+            characters.append(literals[literals.length - 1]);
+        }
+
+        @Override
+        public CharSequence characters() {
+            return characters;
+        }
+
+        @Override
+        public String getString() {
+            return characters.toString();
+        }
+    }
+}
@@ -2,57 +2,100 @@ package zodalix.ro.engine.utils;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An interned {@code namespace:path} identifier.
+ * <p>
+ * Every distinct key is created once and gets a dense {@linkplain NamespacedKey#id() id}, counting up from 0 in the
+ * order keys are first requested. Registries looked up on hot paths index flat arrays with it instead of hashing,
+ * see {@link NamespacedRegistry}. Ids are only stable for the lifetime of the process, anything persisted must use
+ * the string form.
+ * <p>
+ * Interning is safe from any thread.
+ */
 public class NamespacedKey implements CharSequence {
 
-    private static final Map<String, NamespacedKey> REGISTERED_KEYS = new HashMap<>();
+    // Namespace, then path: looking a key up doesn't have to build its string form.
+    private static final Map<String, Map<String, NamespacedKey>> REGISTERED_KEYS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
 
     private final String namespace, path;
+    private final int id;
+    private final String string, assetPath;
 
     private NamespacedKey(String namespace, String path) {
         this.namespace = namespace;
         this.path = path;
+        this.id = NEXT_ID.getAndIncrement();
+        this.string = namespace + ":" + path;
+        this.assetPath = "/assets/" + namespace + "/" + path;
     }
 
     protected NamespacedKey(NamespacedKey base) {
-        this(base.namespace, base.path);
+        this.namespace = base.namespace;
+        this.path = base.path;
+        this.id = base.id;
+        this.string = base.string;
+        this.assetPath = base.assetPath;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return this key's dense id, shared with any key copied from it.
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * @return where this key's asset lives, {@code /assets/<namespace>/<path>}, without an extension.
+     */
+    @NotNull
+    public String assetPath() {
+        return assetPath;
     }
 
     @Override
     public int length() {
-        return toString().length();
+        return string.length();
     }
 
     @Override
     public char charAt(int index) {
-        return toString().charAt(index);
+        return string.charAt(index);
     }
 
     @NotNull
     @Override
     public CharSequence subSequence(int start, int end) {
-        return toString().subSequence(start, end);
+        return string.subSequence(start, end);
     }
 
     @NotNull
     @Override
     public String toString() {
-        return namespace + ":" + path;
+        return string;
     }
 
     @NotNull
     public static NamespacedKey get(String namespace, String path) {
-        var fullPath = namespace + ":" + path;
+        var paths = REGISTERED_KEYS.get(namespace);
+        if (paths == null) paths = REGISTERED_KEYS.computeIfAbsent(namespace, _ -> new ConcurrentHashMap<>());
 
-        if (!REGISTERED_KEYS.containsKey(fullPath)) {
-            NamespacedKey  asset = new NamespacedKey(namespace, path);
-            REGISTERED_KEYS.put(fullPath,asset);
-            return asset;
-        }
+        var key = paths.get(path);
+        if (key != null) return key;
 
-        return REGISTERED_KEYS.get(fullPath);
+        return paths.computeIfAbsent(path, p -> new NamespacedKey(namespace, p));
     }
 
     @NotNull
@@ -60,21 +103,23 @@ public class NamespacedKey implements CharSequence {
         return get("ro", path);
     }
 
+    /**
+     * @return how many keys have been interned so far, every id is below it.
+     */
+    public static int count() {
+        return NEXT_ID.get();
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
-        NamespacedKey that = (NamespacedKey) o;
-
-        if (!namespace.equals(that.namespace)) return false;
-        return path.equals(that.path);
+        return id == ((NamespacedKey) o).id;
     }
 
     @Override
     public int hashCode() {
-        int result = namespace.hashCode();
-        result = 31 * result + path.hashCode();
-        return result;
+        return id;
     }
 }
@@ -0,0 +1,125 @@
+package zodalix.ro.engine.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Values registered under {@link NamespacedKey}s, stored in a flat array indexed by {@link NamespacedKey#id()}.
+ * <p>
+ * Looking a value up is an array access: no hashing, no locking. Registering takes a lock and is meant to happen
+ * far less often than lookups, a value is created once and then read every frame. Entries are never removed.
+ *
+ * @param <V> the registered values.
+ */
+public final class NamespacedRegistry<V> implements Iterable<V> {
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private volatile Object[] slots;
+    private volatile int size;
+
+    public NamespacedRegistry() {
+        this.slots = new Object[Math.max(16, NamespacedKey.count())];
+    }
+
+    /**
+     * @return the value registered under the key, or {@code null} if there is none. Safe from any thread.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(@NotNull NamespacedKey key) {
+        var slots = this.slots;
+        int id = key.id();
+        return id < slots.length ? (V) SLOT.getAcquire(slots, id) : null;
+    }
+
+    /**
+     * Returns the value registered under the key, creating and registering it first if there is none.
+     *
+     * @param factory creates the value, called at most once per key and while holding the registry's lock.
+     */
+    @NotNull
+    public V computeIfAbsent(@NotNull NamespacedKey key, @NotNull Function<? super NamespacedKey, ? extends V> factory) {
+        var value = this.get(key);
+        if (value != null) return value;
+
+        synchronized (this) {
+            value = this.get(key);
+            if (value != null) return value;
+
+            value = Objects.requireNonNull(factory.apply(key), "factory cannot return null.");
+            this.store(key.id(), value);
+            return value;
+        }
+    }
+
+    /**
+     * @return the value previously registered under the key, or {@code null}.
+     */
+    @Nullable
+    public synchronized V put(@NotNull NamespacedKey key, @NotNull V value) {
+        Objects.requireNonNull(value, "value cannot be null.");
+
+        var previous = this.get(key);
+        this.store(key.id(), value);
+        return previous;
+    }
+
+    private void store(int id, Object value) {
+        var slots = this.slots;
+        if (id >= slots.length) {
+            var grown = new Object[Math.max(id + 1, slots.length * 2)];
+            System.arraycopy(slots, 0, grown, 0, slots.length);
+            this.slots = slots = grown;
+        }
+
+        if (SLOT.getAcquire(slots, id) == null) size++;
+        SLOT.setRelease(slots, id, value);
+    }
+
+    /**
+     * @return how many keys have a value.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Iterates the values in key id order. Values registered while iterating may or may not be visited.
+     */
+    @NotNull
+    @Override
+    public Iterator<V> iterator() {
+        var slots = this.slots;
+
+        return new Iterator<>() {
+            private int next = this.advance(0);
+
+            private int advance(int from) {
+                while (from < slots.length && SLOT.getAcquire(slots, from) == null) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < slots.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (!hasNext()) throw new NoSuchElementException();
+
+                var value = (V) SLOT.getAcquire(slots, next);
+                this.next = this.advance(next + 1);
+                return value;
+            }
+        };
+    }
+}
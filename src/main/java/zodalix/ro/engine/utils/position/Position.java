@@ -7,6 +7,16 @@ public sealed interface Position permits MutablePosition, ImmutablePosition {
     float x();
     float y();
 
+    /**
+     * @return the position {@code alpha} of the way from {@code from} to {@code to}
+     */
+    static Position lerp(Position from, Position to, float alpha) {
+        return new ImmutablePosition(
+                from.x() + (to.x() - from.x()) * alpha,
+                from.y() + (to.y() - from.y()) * alpha
+        );
+    }
+
     default Point2D toPoint2D() {
         return new Point2D(x(),y());
     }
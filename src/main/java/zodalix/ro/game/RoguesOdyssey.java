@@ -1,17 +1,29 @@
 package zodalix.ro.game;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.lwjgl.glfw.*;
 import org.lwjgl.opengl.GL;
+import zodalix.ro.engine.SimulationClock;
 import zodalix.ro.engine.asset.AssetManager;
+import zodalix.ro.engine.event.EventBus;
 import zodalix.ro.engine.input.GameInputHandler;
+import zodalix.ro.engine.input.InputRecorder;
+import zodalix.ro.engine.input.InputReplay;
+import zodalix.ro.engine.profiler.FrameProfiler;
+import zodalix.ro.engine.profiler.RunStatistics;
 import zodalix.ro.engine.renderer.GameRenderer;
+import zodalix.ro.engine.utils.NamespacedKey;
 import zodalix.ro.game.dungeon.Dungeon;
 import zodalix.ro.game.gui.TitleScreen;
 
+import java.io.IOException;
 import java.nio.IntBuffer;
+import java.nio.file.Path;
 import java.util.Objects;
+import java.util.SplittableRandom;
 
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL33.*;
@@ -31,6 +43,7 @@ import static org.lwjgl.system.MemoryUtil.NULL;
  * @see <a href="https://www.glfw.org/">GLFW Official Documentation</a>
  */
 public final class RoguesOdyssey {
+    private static final Logger logger = LogManager.getLogger(RoguesOdyssey.class);
 
     private static RoguesOdyssey instance;
 
@@ -38,18 +51,41 @@ public final class RoguesOdyssey {
     public final AssetManager assetManager;
     public final GameRenderer renderer;
     public final GameInputHandler inputHandler;
+    public final FrameProfiler profiler;
+    public final EventBus eventBus;
 
     private volatile Dungeon dungeon;
 
+    // Every random source of the session derives from the seed, so a replay meets the same dungeons.
+    private long seed;
+    private SplittableRandom seeds;
+
+    private @Nullable Path inputRecording;
+    private @Nullable InputReplay inputReplay;
+    private @Nullable Path replayStatistics;
+
     /**
      * Private constructor to initialize the game instance. This method sets up the GLFW window, the OpenGL context,
      * and the main components such as the {@link GameRenderer}, {@link AssetManager}, and {@link GameInputHandler}.
      */
     private RoguesOdyssey() {
 
+        this.profiler = new FrameProfiler();
+        this.eventBus = new EventBus();
+        this.setSeed(System.currentTimeMillis() * (System.nanoTime() % 2 == 0 ? 1L : -1L));
         this.assetManager = new AssetManager(this);
         this.inputHandler = new GameInputHandler(this);
 
+        // Everything the title screen and the HUD draw shares one atlas, so a frame of either binds a single texture.
+        this.assetManager.registerAtlasGroup(
+                NamespacedKey.getDefault("atlas/interface"),
+                NamespacedKey.getDefault("textures/backgrounds"),
+                NamespacedKey.getDefault("textures/clouds"),
+                NamespacedKey.getDefault("textures/buttons"),
+                NamespacedKey.getDefault("textures/gui"),
+                NamespacedKey.getDefault("text")
+        );
+
         GLFWErrorCallback.createPrint(System.err).set();
 
         if (!glfwInit())
@@ -59,6 +95,12 @@ public final class RoguesOdyssey {
         glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
         glfwWindowHint(GLFW_RESIZABLE, GLFW_TRUE);
 
+        // Core profile: every draw goes through vertex arrays and buffer objects.
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
+        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
+        glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE); // Required on macOS.
+
         // Create the window
         this.windowHandle = glfwCreateWindow(800, 600, this.getWindowTitle(), NULL, NULL);
         if (windowHandle == NULL)
@@ -111,6 +153,44 @@ public final class RoguesOdyssey {
         RoguesOdyssey.instance = new RoguesOdyssey();
     }
 
+    private void setSeed(long seed) {
+        this.seed = seed;
+        this.seeds = new SplittableRandom(seed);
+    }
+
+    /**
+     * @return a seed for a random source (such as a dungeon generator), the same sequence for the same session seed.
+     */
+    public long nextSeed() {
+        return seeds.nextLong();
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * Records the session's input and seed to the file, see {@link InputRecorder}. Must be called before
+     * {@link RoguesOdyssey#startGame()}.
+     */
+    public void recordInput(@NotNull Path file) {
+        if (inputReplay != null) throw new IllegalStateException("Can't record while replaying.");
+        this.inputRecording = file;
+    }
+
+    /**
+     * Drives the session with a recording instead of the window's input: one tick per frame at the recorded tick
+     * rate, until the recording ends. The profiler's statistics over the whole run are then logged and written to
+     * {@code statistics}. Must be called before {@link RoguesOdyssey#startGame()}.
+     */
+    public void replayInput(@NotNull InputReplay replay, @NotNull Path statistics) {
+        if (inputRecording != null) throw new IllegalStateException("Can't replay while recording.");
+
+        this.inputReplay = replay;
+        this.replayStatistics = statistics;
+        this.setSeed(replay.seed());
+    }
+
     /**
      * Starts the game by creating OpenGL capabilities, setting up the main game loop, and configuring GLFW callbacks.
      * This method continuously updates the game state, renders the game, and handles input.
@@ -136,55 +216,126 @@ public final class RoguesOdyssey {
             );
         }
 
-        // Set the game callbacks.
-        {
-            glfwSetWindowSizeCallback(windowHandle, (_, argWidth, argHeight) -> RoguesOdyssey.this.renderer.windowResized(argWidth, argHeight));
+        // Set the game callbacks, a replay ignores the window's input.
+        if (inputReplay != null) this.inputHandler.replay(inputReplay);
+        else {
+            glfwSetWindowSizeCallback(windowHandle, (_, argWidth, argHeight) -> RoguesOdyssey.this.inputHandler.windowResized(argWidth, argHeight));
             glfwSetMouseButtonCallback(windowHandle, (_, button, action, mods) -> RoguesOdyssey.this.inputHandler.mouseInputReceived(button, mods, action));
             glfwSetKeyCallback(windowHandle, (_, key, _, action, mods) -> RoguesOdyssey.this.inputHandler.keyboardInputReceived(key, mods, action));
+            glfwSetCursorPosCallback(windowHandle, (_, x, y) -> RoguesOdyssey.this.inputHandler.cursorMoved(x, y));
+
+            // GLFW only reports the cursor once it moves, start from where it already is.
+            double[] cursorX = new double[1], cursorY = new double[1];
+            glfwGetCursorPos(windowHandle, cursorX, cursorY);
+            this.inputHandler.cursorMoved(cursorX[0], cursorY[0]);
+        }
+
+        {
+            // Whatever the previous launches drew first has been decoding since the constructor, upload it all now.
+            long start = System.nanoTime();
+            int preloaded = assetManager.finishPreload(2000);
+            logger.info("Preloaded {} textures in {}ms", preloaded, (System.nanoTime() - start) / 1_000_000);
         }
 
         renderer.setCurrentScreen(new TitleScreen());
 
-        int frames = 0;
-        long fpsLastTime = System.currentTimeMillis();
+        {
+            var shaders = assetManager.getShaderCacheStats();
+            logger.info("Shaders: {} loaded from the binary cache in {}ms, {} compiled from source in {}ms",
+                    shaders.cachedPrograms(), shaders.cachedNanos() / 1_000_000, shaders.compiledPrograms(), shaders.compiledNanos() / 1_000_000);
+        }
+
+        final int inputPhase = profiler.phase("input"),
+                tickPhase = profiler.phase("tick"),
+                assetPhase = profiler.phase("assets"),
+                renderPhase = profiler.phase("render"),
+                swapPhase = profiler.phase("swap"),
+                pollPhase = profiler.phase("poll");
 
+        long statsLastTime = System.nanoTime();
         long previousTime = System.nanoTime();
 
-        while (!glfwWindowShouldClose(windowHandle)) {
-            long timeStart = System.currentTimeMillis();
+        // The simulation runs at a fixed rate however fast frames are drawn, -Dro.tickRate=N changes it.
+        var clock = new SimulationClock(inputReplay != null ? inputReplay.tickRate() : Integer.getInteger("ro.tickRate", SimulationClock.DEFAULT_TICK_RATE));
+
+        if (inputRecording != null) {
+            try {
+                this.inputHandler.startRecording(new InputRecorder(inputRecording, clock.tickRate(), seed));
+            } catch (IOException e) {
+                logger.error("Couldn't start recording input to {}", inputRecording, e);
+            }
+        }
+
+        var runStatistics = inputReplay != null ? new RunStatistics(profiler) : null;
+        if (inputReplay != null)
+            logger.info("Replaying {} input events over {} ticks", inputReplay.eventCount(), inputReplay.tickCount());
+
+        while (!glfwWindowShouldClose(windowHandle) && !this.inputHandler.isReplayFinished()) {
+            profiler.beginFrame();
 
             long currentTime = System.nanoTime();
-            float deltaTime = (currentTime - previousTime) / 1_000_000_000.0f; // Convert to seconds
+            long elapsedNanos = currentTime - previousTime;
             previousTime = currentTime;
 
-            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+            // A replay simulates exactly one tick per frame, its frames take as long as they take.
+            if (inputReplay != null) elapsedNanos = clock.tickNanos();
+            float deltaTime = elapsedNanos / 1_000_000_000.0f; // Convert to seconds
 
-            this.inputHandler.checkForClickHold();
+            try (var _ = profiler.scope(inputPhase)) {
+                this.inputHandler.pollEvents();
+                this.inputHandler.checkForClickHold();
+            }
 
+            try (var _ = profiler.scope(tickPhase)) {
+                for (int ticks = clock.advance(elapsedNanos); ticks > 0; ticks--) {
+                    this.inputHandler.beginTick();
+                    this.renderer.tick(clock.tickSeconds());
+                    if (this.dungeon != null) this.dungeon.tick(clock.tickSeconds());
+                    this.eventBus.dispatch();
+                }
+            }
 
-            this.renderer.tick(deltaTime);
-            if (this.dungeon != null) this.dungeon.tick(deltaTime);
+            try (var _ = profiler.scope(assetPhase)) {
+                this.assetManager.processUploads();
+            }
 
-            long renderDiff;
-            {
-                long renderStart = System.currentTimeMillis();
+            try (var _ = profiler.scope(renderPhase)) {
+                glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+                this.renderer.render(deltaTime, clock.alpha());
+            }
 
-                this.renderer.render(deltaTime); // Pass deltaTime to the render method
-                renderDiff = System.currentTimeMillis() - renderStart;
+            try (var _ = profiler.scope(assetPhase)) {
+                this.assetManager.endFrame();
             }
 
-            glfwSwapBuffers(windowHandle);
-            glfwPollEvents();
+            try (var _ = profiler.scope(swapPhase)) {
+                glfwSwapBuffers(windowHandle);
+            }
 
-            frames++;
+            try (var _ = profiler.scope(pollPhase)) {
+                glfwPollEvents();
+            }
 
-            long timeEnd = System.currentTimeMillis();
-            long difference = timeEnd - timeStart;
+            profiler.endFrame();
+            if (runStatistics != null) runStatistics.sample();
 
-            if (timeEnd - fpsLastTime >= 1000) {
-                this.renderer.displayFPS(frames, difference, renderDiff);
-                frames = 0;
-                fpsLastTime += 1000;
+            if (currentTime - statsLastTime >= 1_000_000_000L) {
+                this.renderer.displayFrameStats(profiler);
+                statsLastTime = currentTime;
+            }
+        }
+
+        this.inputHandler.stopRecording();
+
+        if (runStatistics != null) {
+            logger.info("Replay finished after {} ticks", this.inputHandler.tickCount());
+            runStatistics.log(logger);
+
+            try {
+                runStatistics.write(Objects.requireNonNull(replayStatistics));
+                logger.info("Wrote the replay's frame statistics to {}", replayStatistics);
+            } catch (IOException e) {
+                logger.error("Couldn't write the replay's frame statistics to {}", replayStatistics, e);
             }
         }
     }
@@ -195,11 +346,14 @@ public final class RoguesOdyssey {
     }
 
     /**
-     * @param newDungeon the new dungeon to set.
+     * @param newDungeon the new dungeon to set, the previous one is {@linkplain Dungeon#dispose() disposed}.
      * @return {@code this.dungeon}
      * @implNote The rest of the implementation is left to the caller, such as switching screens, etc...
      */
     public Dungeon setDungeon(@Nullable Dungeon newDungeon) {
+        var previous = this.dungeon;
+        if (previous != null && previous != newDungeon) previous.dispose();
+
         return this.dungeon = newDungeon;
     }
 }
@@ -2,19 +2,48 @@ package zodalix.ro.game.bootstrap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import zodalix.ro.engine.input.InputReplay;
 import zodalix.ro.game.RoguesOdyssey;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public final class GameBootstrap {
     private static final Logger log = LogManager.getLogger(GameBootstrap.class);
 
-    public static void main(String[] args) {
-        // Parse arguments if needed.
+    /**
+     * @param args {@code --record <file>} to record the session's input, or {@code --replay <file> [statistics]} to
+     *             replay a recording and write the frame statistics of the run as JSON, next to the recording by default.
+     */
+    public static void main(String[] args) throws IOException {
+        Path recording = null, replay = null, statistics = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--record" -> recording = Path.of(argument(args, ++i, "--record"));
+                case "--replay" -> {
+                    replay = Path.of(argument(args, ++i, "--replay"));
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) statistics = Path.of(args[++i]);
+                }
+                default -> log.warn("Ignoring unknown argument {}", args[i]);
+            }
+        }
 
         {
             long startTime = System.currentTimeMillis();
             RoguesOdyssey.init();
             log.info("Game initialized in {}ms",System.currentTimeMillis()-startTime);
         }
+
+        if (replay != null) {
+            if (statistics == null) statistics = replay.resolveSibling(replay.getFileName() + ".stats.json");
+            RoguesOdyssey.instance().replayInput(InputReplay.read(replay), statistics);
+        } else if (recording != null) RoguesOdyssey.instance().recordInput(recording);
+
         RoguesOdyssey.instance().startGame();
     }
+
+    private static String argument(String[] args, int index, String option) {
+        if (index >= args.length) throw new IllegalArgumentException(option + " expects a file.");
+        return args[index];
+    }
 }
@@ -3,6 +3,8 @@ package zodalix.ro.game.dungeon;
 import org.jetbrains.annotations.NotNull;
 import zodalix.ro.engine.Tickable;
 import zodalix.ro.engine.level.Level;
+import zodalix.ro.engine.level.MovementSystem;
+import zodalix.ro.game.RoguesOdyssey;
 import zodalix.ro.game.entity.Player;
 
 public class Dungeon extends Level implements Tickable {
@@ -11,6 +13,8 @@ public class Dungeon extends Level implements Tickable {
 
     Dungeon() {
         this.player = new Player();
+        this.entities.addSystem(new MovementSystem(this.entities));
+        this.entities.scheduler().profile(RoguesOdyssey.instance().profiler);
     }
 
 
@@ -18,17 +22,25 @@ public class Dungeon extends Level implements Tickable {
         return this.player;
     }
 
+    /**
+     * Called once the dungeon is replaced, see {@link RoguesOdyssey#setDungeon(Dungeon)}.
+     */
+    public void dispose() {
+        this.player.dispose();
+    }
+
     @Override
     public void tick(float deltaTime) {
+        super.tick(deltaTime);
         this.player.tick(deltaTime);
     }
 
 
+    /**
+     * @return a generator seeded from the session's seed, see {@link RoguesOdyssey#nextSeed()}.
+     */
     public static DungeonGenerator generator() {
-        long time = System.currentTimeMillis();
-        long sign = time % 2 == 0 ? 1L : -1L;
-
-        return Dungeon.generator(sign * time);
+        return Dungeon.generator(RoguesOdyssey.instance().nextSeed());
     }
 
     public static DungeonGenerator generator(long seed) {
@@ -7,6 +7,8 @@ import zodalix.ro.engine.utils.BoundingBox;
 import zodalix.ro.engine.entity.DrawableEntity;
 import zodalix.ro.engine.utils.NamespacedKey;
 import zodalix.ro.engine.renderer.DrawProperty;
+import zodalix.ro.engine.renderer.RenderQueue;
+import zodalix.ro.engine.utils.position.MutablePosition;
 import zodalix.ro.engine.utils.position.Position;
 
 import java.util.UUID;
@@ -16,17 +18,34 @@ public class Cloud implements DrawableEntity {
 
     private final GameTexture texture;
     private final Position position;
+    private final MutablePosition previousPosition;
 
     public Cloud(Position position,int textureVariant, boolean moodyCloud) {
         this.texture = RoguesOdyssey.instance().assetManager
                 .getTexture(NamespacedKey.getDefault("textures/clouds"+(moodyCloud ? "/moody" : "")+"/Cloud_"+textureVariant));
 
         this.position = position;
+        this.previousPosition = new MutablePosition(position.x(), position.y());
     }
 
+    /**
+     * Remembers the current position as the one to interpolate from, the cloud is moved by its screen after ticking.
+     */
     @Override
     public void tick(float deltaTime) {
+        this.previousPosition.setTo(this.position);
+    }
+
+    /**
+     * Stops the cloud from being interpolated from where it was, for when it is moved somewhere else entirely.
+     */
+    public void snapInterpolation() {
+        this.previousPosition.setTo(this.position);
+    }
 
+    @Override
+    public Position renderPosition(float alpha) {
+        return Position.lerp(this.previousPosition, this.position, alpha);
     }
 
     @Override
@@ -35,10 +54,11 @@ public class Cloud implements DrawableEntity {
 
         this.texture.drawDefault(
                 am,
-                position.toPoint2D(),
+                this.renderPosition(RoguesOdyssey.instance().renderer.getTickAlpha()).toPoint2D(),
                 projectionMatrix,
                 this.boundingBox(),
-                DrawProperty.scale(CLOUD_SCALE)
+                DrawProperty.scale(CLOUD_SCALE),
+                DrawProperty.layer(RenderQueue.Layer.BACKGROUND)
         );
     }
 
@@ -6,36 +6,33 @@ import org.joml.Matrix4f;
 import zodalix.ro.engine.asset.GameTexture;
 import zodalix.ro.engine.entity.ControllableEntity;
 import zodalix.ro.engine.entity.DrawableEntity;
-import zodalix.ro.engine.entity.Entity;
+import zodalix.ro.engine.entity.EntityMovedEvent;
+import zodalix.ro.engine.event.EventChannel;
 import zodalix.ro.engine.renderer.DrawProperty;
 import zodalix.ro.engine.utils.BoundingBox;
 import zodalix.ro.engine.utils.NamespacedKey;
-import zodalix.ro.engine.utils.Subscription;
 import zodalix.ro.engine.utils.position.MutablePosition;
 import zodalix.ro.engine.utils.position.Position;
 import zodalix.ro.game.RoguesOdyssey;
 import zodalix.ro.game.entity.controller.PlayerController;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
-import java.util.function.Consumer;
 
-public class Player implements ControllableEntity<PlayerController>, DrawableEntity, Entity.MovementSubscribable{
+public class Player implements ControllableEntity<PlayerController>, DrawableEntity {
 
     private final UUID uuid;
     private final BoundingBox bb;
 
     private final PlayerController controller;
 
-    private final MutablePosition position;
+    private final MutablePosition position, previousPosition; // The latter is the position at the start of the last tick.
 
     private final GameTexture placeholderTexture;
     private final float scale;
 
     private final float health;
 
-    private final @NotNull List<Subscription<Position>> movementSubscribers;
+    private final @NotNull EventChannel<EntityMovedEvent> moved;
 
     {
         this.uuid = UUID.randomUUID();
@@ -44,18 +41,20 @@ public class Player implements ControllableEntity<PlayerController>, DrawableEnt
 
         this.controller = new PlayerController(this);
         this.position = new MutablePosition(0, 0);
+        this.previousPosition = new MutablePosition(0, 0);
 
         this.placeholderTexture = RoguesOdyssey.instance().assetManager
-                .getTexture(NamespacedKey.getDefault("textures/player/placeholder_player"));
+                .acquireTexture(NamespacedKey.getDefault("textures/player/placeholder_player"));
 
-        this.movementSubscribers = new ArrayList<>();
+        this.moved = EntityMovedEvent.channel(RoguesOdyssey.instance().eventBus);
 
         this.health = 20f;
     }
 
     @Override
     public void tick(float deltaTime) {
-        this.controller.checkInput(-1, deltaTime); // No released key was recorded.
+        this.previousPosition.setTo(this.position);
+        this.controller.checkInput(deltaTime);
     }
 
     @Override
@@ -73,6 +72,11 @@ public class Player implements ControllableEntity<PlayerController>, DrawableEnt
         return position;
     }
 
+    @Override
+    public Position renderPosition(float alpha) {
+        return Position.lerp(this.previousPosition, this.position, alpha);
+    }
+
     @Override
     public boolean isControlled() {
         return this.controller != null;
@@ -87,7 +91,7 @@ public class Player implements ControllableEntity<PlayerController>, DrawableEnt
     public void draw(Matrix4f projectionMatrix, float deltaTime) {
         this.placeholderTexture.drawDefault(
                 RoguesOdyssey.instance().assetManager,
-                this.position.toPoint2D(),
+                this.renderPosition(RoguesOdyssey.instance().renderer.getTickAlpha()).toPoint2D(),
                 projectionMatrix,
                 this.boundingBox(),
                 DrawProperty.scale(this.scale)
@@ -95,37 +99,18 @@ public class Player implements ControllableEntity<PlayerController>, DrawableEnt
     }
 
     public void move(PlayerController.Movement movement, float factor) {
+        this.moved.post(this).departFrom(this.position); // Listeners hear about every move of the tick at once, after it.
         movement.mutate(this.position, factor);
-        for (var subscriber : this.movementSubscribers) {
-            subscriber.update(this.position);
-        }
-    }
-
-
-    @Override
-    public @NotNull List<Subscription<Position>> movementSubscribers() {
-        return this.movementSubscribers;
-    }
-
-    @Override
-    public @Nullable Subscription<Position> movementSubscribe(Consumer<Position> updateFunction, Runnable cancelledCallback) {
-        var sub = new Subscription<>(
-                updateFunction,
-                cancelledCallback,
-                this.movementSubscribers::remove
-        );
-
-        this.movementSubscribers.add(sub);
-        return sub;
-    }
-
-    @Override
-    public void cancelMovementSubscription(Subscription<Position> tSubscription, boolean callback) {
-        this.movementSubscribers.remove(tSubscription);
-        if(callback) tSubscription.getCancelledCallback().run();
     }
 
     public float health() {
         return health;
     }
+
+    /**
+     * Gives back the player's textures, once its dungeon is left for good.
+     */
+    public void dispose() {
+        RoguesOdyssey.instance().assetManager.releaseTexture(this.placeholderTexture);
+    }
 }
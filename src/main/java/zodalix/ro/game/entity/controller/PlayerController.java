@@ -17,7 +17,7 @@ public class PlayerController extends EntityController {
                               BASE_VERTICAL_MOVEMENT_FACTOR = 12.5f;
 
     @Override
-    public void checkInput(int releasedKey,float deltaTime) {
+    public void checkInput(float deltaTime) {
         var player = (Player) this.getControlledEntity(); // Too lazy to give "it" its own field.
 
         if (MOVE_RIGHT.isDown()) {
@@ -31,7 +31,7 @@ public class PlayerController extends EntityController {
         if (JUMP.isDown() && !this.jumpingHeld) { // Check if on-ground too
             player.move(Movement.UP, BASE_VERTICAL_MOVEMENT_FACTOR / 10f);
             this.jumpingHeld = true;
-        } else if (JUMP.wasDown(releasedKey)) this.jumpingHeld = false;
+        } else if (JUMP.wasReleased()) this.jumpingHeld = false;
     }
 
     public enum Movement {
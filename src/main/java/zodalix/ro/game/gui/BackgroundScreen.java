@@ -4,6 +4,7 @@ package zodalix.ro.game.gui;
 import org.joml.Matrix4f;
 import zodalix.ro.engine.asset.GameTexture;
 import zodalix.ro.engine.renderer.DrawProperty;
+import zodalix.ro.engine.renderer.RenderQueue;
 import zodalix.ro.engine.screen.GameScreen;
 import zodalix.ro.engine.utils.NamespacedKey;
 import zodalix.ro.engine.utils.RenderingUtils;
@@ -15,9 +16,6 @@ import zodalix.ro.game.entity.Cloud;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
-
-import static org.lwjgl.opengl.GL11.*;
 
 final class BackgroundScreen implements GameScreen {
 
@@ -28,11 +26,11 @@ final class BackgroundScreen implements GameScreen {
 
 
     {
-        this.backgroundImageTexture = RoguesOdyssey.instance().assetManager.getTexture(
+        this.backgroundImageTexture = RoguesOdyssey.instance().assetManager.acquireTexture(
                 NamespacedKey.getDefault("textures/backgrounds/title")
         );
 
-        this.random = ThreadLocalRandom.current();
+        this.random = new Random(RoguesOdyssey.instance().nextSeed()); // Clouds drift the same way in every replay.
         float x = RenderingUtils.transformPoint(-9.5f, RoguesOdyssey.instance().renderer);
 
         this.clouds = new HashMap<>();
@@ -55,21 +53,18 @@ final class BackgroundScreen implements GameScreen {
                 Point2D.ZERO,
                 projectionMatrix,
                 null,
-                DrawProperty.stretch()
+                DrawProperty.stretch(),
+                DrawProperty.layer(RenderQueue.Layer.BACKGROUND),
+                DrawProperty.depth(-1) // Clouds may live on another atlas page, keep them above regardless.
         );
 
-        tickClouds(projectionMatrix,deltaTime);
-
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-        glEnable(GL_BLEND);
+        respawnClouds(projectionMatrix);
 
         clouds.keySet().forEach(cloud -> cloud.draw(projectionMatrix, deltaTime));
-        glDisable(GL_BLEND);
     }
 
-    private void tickClouds(Matrix4f projectionMatrix,float deltaTime) {
-        final float x = RenderingUtils.transformPoint(-9.5f, RoguesOdyssey.instance().renderer);
-
+    @Override
+    public void tick(float deltaTime) {
         int index = 0;
         for (var entry : clouds.entrySet()) {
             var cloud = entry.getKey();
@@ -77,13 +72,31 @@ final class BackgroundScreen implements GameScreen {
 
             boolean isFast = index % 2 != 0;
 
+            cloud.tick(deltaTime);
             pos.setX(pos.x() + (0.25f * deltaTime * (isFast ? 1.75f : 1)));
 
-            if (!cloud.boundingBox().isScreenVisible(pos.x(), pos.y(), projectionMatrix)) {
-                pos.setX(x + (.5f + (random.nextBoolean() ? +random.nextFloat() : -random.nextFloat())));
-                pos.setY(7.5f + (random.nextBoolean() ? -.75f : +1f));
-            }
             index++;
         }
     }
+
+    @Override
+    public void dispose() {
+        RoguesOdyssey.instance().assetManager.releaseTexture(this.backgroundImageTexture);
+    }
+
+    // Visibility depends on the projection matrix, which only drawing knows about.
+    private void respawnClouds(Matrix4f projectionMatrix) {
+        final float x = RenderingUtils.transformPoint(-9.5f, RoguesOdyssey.instance().renderer);
+
+        for (var entry : clouds.entrySet()) {
+            var cloud = entry.getKey();
+            var pos = entry.getValue();
+
+            if (cloud.boundingBox().isScreenVisible(pos.x(), pos.y(), projectionMatrix)) continue;
+
+            pos.setX(x + (.5f + (random.nextBoolean() ? +random.nextFloat() : -random.nextFloat())));
+            pos.setY(7.5f + (random.nextBoolean() ? -.75f : +1f));
+            cloud.snapInterpolation();
+        }
+    }
 }
@@ -3,6 +3,8 @@ package zodalix.ro.game.gui;
 import org.jetbrains.annotations.NotNull;
 import org.joml.Matrix4f;
 import zodalix.ro.engine.asset.GameTexture;
+import zodalix.ro.engine.entity.EntityMovedEvent;
+import zodalix.ro.engine.event.EventChannel;
 import zodalix.ro.engine.renderer.Camera;
 import zodalix.ro.engine.renderer.DrawProperty;
 import zodalix.ro.engine.renderer.EntityAttachedCamera;
@@ -10,7 +12,7 @@ import zodalix.ro.engine.screen.CameraAwareGameScreen;
 import zodalix.ro.engine.screen.InputListeningGameScreen;
 import zodalix.ro.engine.screen.ui.elements.text.StringTextComponent;
 import zodalix.ro.engine.screen.ui.elements.text.Text;
-import zodalix.ro.engine.screen.ui.elements.text.TextComponent;
+import zodalix.ro.engine.screen.ui.elements.text.TextTemplate;
 import zodalix.ro.engine.utils.NamespacedKey;
 import zodalix.ro.engine.utils.position.Point2D;
 import zodalix.ro.game.RoguesOdyssey;
@@ -18,7 +20,7 @@ import zodalix.ro.game.dungeon.Dungeon;
 
 import java.util.Locale;
 
-import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
+import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
 
 import static zodalix.ro.engine.input.GameInputHandler.ESCAPE;
 
@@ -28,6 +30,7 @@ public class DungeonScreen implements InputListeningGameScreen, CameraAwareGameS
 
 
     private final Text playerCoordinates;
+    private final EventChannel.Listener<EntityMovedEvent> coordinatesListener;
 
     private final GameTexture fullHeartTexture, halfHeartTexture, emptyHeartTexture;
 
@@ -35,22 +38,24 @@ public class DungeonScreen implements InputListeningGameScreen, CameraAwareGameS
         this.dungeon = dungeon;
         this.camera = new EntityAttachedCamera(this.dungeon.getPlayer());
 
-        this.playerCoordinates = new Text(7f,9.5f,.5f, TextComponent.text("X: {}  Y: {}"));
+        var coordinates = TextTemplate.compile("<yellow>X: {} Y: {}");
+        this.playerCoordinates = new Text(7f,9.5f,.5f, coordinates);
 
-        this.dungeon.getPlayer().movementSubscribe((position -> {
-            this.playerCoordinates.setText(TextComponent.composedText("<yellow>X: {} Y: {}",position.x(), position.y()));
-        }),()->{});
+        this.coordinatesListener = EntityMovedEvent.channel(RoguesOdyssey.instance().eventBus).subscribe(this.dungeon.getPlayer(), event -> {
+            var position = event.to();
+            coordinates.set(0, position.x(), 2).set(1, position.y(), 2);
+        });
 
         {
-            this.fullHeartTexture = RoguesOdyssey.instance().assetManager.getTexture(
+            this.fullHeartTexture = RoguesOdyssey.instance().assetManager.acquireTexture(
                     NamespacedKey.getDefault("textures/gui/full_heart")
             );
 
-            this.halfHeartTexture = RoguesOdyssey.instance().assetManager.getTexture(
+            this.halfHeartTexture = RoguesOdyssey.instance().assetManager.acquireTexture(
                     NamespacedKey.getDefault("textures/gui/half_heart")
             );
 
-            this.emptyHeartTexture = RoguesOdyssey.instance().assetManager.getTexture(
+            this.emptyHeartTexture = RoguesOdyssey.instance().assetManager.acquireTexture(
                     NamespacedKey.getDefault("textures/gui/empty_heart")
             );
         }
@@ -79,18 +84,20 @@ public class DungeonScreen implements InputListeningGameScreen, CameraAwareGameS
 
     @Override
     public void keyboardInput(int key, int mods, int action) {
-        if (ESCAPE.isDown()) {
+        // Player input is read from the tick's input snapshot, releases included.
+        if (action == GLFW_PRESS && ESCAPE.matches(key))
             RoguesOdyssey.instance().renderer.setCurrentScreen(new TitleScreen());
-            return;
-        }
+    }
 
-        // Check for released keys.
-        if (action != GLFW_RELEASE) return;
-        var player = this.dungeon.getPlayer();
-        if (player.isControlled())
-            // Perhaps there is an annotation similar to @Contract to achieve this?
-            //noinspection DataFlowIssue (ControllableEntity#isControlled() = true: guarentees that ControllableEntity#controller() isn't null)
-            player.controller().checkInput(key, 0);
+    @Override
+    public void dispose() {
+        this.coordinatesListener.cancel();
+        this.camera.detach();
+
+        final var am = RoguesOdyssey.instance().assetManager;
+        am.releaseTexture(this.fullHeartTexture);
+        am.releaseTexture(this.halfHeartTexture);
+        am.releaseTexture(this.emptyHeartTexture);
     }
 
     @Override
@@ -38,6 +38,18 @@ public class TitleScreen extends GUIScreen {
         super.draw(projectionMatrix, deltaTime);
     }
 
+    @Override
+    public void tick(float deltaTime) {
+        super.tick(deltaTime);
+        this.backgroundScreen.tick(deltaTime);
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        this.backgroundScreen.dispose();
+    }
+
 
     private GUIElement newGameButton(float x, float y) {
         return new Button(
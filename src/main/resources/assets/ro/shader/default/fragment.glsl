@@ -1,6 +1,8 @@
-precision mediump float;
-varying vec4 vColor;
+#version 330 core
+
+in vec4 vColor;
+out vec4 fragColor;
 
 void main() {
-    gl_FragColor = vColor;
+    fragColor = vColor;
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
-attribute vec2 aPosition;
+#version 330 core
+
+layout(location = 0) in vec2 aPosition;
+layout(location = 1) in vec4 aColor;
+
 uniform mat4 uMVPMatrix;
-attribute vec4 aColor;
-varying vec4 vColor;
+out vec4 vColor;
 
 void main() {
     gl_Position = uMVPMatrix * vec4(aPosition, 0.0, 1.0);
@@ -1,9 +1,12 @@
-precision mediump float;
+#version 330 core
+
 uniform sampler2D uTexture;
-varying vec2 vTexCoord;
-varying vec4 vColor;
+in vec2 vTexCoord;
+in vec4 vColor;
+
+out vec4 fragColor;
 
 void main() {
-    vec4 texColor = texture2D(uTexture, vTexCoord);
-    gl_FragColor = texColor * vColor;
+    vec4 texColor = texture(uTexture, vTexCoord);
+    fragColor = texColor * vColor;
 }
\ No newline at end of file
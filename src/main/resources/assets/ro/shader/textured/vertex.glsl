@@ -1,16 +1,25 @@
-attribute vec2 aPosition;
+#version 330 core
+
+// Shared unit quad (see QuadMesh)
+layout(location = 0) in vec2 aCorner;
+layout(location = 1) in vec2 aCornerUV;
+
+// Per-instance attributes
+layout(location = 2) in vec2 aCenter;
+layout(location = 3) in vec2 aHalfSize;
+layout(location = 4) in vec4 aUVRect; // u0, v0, u1, v1
+layout(location = 5) in vec4 aColor;
+layout(location = 6) in float aRotation; // Rotation angle in radians
+
 uniform mat4 uMVPMatrix;
-attribute vec2 aTexCoord;
-attribute vec4 aColor;
-varying vec2 vTexCoord;
-varying vec4 vColor;
 
-uniform float uRotation; // Rotation angle in radians
+out vec2 vTexCoord;
+out vec4 vColor;
 
 void main() {
     // Apply rotation to the vertex position
-    float cosTheta = cos(uRotation);
-    float sinTheta = sin(uRotation);
+    float cosTheta = cos(aRotation);
+    float sinTheta = sin(aRotation);
 
     // Rotation matrix applied to vertex position
     mat2 rotationMatrix = mat2(
@@ -18,13 +27,13 @@ void main() {
         sinTheta, cosTheta
     );
 
-    // Rotate the position
-    vec2 rotatedPosition = rotationMatrix * aPosition;
+    // Scale the unit quad, rotate it, then move it to the instance's center
+    vec2 rotatedPosition = rotationMatrix * (aCorner * aHalfSize);
 
     // Transform the rotated position with the MVP matrix
-    gl_Position = uMVPMatrix * vec4(rotatedPosition, 0.0, 1.0);
+    gl_Position = uMVPMatrix * vec4(aCenter + rotatedPosition, 0.0, 1.0);
 
-    // Pass through the texture coordinates and color
-    vTexCoord = aTexCoord;
+    // Pick the instance's region of the texture and pass the color through
+    vTexCoord = mix(aUVRect.xy, aUVRect.zw, aCornerUV);
     vColor = aColor;
 }
\ No newline at end of file